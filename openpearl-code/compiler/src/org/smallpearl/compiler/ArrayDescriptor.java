@@ -77,6 +77,24 @@ public class ArrayDescriptor {
         return totalNoOfElements;
     }
 
+    /**
+     * get the distance of two consecutive indices of a dimension
+     * in the linearized data storage as stored in the limits of the
+     * descriptor; this is the number of elements of one sub array,
+     * i.e. the product of the element counts of all subsequent dimensions
+     *
+     * @param dimension the dimension (0 for the first one)
+     * @return the number of elements between two consecutive indices
+     */
+    public int getNoOfElemenstOnNextSubArray(int dimension) {
+        int noOfElemenstOnNextSubArray = 1;
+        for (int k = dimension + 1; k < m_listOfDimensions.size(); k++) {
+            noOfElemenstOnNextSubArray *= m_listOfDimensions.get(k).getNoOfElements();
+        }
+
+        return noOfElemenstOnNextSubArray;
+    }
+
     @Override
     public boolean equals(Object other) {
         if (!(other instanceof ArrayDescriptor)) {
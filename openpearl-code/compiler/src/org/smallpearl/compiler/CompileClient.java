@@ -0,0 +1,174 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2017 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Thin client of the compile server, which is used by prl_c.
+ *
+ * The command line is sent together with the current working directory to
+ * the running CompileServer of the current user. The output of the
+ * compilation is printed and the exit code of the compilation is passed
+ * back. If no server is running, the compiler is run in this process. This
+ * is also done for arguments, which can not be sent in the line based
+ * request: empty arguments and arguments with line breaks.
+ */
+public class CompileClient {
+
+    public static void main(String[] args) throws Exception {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--server") || args[i].equals("--help") || args[i].equals(CompileServer.STOP_REQUEST)) {
+                Compiler.main(args);
+                return;
+            }
+        }
+
+        CompileServerEndpoint endpoint = CompileServerEndpoint.read();
+        int exitCode;
+
+        if (endpoint == null || !isTransferable(args)) {
+            Compiler.main(args);
+            return;
+        }
+
+        try {
+            exitCode = sendRequest(endpoint, args);
+        } catch (ConnectException ex) {
+            // the server of the endpoint file is not running any more
+            Compiler.main(args);
+            return;
+        }
+
+        System.exit(exitCode);
+    }
+
+    /**
+     * check if the compile server of the current user accepts connections
+     */
+    static boolean isServerRunning() {
+        CompileServerEndpoint endpoint = CompileServerEndpoint.read();
+
+        if (endpoint == null) {
+            return false;
+        }
+
+        try {
+            new Socket(InetAddress.getLoopbackAddress(), endpoint.port).close();
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * ask the compile server of the current user to terminate
+     *
+     * @return the exit code
+     */
+    static int stopServer() {
+        CompileServerEndpoint endpoint = CompileServerEndpoint.read();
+
+        if (endpoint == null) {
+            System.err.println("no compile server running (" + CompileServerEndpoint.getFile() + " not found)");
+            return 1;
+        }
+
+        try {
+            return sendRequest(endpoint, new String[]{CompileServer.STOP_REQUEST});
+        } catch (IOException ex) {
+            System.err.println("no compile server on port " + endpoint.port + ": " + ex.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * check if the arguments can be sent to the server; each argument is
+     * sent as one line, and an empty line ends the list
+     */
+    private static boolean isTransferable(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].isEmpty() || args[i].indexOf('\n') >= 0 || args[i].indexOf('\r') >= 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int sendRequest(CompileServerEndpoint endpoint, String[] args) throws IOException {
+        if (!isTransferable(args)) {
+            throw new IllegalArgumentException("empty argument or argument with line break");
+        }
+
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), endpoint.port);
+        int exitCode = -1;
+
+        try {
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+
+            out.write(endpoint.token + "\n");
+            out.write(new File("").getAbsolutePath() + "\n");
+
+            for (int i = 0; i < args.length; i++) {
+                out.write(args[i] + "\n");
+            }
+
+            out.write("\n");
+            out.flush();
+
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("O ")) {
+                    System.out.println(line.substring(2));
+                } else if (line.startsWith("E ")) {
+                    System.err.println(line.substring(2));
+                } else if (line.startsWith("X ")) {
+                    exitCode = Integer.parseInt(line.substring(2).trim());
+                }
+            }
+        } finally {
+            socket.close();
+        }
+
+        return exitCode;
+    }
+}
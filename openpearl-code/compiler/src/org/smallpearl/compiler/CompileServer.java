@@ -0,0 +1,239 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2017 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Resident compile server.
+ *
+ * The server keeps the parser (ATN and DFA cache), the template groups and
+ * the JIT compiled code of the compiler resident and accepts compile
+ * requests from CompileClient on a local socket. Each request is compiled
+ * with its own Options, symbol table and constant pool.
+ *
+ * The server listens on a free port of the loopback interface. Port and
+ * access token are published in the endpoint file of the user (see
+ * CompileServerEndpoint). Connections which do not start with the token
+ * are closed without an answer.
+ *
+ * Protocol (UTF-8, line based):
+ * <pre>
+ *   request:  access token
+ *             working directory
+ *             one line per command line argument
+ *             empty line
+ *   response: "O " + line   for each line printed to stdout
+ *             "E " + line   for each line printed to stderr
+ *             "X " + exit code
+ * </pre>
+ */
+public class CompileServer {
+    static final String STOP_REQUEST = "--stop-server";
+
+    private Options m_options;
+    private ServerSocket m_socket;
+    private CompileServerEndpoint m_endpoint;
+    private volatile boolean m_running;
+
+    public CompileServer(Options options) {
+        m_options = options;
+    }
+
+    public void run() throws IOException {
+        if (CompileClient.isServerRunning()) {
+            System.err.println("compile server already running (" + CompileServerEndpoint.getFile() + ")");
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, m_options.jobs));
+
+        m_socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        m_endpoint = CompileServerEndpoint.create(m_socket.getLocalPort());
+        m_running = true;
+
+        warmUp();
+        ModuleOutputStream.install();
+
+        m_endpoint.write();
+
+        System.out.println("OpenPEARL compile server " + Compiler.version + " listening on port " + m_endpoint.port);
+
+        try {
+            while (m_running) {
+                final Socket connection;
+
+                try {
+                    connection = m_socket.accept();
+                } catch (IOException ex) {
+                    if (m_running) {
+                        System.err.println("compile server: " + ex.getMessage());
+                    }
+                    continue;
+                }
+
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        handleRequest(connection);
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            m_endpoint.delete();
+        }
+
+        System.out.println("OpenPEARL compile server terminated");
+    }
+
+    /**
+     * load everything, which is shared between the compilations, before the
+     * first request arrives
+     */
+    private void warmUp() {
+        TemplateGroups.get(Compiler.groupFile);
+        TemplateGroups.get(SystemPartExporter.IMC_EXPORT_STG);
+
+        if (SmallPearlParser._ATN == null) {
+            System.err.println("compile server: parser not available");
+        }
+    }
+
+    private void handleRequest(Socket connection) {
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8"));
+            Writer out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), "UTF-8"));
+
+            String token = in.readLine();
+
+            if (token == null) {
+                // connection test of a client (see CompileClient.isServerRunning)
+                return;
+            }
+
+            if (!m_endpoint.accepts(token)) {
+                System.err.println("compile server: request without valid token rejected");
+                return;
+            }
+
+            String workingDirectory = in.readLine();
+            List<String> args = new ArrayList<String>();
+            String line;
+
+            while ((line = in.readLine()) != null && !line.isEmpty()) {
+                args.add(line);
+            }
+
+            if (workingDirectory == null) {
+                return;
+            }
+
+            int exitCode;
+            ModuleOutputStream.Captured output;
+
+            if (args.size() == 1 && args.get(0).equals(STOP_REQUEST)) {
+                ModuleOutputStream.startCapture();
+                System.out.println("compile server stopped");
+                output = ModuleOutputStream.stopCapture();
+                exitCode = 0;
+                m_running = false;
+            } else {
+                ModuleOutputStream.startCapture();
+                exitCode = compile(workingDirectory, args);
+                output = ModuleOutputStream.stopCapture();
+            }
+
+            for (ModuleOutputStream.Line captured : output.lines) {
+                out.write(captured.error ? "E " : "O ");
+                out.write(captured.text);
+                out.write("\n");
+            }
+
+            out.write("X " + exitCode + "\n");
+            out.flush();
+        } catch (IOException ex) {
+            System.err.println("compile server: " + ex.getMessage());
+        } finally {
+            try {
+                connection.close();
+            } catch (IOException ex) {
+            }
+
+            if (!m_running) {
+                try {
+                    m_socket.close();
+                } catch (IOException ex) {
+                }
+            }
+        }
+    }
+
+    private int compile(String workingDirectory, List<String> args) {
+        Options options = new Options();
+        options.baseDirectory = new File(workingDirectory);
+        options.jobs = m_options.jobs;
+
+        try {
+            if (!Compiler.checkAndProcessArguments(args.toArray(new String[args.size()]), options)) {
+                return 1;
+            }
+
+            if (options.server || options.stopServer) {
+                System.err.println("compile server: illegal option in request");
+                return 1;
+            }
+
+            return Compiler.compile(options);
+        } catch (Throwable ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Compilation aborted.");
+
+            if (options.stacktrace) {
+                System.err.println(Compiler.getStackTrace(ex));
+            }
+
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2017 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+
+/**
+ * The endpoint of the compile server of the current user.
+ *
+ * The server listens on a free port of the loopback interface. The port
+ * and a random token are stored in a file, which only the user may read:
+ * $XDG_RUNTIME_DIR/openpearl/compile-server, or
+ * ~/.openpearl/compile-server if XDG_RUNTIME_DIR is not set.
+ * A client must send the token as first line of each request. Requests
+ * of other users, which can not read the file, are rejected.
+ */
+class CompileServerEndpoint {
+    private static final String FILE_NAME = "compile-server";
+    private static final int TOKEN_BYTES = 32;
+
+    final int port;
+    final String token;
+
+    private CompileServerEndpoint(int port, String token) {
+        this.port = port;
+        this.token = token;
+    }
+
+    /**
+     * create the endpoint of a new server with a fresh token
+     *
+     * @param port the port the server is listening on
+     */
+    static CompileServerEndpoint create(int port) {
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+
+        StringBuilder token = new StringBuilder();
+
+        for (byte b : random) {
+            token.append(String.format("%02x", b & 0xff));
+        }
+
+        return new CompileServerEndpoint(port, token.toString());
+    }
+
+    /**
+     * read the endpoint of the running server of the current user
+     *
+     * @return the endpoint; null if no server was started
+     */
+    static CompileServerEndpoint read() {
+        File file = getFile();
+
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+
+            if (lines.size() < 2) {
+                return null;
+            }
+
+            return new CompileServerEndpoint(Integer.parseInt(lines.get(0).trim()), lines.get(1).trim());
+        } catch (IOException | NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * store the endpoint in the file of the current user. The file is
+     * written with permissions 0600 and replaces an existing file.
+     */
+    void write() throws IOException {
+        Path file = getFile().toPath();
+        Path directory = file.getParent();
+
+        if (!Files.isDirectory(directory)) {
+            try {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            } catch (FileAlreadyExistsException ex) {
+                // created by a concurrent server
+            }
+        }
+
+        Path temporary = Files.createTempFile(directory, FILE_NAME, ".tmp",
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+
+        try {
+            Files.write(temporary, (port + "\n" + token + "\n").getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * remove the file, if it still describes this endpoint
+     */
+    void delete() {
+        CompileServerEndpoint current = read();
+
+        if (current != null && current.port == port && current.token.equals(token)) {
+            getFile().delete();
+        }
+    }
+
+    /**
+     * check the token sent by a client
+     *
+     * @param received the first line of the request
+     * @return true, if the token matches
+     */
+    boolean accepts(String received) {
+        if (received == null) {
+            return false;
+        }
+
+        return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), received.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static File getFile() {
+        String runtimeDirectory = System.getenv("XDG_RUNTIME_DIR");
+
+        if (runtimeDirectory != null && new File(runtimeDirectory).isDirectory()) {
+            return new File(new File(runtimeDirectory, "openpearl"), FILE_NAME);
+        }
+
+        return new File(new File(System.getProperty("user.home"), ".openpearl"), FILE_NAME);
+    }
+}
@@ -30,184 +30,516 @@
 package org.smallpearl.compiler;
 
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.stringtemplate.v4.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 public class Compiler {
     static String version = "v0.8.9.21";
-    static String grammarName;
-    static String startRuleName;
-    static List<String> inputFiles = new ArrayList<String>();
-    static boolean printAST = false;
-    static String psFile = null;
-    static String outputFilename = null;
-    static boolean showTokens = false;
-    static boolean trace = true;
-    static boolean diagnostics = false;
-    static String encoding = null;
-    static boolean SLL = false;
-    static boolean nosemantic = false;
-    static int verbose = 0;
     static String groupFile = "SmallPearlCpp.stg";
-    static boolean lineSeparatorHasToBeModified = true;
-    static boolean dumpDFA = false;
-    static boolean dumpSymbolTable = false;
-    static boolean dumpConstantPool = false;
-    static boolean debug = false;
-    static boolean debugSTG = false;
-    static boolean stacktrace = false;
-    static boolean imc = true;
-    static int     noOfErrors = 0;
-    static int     noOfWarnings = 0;
-    static int     warninglevel = 255;
-    static int     lineWidth = 80;
-
 
     public static void main(String[] args) throws Exception {
-        int i, j;
         if (args.length < 1) {
             printHelp();
             return;
         }
 
-        long startTime = System.nanoTime();
+        Options options = new Options();
 
-        ConstantPool constantPool = new ConstantPool();
-        SymbolTableVisitor symbolTableVisitor = new SymbolTableVisitor(verbose, constantPool);
+        if (!checkAndProcessArguments(args, options)) {
+            return;
+        }
 
-        if (!checkAndProcessArguments(args)) {
+        if (options.server) {
+            new CompileServer(options).run();
             return;
         }
 
-        for (i = 0; i < inputFiles.size(); i++) {
-            OpenPearlLexer lexer = null;
+        if (options.stopServer) {
+            System.exit(CompileClient.stopServer());
+        }
 
-            try {
-                lexer = new OpenPearlLexer(new ANTLRFileStream(inputFiles.get(i)));
+        System.exit(compile(options));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Compile all input files of one invocation.
+     *
+     * @param options the options of this invocation
+     * @return the exit code: 0 if all modules are ok, 1 if errors were
+     *         detected, a negative value if a compilation was aborted
+     */
+    static int compile(Options options) throws InterruptedException {
+        long startTime = System.nanoTime();
+
+        if (options.inputFiles.size() == 0) {
+            return 0;
+        }
+
+        int result;
+        List<Map<String, Object>> systemParts = new ArrayList<Map<String, Object>>();
+
+        if (options.inputFiles.size() == 1) {
+            Translation translation = new Translation();
+            result = compileModule(options, options.inputFiles.get(0), options.outputFilename, translation);
+            systemParts.add(translation.systemPart);
+        } else {
+            if (options.outputFilename != null) {
+                System.err.println("--output not allowed with more than one input file");
+                return -1;
             }
-            catch(IOException ex) {
-                System.out.println("Error:" + ex.getMessage());
-                System.exit(-2);
+
+            result = compileModules(options, systemParts);
+        }
+
+        if (result == 0 && options.imcTarget != null) {
+            result = checkSystemParts(options, systemParts);
+        }
+
+        long difference = System.nanoTime() - startTime;
+
+        System.out.println("Total execution time: " +
+                String.format("%d.%d sec",
+                        TimeUnit.NANOSECONDS.toSeconds(difference),
+                        TimeUnit.NANOSECONDS.toMillis(difference) - TimeUnit.NANOSECONDS.toSeconds(difference) * 1000));
+
+        if ( result < 0 ) {
+            return result;
+        } else if ( result == 0 ) {
+            return 0;
+        } else {
+            return 1;
+        }
+    }
+
+    /**
+     * Compile several modules in one process. The modules are distributed over
+     * a pool of worker threads. Each module is compiled with its own symbol
+     * table, constant pool and visitors. The messages of each module are
+     * collected and printed in the order of the input files.
+     *
+     * @param options the options of this invocation
+     * @param systemParts receives the system parts of the modules for the
+     *        inter module check (--imcTarget) in the order of the input files
+     * @return 0 if all modules are ok, a negative value if at least one
+     *         compilation was aborted, else a positive value
+     */
+    private static int compileModules(final Options options, List<Map<String, Object>> systemParts) throws InterruptedException {
+        List<Future<ModuleResult>> results = new ArrayList<Future<ModuleResult>>();
+        int result = 0;
+        int threads = Math.max(1, Math.min(options.jobs, options.inputFiles.size()));
+
+        ModuleOutputStream.install();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            for (final String file : options.inputFiles) {
+                results.add(executor.submit(new Callable<ModuleResult>() {
+                    @Override
+                    public ModuleResult call() {
+                        ModuleResult moduleResult = new ModuleResult();
+
+                        ModuleOutputStream.startCapture();
+
+                        try {
+                            Translation translation = new Translation();
+                            moduleResult.result = compileModule(options, file, getOutputFilename(file), translation);
+                            moduleResult.systemPart = translation.systemPart;
+                        } catch (Throwable ex) {
+                            System.err.println(ex.getMessage());
+                            System.err.println("Compilation aborted.");
+
+                            if (options.stacktrace) {
+                                System.err.println(getStackTrace(ex));
+                            }
+
+                            moduleResult.result = -1;
+                        } finally {
+                            moduleResult.output = ModuleOutputStream.stopCapture();
+                        }
+
+                        return moduleResult;
+                    }
+                }));
             }
 
-            lexer.removeErrorListeners();
-            lexer.addErrorListener(DescriptiveErrorListener.INSTANCE);
+            for (Future<ModuleResult> future : results) {
+                ModuleResult moduleResult;
+
+                try {
+                    moduleResult = future.get();
+                } catch (ExecutionException ex) {
+                    System.err.println(ex.getMessage());
+                    result = -1;
+                    continue;
+                }
+
+                systemParts.add(moduleResult.systemPart);
+
+                moduleResult.output.print(System.out, System.err);
+
+                if (moduleResult.result < 0) {
+                    result = -1;
+                } else if (moduleResult.result > 0 && result == 0) {
+                    result = 1;
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        return result;
+    }
+
+    private static class ModuleResult {
+        int result;
+        Map<String, Object> systemPart;
+        ModuleOutputStream.Captured output;
+    }
+
+    /**
+     * run the inter module checker on the system parts of all modules of
+     * this invocation (--imcTarget)
+     *
+     * @return 0 if the system part was created, else the result of the checker
+     */
+    private static int checkSystemParts(Options options, List<Map<String, Object>> systemParts) {
+        List<String> moduleNames = new ArrayList<String>();
+
+        for (String file : options.inputFiles) {
+            moduleNames.add(getModuleName(file));
+        }
+
+        System.out.println("Performing inter module check");
+        PhaseTimer timer = new PhaseTimer(options.imcOutput, options.timings);
+        timer.start("InterModuleChecker");
+        int result = SystemPartChecker.check(options, moduleNames, systemParts);
+        timer.stop();
+
+        if (options.timingsAsJson) {
+            timer.printJson();
+        } else {
+            timer.print();
+        }
+
+        return result;
+    }
+
+    /**
+     * derive the name of the generated file from the name of the source file
+     * in batch mode: foo.prl --> foo.cc
+     */
+    private static String getOutputFilename(String sourceFileName) {
+        int dot = sourceFileName.lastIndexOf('.');
+
+        if (dot > sourceFileName.lastIndexOf('/')) {
+            return sourceFileName.substring(0, dot) + ".cc";
+        }
+
+        return sourceFileName + ".cc";
+    }
+
+    /**
+     * read the source file. The source name of the stream is the file name
+     * as given by the user, even if the file is located relative to the
+     * working directory of a compile server client.
+     */
+    private static CharStream readSource(Options options, String inputFile) throws IOException {
+        byte[] content = Files.readAllBytes(options.resolve(inputFile).toPath());
+        String text;
+
+        if (options.encoding != null) {
+            text = new String(content, options.encoding);
+        } else {
+            text = new String(content, Charset.defaultCharset());
+        }
 
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
+        ANTLRInputStream input = new ANTLRInputStream(text);
+        input.name = inputFile;
 
-            SmallPearlParser parser = new SmallPearlParser(tokens);
+        return input;
+    }
 
+    /**
+     * Parse the token stream with the prediction mode selected by the options.
+     *
+     * By default a two-stage strategy is used: the fast SLL prediction with
+     * a bail-out error strategy is tried first. Only if this fails, the input
+     * is parsed again in full LL mode, which reports the syntax errors. Since
+     * SLL only fails on syntax errors or true ambiguities, both stages
+     * produce the same parse tree for correct input.
+     *
+     * --SLL forces SLL prediction only, --LL forces LL prediction only.
+     */
+    private static ParserRuleContext parse(Options options, CommonTokenStream tokens, SmallPearlParser parser) {
+        if (options.SLL || options.LL) {
             parser.removeErrorListeners();
             parser.addErrorListener(DescriptiveErrorListener.INSTANCE);
 
-            parser.setBuildParseTree(true);
+            if (options.SLL) {
+                parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            } else {
+                parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            }
 
-            ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-            // Start Analysis
-            ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+            return parser.program();
+        }
 
-            System.out.println("Start compiling of:" + inputFiles.get(i).toString());
-            System.out.println("Performing syntax check");
-            ParserRuleContext tree = parser.program();
-            System.out.flush();
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
 
-            if (printAST) {
-                System.out.println("Parse tree:");
-                System.out.println(tree.toStringTree(parser));
+        try {
+            return parser.program();
+        } catch (ParseCancellationException ex) {
+            if (options.verbose > 0) {
+                System.out.println("SLL parsing failed -- retrying with LL");
             }
+        }
 
-            if (dumpDFA) {
-                parser.dumpDFA();
+        tokens.seek(0);
+        parser.reset();
+        parser.addErrorListener(DescriptiveErrorListener.INSTANCE);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+
+        return parser.program();
+    }
+
+    /**
+     * The result of the translation of one module: the template of the
+     * generated C++ code. The parse tree and all side tables are not referenced
+     * any more, so they may be released while the output is written.
+     */
+    private static class Translation {
+        int noOfErrors = 0;
+        ST code = null;
+        Map<String, Object> systemPart = null;
+    }
+
+    /**
+     * Compile one module. All state of the compilation (symbol table,
+     * constant pool, visitors) is local to this call.
+     *
+     * @param options the options of this invocation
+     * @param inputFile name of the source file
+     * @param outputFilename name of the generated file, or null for stdout
+     * @return number of syntax errors, or a negative value if the
+     *         compilation was aborted
+     */
+    private static int compileModule(Options options, String inputFile, String outputFilename, Translation translation) {
+        PhaseTimer timer = new PhaseTimer(inputFile, options.timings);
+        int result = translate(options, inputFile, timer, translation);
+
+        if (result < 0) {
+            return result;
+        }
+
+        try {
+            if (translation.code != null) {
+                CppWrite(options, outputFilename, translation.code, timer);
             }
+        }
+        catch(Exception ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Compilation aborted.");
 
-            try {
-                if (parser.getNumberOfSyntaxErrors() <= 0) {
-                    symbolTableVisitor.visit(tree);
+            if ( options.stacktrace )  {
+                System.err.println( getStackTrace(ex));
+            }
 
-                    if (dumpSymbolTable) {
-                        symbolTableVisitor.symbolTable.dump();
-                    }
+            return -1;
+        }
 
+        System.out.flush();
+        System.out.println("");
+        System.out.println("Number of errors in " + inputFile + " encountered: " + translation.noOfErrors);
 
-                    ExpressionTypeVisitor expressionTypeVisitor = new ExpressionTypeVisitor(verbose, debug, symbolTableVisitor);
-                    expressionTypeVisitor.visit(tree);
+        if (options.timingsAsJson) {
+            timer.printJson();
+        } else {
+            timer.print();
+        }
 
-                    ConstantPoolVisitor constantPoolVisitor = new ConstantPoolVisitor(lexer.getSourceName(),
-                                                                                      verbose,
-                                                                                      debug,
-                                                                                      symbolTableVisitor,
-                                                                                      constantPool,
-                                                                                      expressionTypeVisitor);
-                    constantPoolVisitor.visit(tree);
+        return translation.noOfErrors;
+    }
 
-                    ConstantExpressionEvaluatorVisitor constantExpressionVisitor = new ConstantExpressionEvaluatorVisitor(verbose, debug, symbolTableVisitor, constantPoolVisitor);
-                    constantExpressionVisitor.visit(tree);
+    /**
+     * Run all phases of the translation of one module up to the creation of
+     * the templates of the output files.
+     *
+     * @return 0, or a negative value if the compilation was aborted
+     */
+    private static int translate(Options options, String inputFile, PhaseTimer timer, Translation translation) {
+        OpenPearlLexer lexer = null;
 
-                    FixUpSymbolTableVisitor fixUpSymbolTableVisitor = new FixUpSymbolTableVisitor(verbose,debug,symbolTableVisitor,expressionTypeVisitor,constantPoolVisitor);
-                    fixUpSymbolTableVisitor.visit(tree);
+        ConstantPool constantPool = new ConstantPool();
+        SymbolTableVisitor symbolTableVisitor = new SymbolTableVisitor(options.verbose, constantPool);
 
-                    expressionTypeVisitor.visit(tree);
+        try {
+            lexer = new OpenPearlLexer(readSource(options, inputFile));
+        }
+        catch(IOException ex) {
+            System.out.println("Error:" + ex.getMessage());
+            return -2;
+        }
 
-                    if (dumpConstantPool) {
-                        constantPool.dump();
-                    }
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(DescriptiveErrorListener.INSTANCE);
 
-                    if (!nosemantic) {
-                        SemanticCheck semanticCheck = new SemanticCheck(lexer.getSourceName(), verbose, debug, tree, symbolTableVisitor, expressionTypeVisitor);
-                    }
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
 
-                    if (imc) {
-                        SystemPartExport(lexer.getSourceName(), tree);
-                    }
+        SmallPearlParser parser = new SmallPearlParser(tokens);
 
-                    CppGenerate(lexer.getSourceName(), tree, symbolTableVisitor, expressionTypeVisitor, constantExpressionVisitor);
+        parser.setBuildParseTree(true);
 
-                }
-            }
-            catch(Exception ex) {
-                System.err.println(ex.getMessage());
-                System.err.println("Compilation aborted.");
+        ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+        // Start Analysis
+        ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+        System.out.println("Start compiling of:" + inputFile);
+        System.out.println("Performing syntax check");
+        timer.start("lexer and parser");
+        ParserRuleContext tree = parse(options, tokens, parser);
+        timer.stop();
+        System.out.flush();
+
+        if (options.printAST) {
+            System.out.println("Parse tree:");
+            System.out.println(tree.toStringTree(parser));
+        }
+
+        if (options.dumpDFA) {
+            parser.dumpDFA();
+        }
+
+        translation.noOfErrors = parser.getNumberOfSyntaxErrors();
+
+        try {
+            if (translation.noOfErrors <= 0) {
+                timer.start("SymbolTableVisitor");
+                symbolTableVisitor.visit(tree);
+                timer.stop();
+
+                timer.start("IdentifierResolverVisitor");
+                symbolTableVisitor.resolveIdentifiers(tree);
+                timer.stop();
 
-                if (dumpSymbolTable) {
+                if (options.dumpSymbolTable) {
                     symbolTableVisitor.symbolTable.dump();
                 }
 
-                if (dumpConstantPool) {
+
+                ExpressionTypeVisitor expressionTypeVisitor = new ExpressionTypeVisitor(options.verbose, options.debug, symbolTableVisitor);
+                timer.start("ExpressionTypeVisitor (1st pass)");
+                expressionTypeVisitor.visit(tree);
+                timer.stop();
+
+                ConstantPoolVisitor constantPoolVisitor = new ConstantPoolVisitor(lexer.getSourceName(),
+                                                                                  options.verbose,
+                                                                                  options.debug,
+                                                                                  symbolTableVisitor,
+                                                                                  constantPool,
+                                                                                  expressionTypeVisitor);
+                timer.start("ConstantPoolVisitor");
+                constantPoolVisitor.visit(tree);
+                timer.stop();
+
+                ConstantExpressionEvaluatorVisitor constantExpressionVisitor = new ConstantExpressionEvaluatorVisitor(options.verbose, options.debug, symbolTableVisitor, constantPoolVisitor);
+                timer.start("ConstantExpressionEvaluatorVisitor");
+                constantExpressionVisitor.visit(tree);
+                timer.stop();
+
+                FixUpSymbolTableVisitor fixUpSymbolTableVisitor = new FixUpSymbolTableVisitor(options.verbose,options.debug,symbolTableVisitor,expressionTypeVisitor,constantPoolVisitor);
+                timer.start("FixUpSymbolTableVisitor");
+                fixUpSymbolTableVisitor.visit(tree);
+                timer.stop();
+
+                timer.start("ExpressionTypeVisitor (re-typing)");
+                expressionTypeVisitor.retype(tree, fixUpSymbolTableVisitor.getChangedEntries());
+                timer.stop();
+
+                if (options.verifyRetyping) {
+                    verifyRetyping(options, tree, symbolTableVisitor, expressionTypeVisitor);
+                }
+
+                if (options.dumpConstantPool) {
                     constantPool.dump();
                 }
 
-                if ( stacktrace )  {
-                    System.err.println( getStackTrace(ex));
+                if (!options.nosemantic) {
+                    SemanticCheck semanticCheck = new SemanticCheck(lexer.getSourceName(), options.verbose, options.debug, tree, symbolTableVisitor, expressionTypeVisitor, options.disabledChecks, timer);
                 }
 
-                System.exit(-1);
-            }
+                if (options.imc) {
+                    ST systemPart = SystemPartExport(options, lexer.getSourceName(), tree, timer);
 
-            noOfErrors = parser.getNumberOfSyntaxErrors();
+                    if (options.imcTarget == null || options.imcXml) {
+                        SystemPartWrite(options, lexer.getSourceName(), systemPart, timer);
+                    }
 
-            System.out.flush();
-            System.out.println("");
-            System.out.println("Number of errors in " + inputFiles.get(i) + " encountered: " + noOfErrors);
+                    if (options.imcTarget != null) {
+                        translation.systemPart = SystemPartDescribe(systemPart, timer);
+                    }
+                }
 
-            long difference = System.nanoTime() - startTime;
+                timer.start("ValueRangeVisitor");
+                ValueRangeVisitor valueRangeVisitor = new ValueRangeVisitor(options.verbose, options.debug, symbolTableVisitor, expressionTypeVisitor);
+                valueRangeVisitor.visit(tree);
+                timer.stop();
 
-            System.out.println("Total execution time: " +
-                    String.format("%d.%d sec",
-                            TimeUnit.NANOSECONDS.toSeconds(difference),
-                            TimeUnit.NANOSECONDS.toMillis(difference) - TimeUnit.NANOSECONDS.toSeconds(difference) * 1000));
+                timer.start("ConstantFoldingVisitor");
+                ConstantFoldingVisitor constantFoldingVisitor = new ConstantFoldingVisitor(options.verbose, options.debug, symbolTableVisitor, valueRangeVisitor, constantPool);
+                constantFoldingVisitor.visit(tree);
+                timer.stop();
+
+                translation.code = CppGenerate(options, lexer.getSourceName(), tree, symbolTableVisitor, expressionTypeVisitor, valueRangeVisitor, constantFoldingVisitor, constantExpressionVisitor, constantPool, timer);
 
-            if ( noOfErrors == 0 ) {
-                System.exit(0);
-            } else {
-                System.exit(1);
             }
         }
+        catch(Exception ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Compilation aborted.");
+
+            if (options.dumpSymbolTable) {
+                symbolTableVisitor.symbolTable.dump();
+            }
+
+            if (options.dumpConstantPool) {
+                constantPool.dump();
+            }
+
+            if ( options.stacktrace )  {
+                System.err.println( getStackTrace(ex));
+            }
+
+            return -1;
+        }
+
+        return 0;
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -221,6 +553,11 @@ public class Compiler {
                 "  --quiet                     Be quiet                              \n" +
                 "  --trace                                                           \n" +
                 "  --nosemantic                Disable semantic checker              \n" +
+                "  --disableCheck <name>       Disable the semantic check <name>,    \n" +
+                "                              e.g. CheckAssignment                  \n" +
+                "  --SLL                       Parse with SLL prediction only        \n" +
+                "  --LL                        Parse with LL prediction only         \n" +
+                "                              (default: SLL, LL if SLL fails)       \n" +
                 "  --printAST                  Print Abtract Syntax Tree             \n" +
                 "  --dumpDFA                   Print DFA                             \n" +
                 "  --dumpSymbolTable           Print the SymbolTable                 \n" +
@@ -228,63 +565,128 @@ public class Compiler {
                 "  --debug                     Generate debug information            \n" +
                 "  --stacktrace                Print stacktrace in case of an        \n" +
                 "                              exception                             \n" +
+                "  --verifyRetyping            Type all expressions again and        \n" +
+                "                              compare with the targeted re-typing   \n" +
                 "  --warninglevel <m_level>      Set the warning m_level                 \n" +
                 "                              Level   0: no warning                 \n" +
                 "                              Level 255: all warnings (default)     \n" +
                 " --imc                        Enable Inter Module Checker           \n" +
                 "                              file                                  \n" +
+                "  --imcTarget <platform>      Run the Inter Module Checker for all  \n" +
+                "                              input files in this process           \n" +
+                "  --imcOutput <filename>      System part created by --imcTarget    \n" +
+                "                              (default: system.cc)                  \n" +
+                "  --imcXml                    Write the Inter Module Checker files  \n" +
+                "                              also with --imcTarget                 \n" +
                 "  --output <filename>         Filename of the generated code        \n" +
+                "                              (only with one input file)            \n" +
+                "  --jobs <n>                  Number of modules compiled in parallel\n" +
+                "                              (default: number of processors)       \n" +
+                "  --timings[=json]            Print wall time, cpu time and         \n" +
+                "                              allocated bytes of each phase         \n" +
+                "  --server                    Run as resident compile server        \n" +
+                "  --stop-server               Terminate a running compile server    \n" +
                 "  infile ...                                                        \n");
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-    public static boolean checkAndProcessArguments(String[] args) {
+    public static boolean checkAndProcessArguments(String[] args, Options options) {
         int i = 0;
 
         while (i < args.length) {
             String arg = args[i];
             i++;
             if (arg.charAt(0) != '-') { // input file name
-                inputFiles.add(arg);
+                options.inputFiles.add(arg);
                 continue;
             }
 
             if (arg.equals("--help")) {
                 printHelp();
-                System.exit(0);
+                return false;
             } else if (arg.equals("--printAST")) {
-                printAST = true;
+                options.printAST = true;
             } else if (arg.equals("--tokens")) {
-                showTokens = true;
+                options.showTokens = true;
             } else if (arg.equals("--trace")) {
-                trace = true;
+                options.trace = true;
             } else if (arg.equals("--SLL")) {
-                SLL = true;
+                options.SLL = true;
+                options.LL = false;
+            } else if (arg.equals("--LL")) {
+                options.LL = true;
+                options.SLL = false;
             } else if (arg.equals("--nosemantic")) {
-                nosemantic = true;
+                options.nosemantic = true;
             } else if (arg.equals("--diagnostics")) {
-                diagnostics = true;
+                options.diagnostics = true;
             } else if (arg.equals("--dumpDFA")) {
-                dumpDFA = true;
+                options.dumpDFA = true;
             } else if (arg.equals("--dumpSymbolTable")) {
-                dumpSymbolTable = true;
+                options.dumpSymbolTable = true;
             } else if (arg.equals("--dumpConstantPool")) {
-                dumpConstantPool = true;
+                options.dumpConstantPool = true;
             } else if (arg.equals("--debug")) {
-                debug = true;
+                options.debug = true;
+            } else if (arg.equals("--verifyRetyping")) {
+                options.verifyRetyping = true;
             } else if (arg.equals("--debugSTG")) {
-                debugSTG = true;
+                options.debugSTG = true;
             } else if (arg.equals("--stacktrace")) {
-                stacktrace = true;
+                options.stacktrace = true;
             } else if (arg.equals("--imc")) {
-                imc = true;
+                options.imc = true;
+            } else if (arg.equals("--imcXml")) {
+                options.imcXml = true;
+            } else if (arg.equals("--imcTarget")) {
+                if (i >= args.length) {
+                    System.err.println("missing platform on --imcTarget");
+                    return false;
+                }
+                options.imc = true;
+                options.imcTarget = args[i];
+                i++;
+                continue;
+            } else if (arg.equals("--imcOutput")) {
+                if (i >= args.length) {
+                    System.err.println("missing filename on --imcOutput");
+                    return false;
+                }
+                options.imcOutput = args[i];
+                i++;
+                continue;
+            } else if (arg.equals("--timings")) {
+                options.timings = true;
+            } else if (arg.equals("--timings=json")) {
+                options.timings = true;
+                options.timingsAsJson = true;
+            } else if (arg.equals("--server")) {
+                options.server = true;
+            } else if (arg.equals("--stop-server")) {
+                options.stopServer = true;
             } else if (arg.equals("--output")) {
                 if (i >= args.length) {
                     System.err.println("missing filename on --output");
                     return false;
                 }
-                outputFilename = args[i];
+                options.outputFilename = args[i];
+                i++;
+                continue;
+            } else if (arg.equals("--disableCheck")) {
+                if (i >= args.length) {
+                    System.err.println("missing name on --disableCheck");
+                    return false;
+                }
+                options.disabledChecks.add(args[i]);
+                i++;
+                continue;
+            } else if (arg.equals("--jobs")) {
+                if (i >= args.length) {
+                    System.err.println("missing number on --jobs");
+                    return false;
+                }
+                options.jobs = Integer.parseInt(args[i]);
                 i++;
                 continue;
             } else if (arg.equals("-encoding")) {
@@ -292,14 +694,14 @@ public class Compiler {
                     System.err.println("missing encoding on -encoding");
                     return false;
                 }
-                encoding = args[i];
+                options.encoding = args[i];
                 i++;
             } else if (arg.equals("--ps")) {
                 if (i >= args.length) {
                     System.err.println("missing filename on --ps");
                     return false;
                 }
-                psFile = args[i];
+                options.psFile = args[i];
                 i++;
             } else if (arg.equals("--version")) {
                     System.out.println("OpenPEARL compiler version "+version);
@@ -309,7 +711,7 @@ public class Compiler {
                     System.err.println("missing warning m_level on --warninglevel");
                     return false;
                 }
-                warninglevel = Integer.parseInt(args[i]);
+                options.warninglevel = Integer.parseInt(args[i]);
                 i++;
             } else {
                 System.out.println("Unknown command line argument:" + arg);
@@ -320,23 +722,58 @@ public class Compiler {
         return true;
     }
 
-    private static Void CppGenerate(String sourceFileName,
-                                    ParserRuleContext tree,
-                                    SymbolTableVisitor symbolTableVisitor,
-                                    ExpressionTypeVisitor expressionTypeVisitor,
-                                    ConstantExpressionEvaluatorVisitor constantExpressionEvaluatorVisitor) {
+    /**
+     * Type the whole module with a new ExpressionTypeVisitor and compare
+     * the result with the targeted re-typing after FixUpSymbolTableVisitor
+     */
+    private static void verifyRetyping(Options options,
+                                       ParserRuleContext tree,
+                                       SymbolTableVisitor symbolTableVisitor,
+                                       ExpressionTypeVisitor expressionTypeVisitor) {
+        ExpressionTypeVisitor fullTyping = new ExpressionTypeVisitor(options.verbose, options.debug, symbolTableVisitor);
+        fullTyping.visit(tree);
+
+        List<ParserRuleContext> differences = expressionTypeVisitor.compare(tree, fullTyping);
+
+        for (ParserRuleContext ctx : differences) {
+            System.out.println("Re-typing differs at line " + ctx.start.getLine() + ": " + ctx.getText());
+            System.out.println("  targeted: " + expressionTypeVisitor.lookup(ctx));
+            System.out.println("  full:     " + fullTyping.lookup(ctx));
+        }
 
+        if (!differences.isEmpty()) {
+            ParserRuleContext ctx = differences.get(0);
+            throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
+        }
+    }
+
+    private static ST CppGenerate(Options options,
+                                  String sourceFileName,
+                                  ParserRuleContext tree,
+                                  SymbolTableVisitor symbolTableVisitor,
+                                  ExpressionTypeVisitor expressionTypeVisitor,
+                                  ValueRangeVisitor valueRangeVisitor,
+                                  ConstantFoldingVisitor constantFoldingVisitor,
+                                  ConstantExpressionEvaluatorVisitor constantExpressionEvaluatorVisitor,
+                                  ConstantPool constantPool,
+                                  PhaseTimer timer) {
+
+        timer.start("CppCodeGeneratorVisitor");
         CppCodeGeneratorVisitor cppCodeGenerator = new CppCodeGeneratorVisitor( sourceFileName,
                                                                                 groupFile,
-                                                                                verbose,
-                                                                                debug,
+                                                                                options.verbose,
+                                                                                options.debug,
                                                                                 symbolTableVisitor,
                                                                                 expressionTypeVisitor,
-                                                                                constantExpressionEvaluatorVisitor);
+                                                                                valueRangeVisitor,
+                                                                                constantFoldingVisitor,
+                                                                                constantExpressionEvaluatorVisitor,
+                                                                                constantPool);
 
         ST code = cppCodeGenerator.visit(tree);
+        timer.stop();
 
-        if ( debugSTG ) {
+        if ( options.debugSTG ) {
             System.out.println( "Press a key to continue" );
             code.inspect();
             try {
@@ -346,40 +783,52 @@ public class Compiler {
             }
         }
 
+        return code;
+    }
+
+    private static Void CppWrite(Options options, String outputFilename, ST code, PhaseTimer timer) {
+        timer.start("render C++ code");
+
         if (outputFilename != null) {
             try {
                 if ( outputFilename.lastIndexOf(".") == - 1 ) {
                     outputFilename += ".cc";
                 }
 
-                if (verbose>0) {
+                if (options.verbose>0) {
                     System.out.println("Generating output file "+outputFilename);
                 }
 
-                PrintWriter writer = new PrintWriter(outputFilename, "UTF-8");
-                writer.println(code.render(lineWidth));
-                writer.close();
+                writeTemplate(options.resolve(outputFilename), code, options.lineWidth);
             } catch (IOException e) {
                 System.err.println("Problem writing to the file " + outputFilename);
             }
         } else {
-            if(verbose>0) {
+            if(options.verbose>0) {
                 System.out.println("Generated output:");
             }
 
-            System.out.println(code.render(lineWidth));
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(System.out));
+                writeTemplate(writer, code, options.lineWidth);
+                writer.flush();
+            } catch (IOException e) {
+                System.err.println("Problem writing the generated code");
+            }
         }
 
+        timer.stop();
+
         return null;
     }
 
-    private static Void SystemPartExport(String sourceFileName, ParserRuleContext tree) {
-        String outputFileName = sourceFileName;
-
-        SystemPartExporter  systemPartExporter = new SystemPartExporter(sourceFileName,verbose, debug);
+    private static ST SystemPartExport(Options options, String sourceFileName, ParserRuleContext tree, PhaseTimer timer) {
+        timer.start("SystemPartExporter");
+        SystemPartExporter  systemPartExporter = new SystemPartExporter(sourceFileName,options.verbose, options.debug);
         ST systemPart = systemPartExporter.visit(tree);
+        timer.stop();
 
-        if ( debugSTG ) {
+        if ( options.debugSTG ) {
             System.out.println( "Press a key to continue" );
             systemPart.inspect();
             try {
@@ -389,26 +838,79 @@ public class Compiler {
             }
         }
 
+        return systemPart;
+    }
+
+    private static Void SystemPartWrite(Options options, String sourceFileName, ST systemPart, PhaseTimer timer) {
+        String outputFileName = getModuleName(sourceFileName).concat(".xml");
 
-        outputFileName = outputFileName.substring(0, outputFileName.lastIndexOf('.'));
-        outputFileName = outputFileName.concat(".xml");
+        timer.start("render IMC file");
 
         try {
 
-            if (verbose>0) {
+            if (options.verbose>0) {
                 System.out.println("Generating IMC file "+outputFileName);
             }
 
-            PrintWriter writer = new PrintWriter(outputFileName, "UTF-8");
-            writer.println(systemPart.render(lineWidth));
-            writer.close();
+            writeTemplate(options.resolve(outputFileName), systemPart, options.lineWidth);
         } catch (IOException e) {
             System.err.println("Problem writing to the IMC file " + outputFileName);
         }
 
+        timer.stop();
+
         return null;
     }
 
+    /**
+     * Describe the system part for the inter module check in this process
+     * (--imcTarget).
+     */
+    private static Map<String, Object> SystemPartDescribe(ST systemPart, PhaseTimer timer) {
+        timer.start("describe IMC definition");
+        Map<String, Object> definition = SystemPartChecker.describe(systemPart);
+        timer.stop();
+
+        return definition;
+    }
+
+    /**
+     * the name of the module is the name of the source file without
+     * extension: foo.prl --> foo
+     */
+    private static String getModuleName(String sourceFileName) {
+        int dot = sourceFileName.lastIndexOf('.');
+
+        if (dot > sourceFileName.lastIndexOf('/')) {
+            return sourceFileName.substring(0, dot);
+        }
+
+        return sourceFileName;
+    }
+
+    /**
+     * Render the template directly into the file. The text is streamed
+     * through a buffered writer instead of being rendered into one String
+     * first, which keeps the peak memory independent of the size of the
+     * generated file.
+     */
+    private static void writeTemplate(File file, ST template, int lineWidth) throws IOException {
+        Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+
+        try {
+            writeTemplate(writer, template, lineWidth);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void writeTemplate(Writer writer, ST template, int lineWidth) throws IOException {
+        STWriter stWriter = new AutoIndentWriter(writer);
+        stWriter.setLineWidth(lineWidth);
+        template.write(stWriter);
+        writer.write(System.lineSeparator());
+    }
+
     static String getStackTrace(Throwable t) {
         StringWriter sw = new StringWriter();
         PrintWriter pw = new PrintWriter(sw, true);
@@ -418,4 +920,3 @@ public class Compiler {
         return sw.toString();
     }
 }
-
@@ -57,6 +57,7 @@ public class ConstantBitValue extends ConstantValue {
 */
 
     public void setNo(int no) { m_no = no; }
+    public int getNo() { return m_no; }
 
     public int getLength() { return m_noOfBits; }
 
@@ -46,6 +46,17 @@ public class ConstantClockValue extends ConstantValue {
         m_seconds = seconds;
     }
 
+    public int getHours() {
+        return m_hours;
+    }
+
+    public int getMinutes() {
+        return m_minutes;
+    }
+
+    public double getSeconds() {
+        return m_seconds;
+    }
 
     public double getValue() {
         return m_hours * 3600 + m_minutes * 60 + m_seconds;
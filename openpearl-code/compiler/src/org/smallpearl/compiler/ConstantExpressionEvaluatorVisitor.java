@@ -42,7 +42,6 @@ public  class ConstantExpressionEvaluatorVisitor extends SmallPearlBaseVisitor<V
     private String m_sourceFileName;
     private SymbolTableVisitor m_symbolTableVisitor;
     private SymbolTable m_symboltable;
-    private SymbolTable m_currentSymbolTable;
     private ModuleEntry m_module;
     private int m_value;
     private int m_accumulator;
@@ -59,7 +58,6 @@ public  class ConstantExpressionEvaluatorVisitor extends SmallPearlBaseVisitor<V
         m_verbose = verbose;
         m_symbolTableVisitor = symbolTableVisitor;
         m_symboltable = symbolTableVisitor.symbolTable;
-        m_currentSymbolTable = m_symboltable;
         m_constantPoolVisitor = constantPoolVisitor;
         m_properties = new ParseTreeProperty<ConstantValue>();
     }
@@ -75,7 +73,7 @@ public  class ConstantExpressionEvaluatorVisitor extends SmallPearlBaseVisitor<V
         }
 
         if ( ctx.constantFixedExpression() != null ) {
-            ConstantFixedExpressionEvaluator evaluator = new ConstantFixedExpressionEvaluator(m_verbose, m_debug, m_currentSymbolTable, this, m_constantPoolVisitor);
+            ConstantFixedExpressionEvaluator evaluator = new ConstantFixedExpressionEvaluator(m_verbose, m_debug, m_symbolTableVisitor.getEnclosingSymbolTable(ctx), m_symbolTableVisitor, this, m_constantPoolVisitor);
             ConstantFixedValue result = evaluator.visit(ctx.constantFixedExpression());
             m_properties.put(ctx, result);
             m_constantPoolVisitor.add(result);
@@ -97,7 +95,7 @@ public  class ConstantExpressionEvaluatorVisitor extends SmallPearlBaseVisitor<V
             System.out.println("ConstantExpressionEvaluatorVisitor: visitFixedConstantExpression");
         }
 
-        ConstantFixedExpressionEvaluator evaluator = new ConstantFixedExpressionEvaluator(m_verbose, m_debug, m_currentSymbolTable, this,m_constantPoolVisitor);
+        ConstantFixedExpressionEvaluator evaluator = new ConstantFixedExpressionEvaluator(m_verbose, m_debug, m_symbolTableVisitor.getEnclosingSymbolTable(ctx), m_symbolTableVisitor, this, m_constantPoolVisitor);
         ConstantFixedValue result = evaluator.visit(ctx);
         m_properties.put(ctx, result);
         m_constantPoolVisitor.add(result);
@@ -127,7 +125,7 @@ public  class ConstantExpressionEvaluatorVisitor extends SmallPearlBaseVisitor<V
 
         if ( ctx.fixedConstant() != null) {
             int curval = sign * Integer.parseInt(ctx.fixedConstant().IntegerConstant().toString());
-            int curlen =   m_currentSymbolTable.lookupDefaultFixedLength();
+            int curlen =   m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFixedLength();
 
             if ( ctx.fixedConstant().fixedNumberPrecision() != null ) {
                 curlen = Integer.parseInt(ctx.fixedConstant().fixedNumberPrecision().IntegerConstant().toString());
@@ -139,45 +137,4 @@ public  class ConstantExpressionEvaluatorVisitor extends SmallPearlBaseVisitor<V
 
         return null;
     }
-
-        @Override
-    public Void visitModule(SmallPearlParser.ModuleContext ctx) {
-        org.smallpearl.compiler.SymbolTable.SymbolTableEntry symbolTableEntry = m_currentSymbolTable.lookupLocal(ctx.ID().getText());
-        m_currentSymbolTable = ((ModuleEntry)symbolTableEntry).scope;
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitProcedureDeclaration(SmallPearlParser.ProcedureDeclarationContext ctx) {
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitTaskDeclaration(SmallPearlParser.TaskDeclarationContext ctx) {
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitBlock_statement(SmallPearlParser.Block_statementContext ctx) {
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitLoopStatement(SmallPearlParser.LoopStatementContext ctx) {
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
 }
@@ -41,18 +41,21 @@ public  class ConstantFixedExpressionEvaluator extends SmallPearlBaseVisitor<Con
     private boolean m_debug;
     private String m_sourceFileName;
     private SymbolTable m_currentSymbolTable;
+    private SymbolTableVisitor m_symbolTableVisitor;
     private ConstantExpressionEvaluatorVisitor  m_constantExpressionEvaluatorVisitor;
     private ConstantPoolVisitor m_constantPoolVisitor;
 
     public ConstantFixedExpressionEvaluator(int verbose,
                                             boolean debug,
                                             SymbolTable symbolTable,
+                                            SymbolTableVisitor symbolTableVisitor,
                                             ConstantExpressionEvaluatorVisitor constantExpressionEvaluatorVisitor,
                                             ConstantPoolVisitor constantPoolVisitor) {
 
         m_debug = debug;
         m_verbose = verbose;
         m_currentSymbolTable = symbolTable;
+        m_symbolTableVisitor = symbolTableVisitor;
         m_constantExpressionEvaluatorVisitor = constantExpressionEvaluatorVisitor;
         m_constantPoolVisitor = constantPoolVisitor;
 
@@ -180,7 +183,16 @@ public  class ConstantFixedExpressionEvaluator extends SmallPearlBaseVisitor<Con
             value = new ConstantFixedValue(curval,curlen);
         }
         else if ( ctx.ID() != null ) {
-            SymbolTableEntry entry = m_currentSymbolTable.lookup(ctx.ID().toString());
+            SymbolTableEntry entry;
+
+            if ( m_symbolTableVisitor != null ) {
+                entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.ID());
+            }
+            else {
+                // called while the symbol table is built: the identifiers
+                // are not resolved yet, thus look up the name in the scope
+                entry = m_currentSymbolTable.lookup(ctx.ID().toString());
+            }
 
             if ( entry == null ) {
                 throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -0,0 +1,769 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2017 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTreeProperty;
+import org.smallpearl.compiler.SymbolTable.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Constant folding of the expressions of the problem part
+ *
+ * Operations on literals and constants (INV FIXED with initializer) are
+ * evaluated at compile time for FIXED, FLOAT, BIT, CHAR, DURATION and CLOCK.
+ * The evaluation follows the operators of the runtime system: the result
+ * has the type of the runtime operation and the value, which the runtime
+ * would calculate. An operation, which would raise a signal at runtime
+ * (e.g. FIXEDRANGE or FIXEDDIVIDEBYZERO), is not folded. It is left to the
+ * runtime to raise the signal.
+ *
+ * The outermost folded expressions are entered into the constant pool.
+ * The code generator emits the pool entry instead of the operation.
+ * Expressions, which the code generator emits without the constant pool
+ * (case indices and loop boundaries), are not folded.
+ */
+public class ConstantFoldingVisitor extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
+
+    private static final long MICROSECONDS_PER_DAY = 24L * 60 * 60 * 1000000;
+
+    private int m_verbose;
+    private boolean m_debug;
+    private SymbolTableVisitor m_symbolTableVisitor;
+    private ValueRangeVisitor m_valueRangeVisitor;
+    private ConstantPool m_constantPool;
+    private ParseTreeProperty<ConstantValue> m_values;
+    private ParseTreeProperty<ConstantValue> m_folded;
+    private List<ParserRuleContext> m_operations;
+    private Set<ParserRuleContext> m_foldedOperations;
+    private boolean m_foldingEnabled;
+
+    public ConstantFoldingVisitor(int verbose,
+                                  boolean debug,
+                                  SymbolTableVisitor symbolTableVisitor,
+                                  ValueRangeVisitor valueRangeVisitor,
+                                  ConstantPool constantPool) {
+
+        m_debug = debug;
+        m_verbose = verbose;
+        m_symbolTableVisitor = symbolTableVisitor;
+        m_valueRangeVisitor = valueRangeVisitor;
+        m_constantPool = constantPool;
+        m_values = new ParseTreeProperty<ConstantValue>();
+        m_folded = new ParseTreeProperty<ConstantValue>();
+        m_operations = new ArrayList<ParserRuleContext>();
+        m_foldedOperations = new HashSet<ParserRuleContext>();
+        m_foldingEnabled = true;
+
+        if (m_verbose > 0) {
+            System.out.println("Constant folding: Evaluating constant expressions");
+        }
+    }
+
+    /**
+     * get the constant pool entry of a folded expression
+     *
+     * @param ctx the expression
+     * @return the pool entry; null if the expression is not folded or is
+     *         part of an enclosing folded expression
+     */
+    public ConstantValue lookup(ParserRuleContext ctx) {
+        return m_folded.get(ctx);
+    }
+
+    @Override
+    public Void visitModule(SmallPearlParser.ModuleContext ctx) {
+        visitChildren(ctx);
+
+        // only the outermost operation of a folded expression is needed
+        for (ParserRuleContext operation : m_operations) {
+            if (isOutermost(operation)) {
+                ConstantValue value = m_values.get(operation);
+                m_constantPool.add(value);
+                m_folded.put(operation, m_constantPool.lookup(value));
+
+                if (m_debug) {
+                    System.out.println("ConstantFoldingVisitor: " + operation.getText() + " -> " + m_folded.get(operation));
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitLoopStatement_from(SmallPearlParser.LoopStatement_fromContext ctx) {
+        return visitWithoutFolding(ctx);
+    }
+
+    @Override
+    public Void visitLoopStatement_to(SmallPearlParser.LoopStatement_toContext ctx) {
+        return visitWithoutFolding(ctx);
+    }
+
+    @Override
+    public Void visitLoopStatement_by(SmallPearlParser.LoopStatement_byContext ctx) {
+        return visitWithoutFolding(ctx);
+    }
+
+    @Override
+    public Void visitIndex_section(SmallPearlParser.Index_sectionContext ctx) {
+        return visitWithoutFolding(ctx);
+    }
+
+    private Void visitWithoutFolding(ParserRuleContext ctx) {
+        boolean foldingEnabled = m_foldingEnabled;
+        m_foldingEnabled = false;
+        visitChildren(ctx);
+        m_foldingEnabled = foldingEnabled;
+        return null;
+    }
+
+    @Override
+    public Void visitBaseExpression(SmallPearlParser.BaseExpressionContext ctx) {
+        visitChildren(ctx);
+
+        if (ctx.primaryExpression() != null) {
+            putValue(ctx, m_values.get(ctx.primaryExpression()));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitPrimaryExpression(SmallPearlParser.PrimaryExpressionContext ctx) {
+        visitChildren(ctx);
+
+        if (ctx.literal() != null) {
+            putValue(ctx, getLiteralValue(ctx, ctx.literal()));
+        } else if (ctx.ID() != null && ctx.expression().isEmpty()) {
+            SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.ID());
+
+            if (entry instanceof VariableEntry) {
+                VariableEntry variable = (VariableEntry) entry;
+                Integer precision = m_valueRangeVisitor.getPrecision(ctx);
+
+                if (variable.getAssigmentProtection() && variable.getType() instanceof TypeFixed &&
+                    variable.getInitializer() != null &&
+                    variable.getInitializer().getConstant() instanceof ConstantFixedValue &&
+                    precision != null) {
+                    long value = ((ConstantFixedValue) variable.getInitializer().getConstant()).getValue();
+                    putValue(ctx, getFixedValue(value, precision));
+                }
+            }
+        } else if (ctx.ID() == null && ctx.expression().size() == 1) {
+            putValue(ctx, m_values.get(ctx.expression(0)));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitUnarySubtractiveExpression(SmallPearlParser.UnarySubtractiveExpressionContext ctx) {
+        visitChildren(ctx);
+
+        SmallPearlParser.LiteralContext literal = getLiteral(ctx.expression());
+
+        // the code generator emits a negative literal as constant of its own
+        if (literal != null) {
+            if (literal.fixedConstant() != null) {
+                Integer precision = m_valueRangeVisitor.getPrecision(ctx);
+
+                if (precision != null) {
+                    try {
+                        long value = Integer.parseInt(literal.fixedConstant().IntegerConstant().getText());
+                        putValue(ctx, getFixedValue(-value, precision));
+                    } catch (NumberFormatException ex) {
+                        // left to the code generator
+                    }
+                }
+            } else if (literal.floatingPointConstant() != null) {
+                double value = Double.parseDouble(literal.floatingPointConstant().FloatingPointNumberWithoutPrecision().getText());
+                putValue(ctx, getFloatValue(-value, m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFloatLength()));
+            }
+
+            return null;
+        }
+
+        ConstantValue op = m_values.get(ctx.expression());
+
+        if (op instanceof ConstantFixedValue) {
+            ConstantFixedValue v = (ConstantFixedValue) op;
+            putOperation(ctx, getFixedResult(new ValueRange(v.getValue(), v.getValue()).negate(), v.getPrecision()));
+        } else if (op instanceof ConstantFloatValue) {
+            ConstantFloatValue v = (ConstantFloatValue) op;
+            putOperation(ctx, getFloatValue(-v.getValue(), v.getPrecision()));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitAdditiveExpression(SmallPearlParser.AdditiveExpressionContext ctx) {
+        visitChildren(ctx);
+
+        ConstantValue op1 = m_values.get(ctx.expression(0));
+        ConstantValue op2 = m_values.get(ctx.expression(1));
+
+        if (op1 instanceof ConstantFixedValue && op2 instanceof ConstantFixedValue) {
+            putOperation(ctx, getFixedResult(getRange(op1).add(getRange(op2)), getPrecision(op1, op2)));
+        } else if (op1 instanceof ConstantFloatValue && op2 instanceof ConstantFloatValue) {
+            double v1 = ((ConstantFloatValue) op1).getValue();
+            double v2 = ((ConstantFloatValue) op2).getValue();
+            int precision = getPrecision(op1, op2);
+
+            if (precision == 24) {
+                putOperation(ctx, getFloatResult((float) v1 + (float) v2, precision));
+            } else {
+                putOperation(ctx, getFloatResult(v1 + v2, precision));
+            }
+        } else if (op1 instanceof ConstantDurationValue && op2 instanceof ConstantDurationValue) {
+            Long us1 = getDurationMicroseconds(((ConstantDurationValue) op1).getValue());
+            Long us2 = getDurationMicroseconds(((ConstantDurationValue) op2).getValue());
+
+            if (us1 != null && us2 != null) {
+                putOperation(ctx, getDurationResult(addExact(us1, us2)));
+            }
+        } else if (op1 instanceof ConstantClockValue && op2 instanceof ConstantDurationValue) {
+            long us1 = getClockMicroseconds(((ConstantClockValue) op1).getValue());
+            Long us2 = getDurationMicroseconds(((ConstantDurationValue) op2).getValue());
+
+            if (us2 != null) {
+                putOperation(ctx, getClockResult(us1 + us2));
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitSubtractiveExpression(SmallPearlParser.SubtractiveExpressionContext ctx) {
+        visitChildren(ctx);
+
+        ConstantValue op1 = m_values.get(ctx.expression(0));
+        ConstantValue op2 = m_values.get(ctx.expression(1));
+
+        if (op1 instanceof ConstantFixedValue && op2 instanceof ConstantFixedValue) {
+            putOperation(ctx, getFixedResult(getRange(op1).subtract(getRange(op2)), getPrecision(op1, op2)));
+        } else if (op1 instanceof ConstantFloatValue && op2 instanceof ConstantFloatValue) {
+            double v1 = ((ConstantFloatValue) op1).getValue();
+            double v2 = ((ConstantFloatValue) op2).getValue();
+            int precision = getPrecision(op1, op2);
+
+            if (precision == 24) {
+                putOperation(ctx, getFloatResult((float) v1 - (float) v2, precision));
+            } else {
+                putOperation(ctx, getFloatResult(v1 - v2, precision));
+            }
+        } else if (op1 instanceof ConstantDurationValue && op2 instanceof ConstantDurationValue) {
+            Long us1 = getDurationMicroseconds(((ConstantDurationValue) op1).getValue());
+            Long us2 = getDurationMicroseconds(((ConstantDurationValue) op2).getValue());
+
+            if (us1 != null && us2 != null) {
+                putOperation(ctx, getDurationResult(subtractExact(us1, us2)));
+            }
+        } else if (op1 instanceof ConstantClockValue && op2 instanceof ConstantDurationValue) {
+            long us1 = getClockMicroseconds(((ConstantClockValue) op1).getValue());
+            Long us2 = getDurationMicroseconds(((ConstantDurationValue) op2).getValue());
+
+            if (us2 != null) {
+                putOperation(ctx, getClockResult(us1 - us2));
+            }
+        } else if (op1 instanceof ConstantClockValue && op2 instanceof ConstantClockValue) {
+            // the runtime converts the difference to seconds and back
+            long us1 = getClockMicroseconds(((ConstantClockValue) op1).getValue());
+            long us2 = getClockMicroseconds(((ConstantClockValue) op2).getValue());
+
+            putOperation(ctx, getDurationResult(getDurationMicroseconds((us1 - us2) / 1e6)));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitMultiplicativeExpression(SmallPearlParser.MultiplicativeExpressionContext ctx) {
+        visitChildren(ctx);
+
+        ConstantValue op1 = m_values.get(ctx.expression(0));
+        ConstantValue op2 = m_values.get(ctx.expression(1));
+
+        if (op1 instanceof ConstantFixedValue && op2 instanceof ConstantFixedValue) {
+            putOperation(ctx, getFixedResult(getRange(op1).multiply(getRange(op2)), getPrecision(op1, op2)));
+        } else if (op1 instanceof ConstantFloatValue && op2 instanceof ConstantFloatValue) {
+            double v1 = ((ConstantFloatValue) op1).getValue();
+            double v2 = ((ConstantFloatValue) op2).getValue();
+            int precision = getPrecision(op1, op2);
+
+            if (precision == 24) {
+                putOperation(ctx, getFloatResult((float) v1 * (float) v2, precision));
+            } else {
+                putOperation(ctx, getFloatResult(v1 * v2, precision));
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitDivideExpression(SmallPearlParser.DivideExpressionContext ctx) {
+        visitChildren(ctx);
+
+        ConstantValue op1 = m_values.get(ctx.expression(0));
+        ConstantValue op2 = m_values.get(ctx.expression(1));
+
+        if (op1 instanceof ConstantFloatValue && op2 instanceof ConstantFloatValue) {
+            double v1 = ((ConstantFloatValue) op1).getValue();
+            double v2 = ((ConstantFloatValue) op2).getValue();
+            int precision = getPrecision(op1, op2);
+
+            if (precision == 24) {
+                putOperation(ctx, getFloatResult((float) v1 / (float) v2, precision));
+            } else {
+                putOperation(ctx, getFloatResult(v1 / v2, precision));
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitDivideIntegerExpression(SmallPearlParser.DivideIntegerExpressionContext ctx) {
+        visitChildren(ctx);
+
+        ConstantValue op1 = m_values.get(ctx.expression(0));
+        ConstantValue op2 = m_values.get(ctx.expression(1));
+
+        if (op1 instanceof ConstantFixedValue && op2 instanceof ConstantFixedValue &&
+            ((ConstantFixedValue) op2).getValue() != 0) {
+            long v1 = ((ConstantFixedValue) op1).getValue();
+            long v2 = ((ConstantFixedValue) op2).getValue();
+
+            // the quotient of MIN / -1 exceeds the range of each precision
+            if (!(v1 == Long.MIN_VALUE && v2 == -1)) {
+                putOperation(ctx, getFixedValue(v1 / v2, getPrecision(op1, op2)));
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitRemainderExpression(SmallPearlParser.RemainderExpressionContext ctx) {
+        visitChildren(ctx);
+
+        ConstantValue op1 = m_values.get(ctx.expression(0));
+        ConstantValue op2 = m_values.get(ctx.expression(1));
+
+        if (op1 instanceof ConstantFixedValue && op2 instanceof ConstantFixedValue &&
+            ((ConstantFixedValue) op2).getValue() != 0) {
+            long v1 = ((ConstantFixedValue) op1).getValue();
+            long v2 = ((ConstantFixedValue) op2).getValue();
+            putOperation(ctx, getFixedValue(v1 % v2, getPrecision(op1, op2)));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitNotExpression(SmallPearlParser.NotExpressionContext ctx) {
+        visitChildren(ctx);
+
+        ConstantValue op = m_values.get(ctx.expression());
+
+        if (op instanceof ConstantBitValue) {
+            ConstantBitValue v = (ConstantBitValue) op;
+            putOperation(ctx, getBitValue(~v.getLongValue() & getBitMask(v.getLength()), v.getLength()));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitAndExpression(SmallPearlParser.AndExpressionContext ctx) {
+        visitChildren(ctx);
+
+        ConstantValue op1 = m_values.get(ctx.expression(0));
+        ConstantValue op2 = m_values.get(ctx.expression(1));
+
+        if (op1 instanceof ConstantBitValue && op2 instanceof ConstantBitValue) {
+            int length = getLength(op1, op2);
+            putOperation(ctx, getBitValue(getAligned(op1, length) & getAligned(op2, length), length));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitOrExpression(SmallPearlParser.OrExpressionContext ctx) {
+        visitChildren(ctx);
+
+        ConstantValue op1 = m_values.get(ctx.expression(0));
+        ConstantValue op2 = m_values.get(ctx.expression(1));
+
+        if (op1 instanceof ConstantBitValue && op2 instanceof ConstantBitValue) {
+            int length = getLength(op1, op2);
+            putOperation(ctx, getBitValue(getAligned(op1, length) | getAligned(op2, length), length));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitExorExpression(SmallPearlParser.ExorExpressionContext ctx) {
+        visitChildren(ctx);
+
+        ConstantValue op1 = m_values.get(ctx.expression(0));
+        ConstantValue op2 = m_values.get(ctx.expression(1));
+
+        if (op1 instanceof ConstantBitValue && op2 instanceof ConstantBitValue) {
+            int length = getLength(op1, op2);
+            putOperation(ctx, getBitValue(getAligned(op1, length) ^ getAligned(op2, length), length));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitCatExpression(SmallPearlParser.CatExpressionContext ctx) {
+        visitChildren(ctx);
+
+        ConstantValue op1 = m_values.get(ctx.expression(0));
+        ConstantValue op2 = m_values.get(ctx.expression(1));
+
+        if (op1 instanceof ConstantBitValue && op2 instanceof ConstantBitValue) {
+            ConstantBitValue v1 = (ConstantBitValue) op1;
+            ConstantBitValue v2 = (ConstantBitValue) op2;
+            int length = v1.getLength() + v2.getLength();
+
+            if (length < Long.SIZE) {
+                putOperation(ctx, getBitValue((v1.getLongValue() << v2.getLength()) | v2.getLongValue(), length));
+            }
+        } else if (op1 instanceof ConstantCharacterValue && op2 instanceof ConstantCharacterValue) {
+            String s1 = ((ConstantCharacterValue) op1).getValue();
+            String s2 = ((ConstantCharacterValue) op2).getValue();
+            int length1 = getCharacterLength(s1);
+            int length2 = getCharacterLength(s2);
+
+            // the PEARL notation of both strings is concatenated; this must
+            // not change the characters of the strings
+            if (length1 > 0 && length2 > 0 && getCharacterLength(s1 + s2) == length1 + length2) {
+                putOperation(ctx, new ConstantCharacterValue("'" + s1 + s2 + "'"));
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * get the value of a literal as emitted by the code generator
+     */
+    private ConstantValue getLiteralValue(SmallPearlParser.PrimaryExpressionContext primary, SmallPearlParser.LiteralContext ctx) {
+        if (ctx.fixedConstant() != null) {
+            Integer precision = m_valueRangeVisitor.getPrecision(primary);
+
+            if (precision != null) {
+                try {
+                    return getFixedValue(Integer.parseInt(ctx.fixedConstant().IntegerConstant().getText()), precision);
+                } catch (NumberFormatException ex) {
+                    return null;
+                }
+            }
+        } else if (ctx.floatingPointConstant() != null) {
+            double value = Double.parseDouble(ctx.floatingPointConstant().FloatingPointNumberWithoutPrecision().getText());
+            return getFloatValue(value, m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFloatLength());
+        } else if (ctx.BitStringLiteral() != null) {
+            long value = CommonUtils.convertBitStringToLong(ctx.BitStringLiteral().getText());
+            int length = CommonUtils.getBitStringLength(ctx.BitStringLiteral().getText());
+            return getBitValue(value, length);
+        } else if (ctx.StringLiteral() != null) {
+            return new ConstantCharacterValue(ctx.StringLiteral().getText());
+        } else if (ctx.durationConstant() != null) {
+            SmallPearlParser.DurationConstantContext duration = ctx.durationConstant();
+            int hours = 0;
+            int minutes = 0;
+            double seconds = 0.0;
+
+            if (duration.hours() != null) {
+                hours = Integer.parseInt(duration.hours().IntegerConstant().getText());
+            }
+            if (duration.minutes() != null) {
+                minutes = Integer.parseInt(duration.minutes().IntegerConstant().getText());
+            }
+            if (duration.seconds() != null) {
+                if (duration.seconds().IntegerConstant() != null) {
+                    seconds = Double.parseDouble(duration.seconds().IntegerConstant().getText());
+                } else if (duration.seconds().floatingPointConstant() != null) {
+                    seconds = Double.parseDouble(duration.seconds().floatingPointConstant().FloatingPointNumberWithoutPrecision().getText());
+                }
+            }
+
+            return new ConstantDurationValue(hours, minutes, seconds);
+        } else if (ctx.timeConstant() != null) {
+            SmallPearlParser.TimeConstantContext time = ctx.timeConstant();
+            int hours = Integer.parseInt(time.IntegerConstant(0).getText()) % 24;
+            int minutes = Integer.parseInt(time.IntegerConstant(1).getText());
+            double seconds = 0.0;
+
+            if (time.IntegerConstant().size() == 3) {
+                seconds = Double.parseDouble(time.IntegerConstant(2).getText());
+            }
+            if (time.floatingPointConstant() != null) {
+                seconds = Double.parseDouble(time.floatingPointConstant().FloatingPointNumberWithoutPrecision().getText());
+            }
+
+            return new ConstantClockValue(hours, minutes, seconds);
+        }
+
+        return null;
+    }
+
+    private SmallPearlParser.LiteralContext getLiteral(SmallPearlParser.ExpressionContext ctx) {
+        if (ctx instanceof SmallPearlParser.BaseExpressionContext) {
+            SmallPearlParser.PrimaryExpressionContext primary = ((SmallPearlParser.BaseExpressionContext) ctx).primaryExpression();
+
+            if (primary != null) {
+                return primary.literal();
+            }
+        }
+
+        return null;
+    }
+
+    private void putValue(ParserRuleContext ctx, ConstantValue value) {
+        if (value != null) {
+            m_values.put(ctx, value);
+        }
+    }
+
+    private void putOperation(ParserRuleContext ctx, ConstantValue value) {
+        if (value != null) {
+            m_values.put(ctx, value);
+
+            if (m_foldingEnabled) {
+                m_operations.add(ctx);
+                m_foldedOperations.add(ctx);
+            }
+        }
+    }
+
+    private boolean isOutermost(ParserRuleContext ctx) {
+        ParserRuleContext parent = ctx.getParent();
+
+        while (parent instanceof SmallPearlParser.ExpressionContext ||
+               parent instanceof SmallPearlParser.PrimaryExpressionContext) {
+            if (m_foldedOperations.contains(parent)) {
+                return false;
+            }
+
+            parent = parent.getParent();
+        }
+
+        return true;
+    }
+
+    /*
+     * FIXED: the value must fit into pearlrt::Fixed<precision>
+     */
+    private ConstantFixedValue getFixedValue(long value, int precision) {
+        if (precision < 1 || precision > 63 || !ValueRange.ofFixed(precision).contains(value)) {
+            return null;
+        }
+
+        return new ConstantFixedValue(value, precision);
+    }
+
+    private ConstantFixedValue getFixedResult(ValueRange result, int precision) {
+        if (result == null) {
+            return null;
+        }
+
+        return getFixedValue(result.getLowerBoundary(), precision);
+    }
+
+    private ValueRange getRange(ConstantValue value) {
+        long v = ((ConstantFixedValue) value).getValue();
+        return new ValueRange(v, v);
+    }
+
+    /*
+     * FLOAT: pearlrt::Float<24> calculates with float, pearlrt::Float<53>
+     * with double; the result types of mixed operations is Float<53>
+     */
+    private ConstantFloatValue getFloatValue(double value, int precision) {
+        if (precision == 24) {
+            return new ConstantFloatValue((double) (float) value, precision);
+        } else if (precision == 53) {
+            return new ConstantFloatValue(value, precision);
+        }
+
+        return null;
+    }
+
+    private ConstantFloatValue getFloatResult(double value, int precision) {
+        // FLOATISNAN and FLOATISINF are left to the runtime
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return null;
+        }
+
+        return getFloatValue(value, precision);
+    }
+
+    private int getPrecision(ConstantValue op1, ConstantValue op2) {
+        if (op1 instanceof ConstantFixedValue) {
+            return Math.max(((ConstantFixedValue) op1).getPrecision(), ((ConstantFixedValue) op2).getPrecision());
+        }
+
+        return Math.max(((ConstantFloatValue) op1).getPrecision(), ((ConstantFloatValue) op2).getPrecision());
+    }
+
+    /*
+     * BIT: bit strings are left aligned; the shorter operand is extended
+     * with zeros on the right side
+     */
+    private ConstantBitValue getBitValue(long value, int length) {
+        if (length < 1 || length >= Long.SIZE || value < 0 || value > getBitMask(length)) {
+            return null;
+        }
+
+        return new ConstantBitValue(value, length);
+    }
+
+    private long getBitMask(int length) {
+        return (1L << length) - 1;
+    }
+
+    private int getLength(ConstantValue op1, ConstantValue op2) {
+        return Math.max(((ConstantBitValue) op1).getLength(), ((ConstantBitValue) op2).getLength());
+    }
+
+    private long getAligned(ConstantValue value, int length) {
+        ConstantBitValue v = (ConstantBitValue) value;
+        return v.getLongValue() << (length - v.getLength());
+    }
+
+    private int getCharacterLength(String value) {
+        return CommonUtils.getStringLength(CommonUtils.unescapePearlString(value));
+    }
+
+    /*
+     * DURATION and CLOCK: the runtime keeps the microseconds; the
+     * conversions from seconds are the ones of pearlrt::Duration and
+     * pearlrt::Clock
+     */
+    private Long getDurationMicroseconds(double seconds) {
+        double us;
+
+        if (seconds > 0) {
+            us = seconds * 1000000.0 + 0.5;
+        } else {
+            us = seconds * 1000000.0 - 0.5;
+        }
+
+        // DURATIONRANGE is left to the runtime
+        if (Math.abs(us) >= 0x1p62) {
+            return null;
+        }
+
+        return (long) us;
+    }
+
+    private long getClockMicroseconds(double seconds) {
+        seconds = seconds % 86400.0;
+
+        while (seconds < 0) {
+            seconds += 86400.0;
+        }
+
+        return (long) (seconds * 1e6 + 0.5);
+    }
+
+    private Long addExact(long a, long b) {
+        long r = a + b;
+        return (((a ^ r) & (b ^ r)) < 0) ? null : r;
+    }
+
+    private Long subtractExact(long a, long b) {
+        long r = a - b;
+        return (((a ^ b) & (a ^ r)) < 0) ? null : r;
+    }
+
+    /**
+     * create a DURATION constant; the pool entry is created from its
+     * value in seconds. The constant is only used, if the runtime gets the
+     * same number of microseconds from it.
+     */
+    private ConstantDurationValue getDurationResult(Long us) {
+        if (us == null || us < 0) {
+            return null;
+        }
+
+        int hours = (int) (us / 3600000000L);
+        int minutes = (int) (us / 60000000L % 60);
+        double seconds = (us % 60000000L) / 1e6;
+        ConstantDurationValue value = new ConstantDurationValue(hours, minutes, seconds);
+
+        if (!isPlainSeconds(seconds) || !us.equals(getDurationMicroseconds(value.getValue()))) {
+            return null;
+        }
+
+        return value;
+    }
+
+    private ConstantClockValue getClockResult(long us) {
+        us = us % MICROSECONDS_PER_DAY;
+
+        if (us < 0) {
+            us += MICROSECONDS_PER_DAY;
+        }
+
+        int hours = (int) (us / 3600000000L);
+        int minutes = (int) (us / 60000000L % 60);
+        double seconds = (us % 60000000L) / 1e6;
+        ConstantClockValue value = new ConstantClockValue(hours, minutes, seconds);
+
+        if (!isPlainSeconds(seconds) || us != getClockMicroseconds(value.getValue())) {
+            return null;
+        }
+
+        return value;
+    }
+
+    /**
+     * the seconds become part of the name of the pool entry; they must
+     * not be written in exponential notation
+     */
+    private boolean isPlainSeconds(double seconds) {
+        return seconds == 0.0 || seconds >= 1e-3;
+    }
+}
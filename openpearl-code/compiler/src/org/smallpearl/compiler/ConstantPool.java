@@ -29,118 +29,172 @@
 
 package org.smallpearl.compiler;
 
-import org.antlr.v4.runtime.tree.ParseTree;
-import org.antlr.v4.runtime.tree.ParseTreeProperty;
-import org.stringtemplate.v4.ST;
-
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-
+/**
+ * The constants of one compilation unit.
+ *
+ * Every constant is entered once; the entries are indexed by their type
+ * and value (and precision or length where applicable), so that add() and
+ * the lookup methods do not depend on the size of the pool.
+ * Besides the list of all entries in insertion order, the pool keeps one
+ * list per constant type, which the code generator emits in turn.
+ */
 public class ConstantPool {
 
-    static List<ConstantValue> constantPool = new ArrayList<ConstantValue>();
+    List<ConstantValue> constantPool = new ArrayList<ConstantValue>();
+
+    private Map<List<Object>, ConstantValue> m_index = new HashMap<List<Object>, ConstantValue>();
+    private Map<List<Object>, ConstantBitValue> m_bitValues = new HashMap<List<Object>, ConstantBitValue>();
+
+    private List<ConstantFixedValue> m_fixedConstants = new ArrayList<ConstantFixedValue>();
+    private List<ConstantFloatValue> m_floatConstants = new ArrayList<ConstantFloatValue>();
+    private List<ConstantCharacterValue> m_characterConstants = new ArrayList<ConstantCharacterValue>();
+    private List<ConstantBitValue> m_bitConstants = new ArrayList<ConstantBitValue>();
+    private List<ConstantDurationValue> m_durationConstants = new ArrayList<ConstantDurationValue>();
+    private List<ConstantClockValue> m_clockConstants = new ArrayList<ConstantClockValue>();
 
     public ConstantPool() {
     }
 
+    /**
+     * enter a constant into the pool, if no equal constant exists yet.
+     *
+     * Bit string constants are numbered in the order of their first
+     * occurrence; a duplicate gets the number of the existing entry.
+     */
     public Void add(ConstantValue value) {
-        int i;
-        int constantBitNo = 0;
+        List<Object> key = keyOf(value);
+
+        if (key == null) {
+            return null;
+        }
 
-        boolean found = false;
+        ConstantValue entry = m_index.get(key);
+
+        if (entry == null) {
+            m_index.put(key, value);
+            constantPool.add(value);
 
-        for (i = 0; i < constantPool.size(); i++) {
             if ( value instanceof ConstantFixedValue) {
-                if (constantPool.get(i) instanceof ConstantFixedValue) {
-                    ConstantFixedValue a = (ConstantFixedValue)(value);
-                    ConstantFixedValue b = (ConstantFixedValue)(constantPool.get(i));
-
-                    if ( a.getValue() == b.getValue() && a.getPrecision() == b.getPrecision()) {
-                        found = true;
-                        break;
-                    }
-                }
+                m_fixedConstants.add((ConstantFixedValue) value);
             }
             else if ( value instanceof ConstantFloatValue) {
-                if (constantPool.get(i) instanceof ConstantFloatValue) {
-                    if ( Double.compare( ((ConstantFloatValue)(value)).getValue(), ((ConstantFloatValue)(constantPool.get(i))).getValue()) == 0) {
-                        ConstantFloatValue a = (ConstantFloatValue)value;
-                        ConstantFloatValue b = (ConstantFloatValue)(constantPool.get(i));
-
-                        if ( Double.compare(a.getValue(),b.getValue()) == 0 && a.getPrecision() == b.getPrecision()) {
-                            found = true;
-                            break;
-                        }
-                    }
-                }
+                m_floatConstants.add((ConstantFloatValue) value);
             }
             else if ( value instanceof ConstantCharacterValue) {
-                if (constantPool.get(i) instanceof ConstantCharacterValue) {
-                    String s1 = ((ConstantCharacterValue)(value)).getValue();
-                    String s2 = ((ConstantCharacterValue)(constantPool.get(i))).getValue();
-
-                    if ( s1.equals(s2)) {
-                        found = true;
-                        break;
-                    }
-                }
+                m_characterConstants.add((ConstantCharacterValue) value);
             }
             else if ( value instanceof ConstantBitValue) {
-                if (constantPool.get(i) instanceof ConstantBitValue) {
-                    constantBitNo = constantBitNo + 1;
-                    String s1 = ((ConstantBitValue)(value)).getValue();
-                    String s2 = ((ConstantBitValue)(constantPool.get(i))).getValue();
-
-                    int l1 = ((ConstantBitValue)(value)).getLength();
-                    int l2 = ((ConstantBitValue)(constantPool.get(i))).getLength();
-
-                    if ( s1.equals(s2) && l1 == l2) {
-                        found = true;
-                        break;
-                    }
-                }
+                ConstantBitValue bitValue = (ConstantBitValue) value;
+                m_bitConstants.add(bitValue);
+                bitValue.setNo(m_bitConstants.size());
+                m_bitValues.put(Arrays.<Object>asList(bitValue.getLongValue(), bitValue.getLength()), bitValue);
             }
             else if ( value instanceof ConstantDurationValue) {
-                if (constantPool.get(i) instanceof ConstantDurationValue) {
-                    ConstantDurationValue other = (ConstantDurationValue)constantPool.get(i);
-
-                    if ( value.equals(other) ) {
-                        found = true;
-                        break;
-                    }
-                }
+                m_durationConstants.add((ConstantDurationValue) value);
             }
             else if ( value instanceof ConstantClockValue) {
-                if (constantPool.get(i) instanceof ConstantClockValue) {
-                    ConstantClockValue other = (ConstantClockValue)constantPool.get(i);
-
-                    if ( value.equals(other) ) {
-                        found = true;
-                        break;
-                    }
-                }
+                m_clockConstants.add((ConstantClockValue) value);
             }
+        } else {
+            if ( value instanceof ConstantBitValue) {
+                ((ConstantBitValue) (value)).setNo(((ConstantBitValue) entry).getNo());
+            }
+        }
 
+        return null;
+    }
+
+    /**
+     * change the precision of a FIXED or FLOAT constant.
+     *
+     * The precision is part of the index key. If the constant is an entry
+     * of this pool, it is moved to the key of its new precision.
+     */
+    public Void changePrecision(ConstantValue value, int precision) {
+        List<Object> key = keyOf(value);
+        boolean entered = key != null && m_index.get(key) == value;
+
+        if (entered) {
+            m_index.remove(key);
         }
 
-        if (!found) {
-            if ( value instanceof ConstantBitValue) {
-                constantBitNo = constantBitNo + 1;
-                ((ConstantBitValue) (value)).setNo(constantBitNo);
-            }
+        if ( value instanceof ConstantFixedValue) {
+            ((ConstantFixedValue) value).setPrecision(precision);
+        }
+        else if ( value instanceof ConstantFloatValue) {
+            ((ConstantFloatValue) value).setPrecision(precision);
+        }
 
-            constantPool.add(value);
-        } else {
-            if ( value instanceof ConstantBitValue) {
-                ((ConstantBitValue) (value)).setNo(constantBitNo);
-            }
+        if (entered && !m_index.containsKey(keyOf(value))) {
+            m_index.put(keyOf(value), value);
+        }
+
+        return null;
+    }
+
+    /**
+     * build the index key of a constant: its type followed by the values
+     * which decide whether two constants are the same.
+     */
+    private static List<Object> keyOf(ConstantValue value) {
+        if ( value instanceof ConstantFixedValue) {
+            ConstantFixedValue v = (ConstantFixedValue) value;
+            return Arrays.<Object>asList(ConstantFixedValue.class, v.getValue(), v.getPrecision());
+        }
+        else if ( value instanceof ConstantFloatValue) {
+            ConstantFloatValue v = (ConstantFloatValue) value;
+            return Arrays.<Object>asList(ConstantFloatValue.class, v.getValue(), v.getPrecision());
+        }
+        else if ( value instanceof ConstantCharacterValue) {
+            return Arrays.<Object>asList(ConstantCharacterValue.class, ((ConstantCharacterValue) value).getValue());
+        }
+        else if ( value instanceof ConstantBitValue) {
+            ConstantBitValue v = (ConstantBitValue) value;
+            return Arrays.<Object>asList(ConstantBitValue.class, v.getValue(), v.getLength());
+        }
+        else if ( value instanceof ConstantDurationValue) {
+            ConstantDurationValue v = (ConstantDurationValue) value;
+            return Arrays.<Object>asList(ConstantDurationValue.class, v.getHours(), v.getMinutes(), v.getSeconds());
+        }
+        else if ( value instanceof ConstantClockValue) {
+            ConstantClockValue v = (ConstantClockValue) value;
+            return Arrays.<Object>asList(ConstantClockValue.class, v.getHours(), v.getMinutes(), v.getSeconds());
         }
 
         return null;
     }
 
-    static
+    public List<ConstantFixedValue> getFixedConstants() {
+        return Collections.unmodifiableList(m_fixedConstants);
+    }
+
+    public List<ConstantFloatValue> getFloatConstants() {
+        return Collections.unmodifiableList(m_floatConstants);
+    }
+
+    public List<ConstantCharacterValue> getCharacterConstants() {
+        return Collections.unmodifiableList(m_characterConstants);
+    }
+
+    public List<ConstantBitValue> getBitConstants() {
+        return Collections.unmodifiableList(m_bitConstants);
+    }
+
+    public List<ConstantDurationValue> getDurationConstants() {
+        return Collections.unmodifiableList(m_durationConstants);
+    }
+
+    public List<ConstantClockValue> getClockConstants() {
+        return Collections.unmodifiableList(m_clockConstants);
+    }
+
     public Void dump(){
         int i;
         System.out.println("");
@@ -182,107 +236,43 @@ public class ConstantPool {
         return null;
     }
 
-    static public ConstantCharacterValue lookupCharacterValue(String value) {
-        int i;
-
-        for (i = 0; i < constantPool.size(); i++) {
-            if (constantPool.get(i) instanceof ConstantCharacterValue) {
-                String s = ((ConstantCharacterValue)(constantPool.get(i))).getValue();
+    /**
+     * get the entry of the pool, which is equal to the given constant
+     *
+     * @return the entry; null if the pool contains no equal constant
+     */
+    public ConstantValue lookup(ConstantValue value) {
+        List<Object> key = keyOf(value);
 
-                if ( s.equals(value)) {
-                    return (ConstantCharacterValue)(constantPool.get(i));
-                }
-            }
+        if (key == null) {
+            return null;
         }
 
-        return null;
+        return m_index.get(key);
     }
 
-    static public ConstantBitValue lookupBitValue(long value, int noOfBits) {
-        int i;
-
-        for (i = 0; i < constantPool.size(); i++) {
-            if (constantPool.get(i) instanceof ConstantBitValue) {
-                ConstantBitValue bitConst = ((ConstantBitValue) (constantPool.get(i)));
-                long v1 = bitConst.getLongValue();
-
-                if (v1 == value && bitConst.getLength() == noOfBits) {
-                    return bitConst;
-                }
-            }
-        }
-
-        return null;
+    public ConstantCharacterValue lookupCharacterValue(String value) {
+        return (ConstantCharacterValue) m_index.get(Arrays.<Object>asList(ConstantCharacterValue.class, value));
     }
 
-    static public ConstantDurationValue lookupDurationValue(int hours, int minutes, double seconds) {
-        int i;
-        ConstantDurationValue other = new ConstantDurationValue(hours,minutes,seconds);
-
-        for (i = 0; i < constantPool.size(); i++) {
-            if (constantPool.get(i) instanceof ConstantDurationValue) {
-                ConstantDurationValue constant = ((ConstantDurationValue) (constantPool.get(i)));
-
-                if (constant.equals(other)) {
-                    return constant;
-                }
-            }
-        }
-
-        return null;
+    public ConstantBitValue lookupBitValue(long value, int noOfBits) {
+        return m_bitValues.get(Arrays.<Object>asList(value, noOfBits));
     }
 
-    static public ConstantClockValue lookupClockValue(int hours, int minutes, double seconds) {
-        int i;
-        ConstantClockValue other = new ConstantClockValue(hours,minutes,seconds);
-
-        for (i = 0; i < constantPool.size(); i++) {
-            if (constantPool.get(i) instanceof ConstantClockValue) {
-                ConstantClockValue constant = ((ConstantClockValue) (constantPool.get(i)));
-
-                if (constant.equals(other)) {
-                    return constant;
-                }
-            }
-        }
-
-        return null;
+    public ConstantDurationValue lookupDurationValue(int hours, int minutes, double seconds) {
+        return (ConstantDurationValue) m_index.get(Arrays.<Object>asList(ConstantDurationValue.class, hours, minutes, seconds));
     }
 
-    static public ConstantFloatValue lookupFloatValue(double value, int precision) {
-        int i;
-        ConstantFloatValue other = new ConstantFloatValue(value,precision);
-
-        for (i = 0; i < constantPool.size(); i++) {
-            if (constantPool.get(i) instanceof ConstantFloatValue) {
-                ConstantFloatValue constant = ((ConstantFloatValue) (constantPool.get(i)));
-
-                if ( constant.getValue() == other.getValue() &&
-                     constant.getPrecision() == other.getPrecision()) {
-                    return constant;
-                }
-            }
-        }
-
-        return null;
+    public ConstantClockValue lookupClockValue(int hours, int minutes, double seconds) {
+        return (ConstantClockValue) m_index.get(Arrays.<Object>asList(ConstantClockValue.class, hours, minutes, seconds));
     }
 
-    static public ConstantFixedValue lookupFixedValue(long value, int length) {
-        int i;
-        ConstantFixedValue other = new ConstantFixedValue(value,length);
-
-        for (i = 0; i < constantPool.size(); i++) {
-            if (constantPool.get(i) instanceof ConstantFixedValue) {
-                ConstantFixedValue constant = ((ConstantFixedValue) (constantPool.get(i)));
-
-                if ( constant.getValue() == other.getValue() &&
-                        constant.getPrecision() == other.getPrecision()) {
-                    return constant;
-                }
-            }
-        }
+    public ConstantFloatValue lookupFloatValue(double value, int precision) {
+        return (ConstantFloatValue) m_index.get(Arrays.<Object>asList(ConstantFloatValue.class, value, precision));
+    }
 
-        return null;
+    public ConstantFixedValue lookupFixedValue(long value, int length) {
+        return (ConstantFixedValue) m_index.get(Arrays.<Object>asList(ConstantFixedValue.class, value, length));
     }
 
 }
@@ -31,6 +31,7 @@ package org.smallpearl.compiler;
 
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.ParseTreeProperty;
+import org.antlr.v4.runtime.tree.TerminalNode;
 import org.smallpearl.compiler.SymbolTable.ModuleEntry;
 import org.smallpearl.compiler.SymbolTable.SymbolTable;
 import org.smallpearl.compiler.SymbolTable.SymbolTableEntry;
@@ -43,7 +44,6 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
     private String m_sourceFileName;
     private SymbolTableVisitor m_symbolTableVisitor;
     private SymbolTable m_symboltable;
-    private SymbolTable m_currentSymbolTable;
     private ModuleEntry m_module;
     private int m_counter = 0;
     private ConstantPool m_constantPool = null;
@@ -64,7 +64,6 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
         m_sourceFileName = sourceFileName;
         m_symbolTableVisitor = symbolTableVisitor;
         m_symboltable = symbolTableVisitor.symbolTable;
-        m_currentSymbolTable = m_symboltable;
         m_constantPool = constantPool;
         m_properties = new ParseTreeProperty<TypeDefinition>();
         m_expressionTypeVisitor = expressionTypeVisitor;
@@ -80,78 +79,8 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
     }
 
     public Void add(ConstantValue value) {
-        int i;
-        int constantBitNo = 0;
-
-        boolean found = false;
-
-        for (i = 0; i < m_constantPool.constantPool.size(); i++) {
-            if ( value instanceof ConstantFixedValue) {
-                if (m_constantPool.constantPool.get(i) instanceof ConstantFixedValue) {
-                    ConstantFixedValue a = (ConstantFixedValue)(value);
-                    ConstantFixedValue b = (ConstantFixedValue)(m_constantPool.constantPool.get(i));
-
-                    if ( a.getValue() == b.getValue() && a.getPrecision() == b.getPrecision()) {
-                        found = true;
-                        break;
-                    }
-                }
-            }
-            else if ( value instanceof ConstantFloatValue) {
-                if (m_constantPool.constantPool.get(i) instanceof ConstantFloatValue) {
-                    if ( Double.compare( ((ConstantFloatValue)(value)).getValue(), ((ConstantFloatValue)(m_constantPool.constantPool.get(i))).getValue()) == 0) {
-                        found = true;
-                        break;
-                    }
-                }
-            }
-            else if ( value instanceof ConstantCharacterValue) {
-                if (m_constantPool.constantPool.get(i) instanceof ConstantCharacterValue) {
-                    String s1 = ((ConstantCharacterValue)(value)).getValue();
-                    String s2 = ((ConstantCharacterValue)(m_constantPool.constantPool.get(i))).getValue();
-
-                    if ( s1.equals(s2)) {
-                        found = true;
-                        break;
-                    }
-                }
-            }
-            else if ( value instanceof ConstantBitValue) {
-                if (m_constantPool.constantPool.get(i) instanceof ConstantBitValue) {
-                    constantBitNo = constantBitNo + 1;
-                    String s1 = ((ConstantBitValue)(value)).getValue();
-                    String s2 = ((ConstantBitValue)(m_constantPool.constantPool.get(i))).getValue();
-
-                    if ( s1.equals(s2)) {
-                        found = true;
-                        break;
-                    }
-                }
-            }
-            else if ( value instanceof ConstantDurationValue) {
-                if (m_constantPool.constantPool.get(i) instanceof ConstantDurationValue) {
-                    ConstantDurationValue other = (ConstantDurationValue)value;
-                    ConstantDurationValue constant = ((ConstantDurationValue)(m_constantPool.constantPool.get(i)));
-
-                    if ( constant.equals(other)) {
-                        found = true;
-                        break;
-                    }
-                }
-            }
-        }
-
-        if (!found) {
-            if ( value instanceof ConstantBitValue) {
-                constantBitNo = constantBitNo + 1;
-                ((ConstantBitValue) (value)).setNo(constantBitNo);
-            }
-
-            m_constantPool.add(value);
-        }
-
+        m_constantPool.add(value);
         return null;
-
     }
 
     @Override
@@ -199,7 +128,7 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
         } else if (ctx.floatingPointConstant() != null) {
             try {
                 double value = 0.0;
-                int precision = m_currentSymbolTable.lookupDefaultFloatLength();
+                int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFloatLength();
 
                 if ( ctx.floatingPointConstant().FloatingPointNumberPrecision() != null) {
                     precision = Integer.valueOf(ctx.floatingPointConstant().FloatingPointNumberPrecision().toString());
@@ -219,7 +148,7 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
         } else if (ctx.fixedConstant() != null) {
             try {
                 int value;
-                int precision = m_currentSymbolTable.lookupDefaultFixedLength();
+                int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFixedLength();
 
                 if ( ctx.fixedConstant().fixedNumberPrecision() != null) {
                     precision = Integer.parseInt(ctx.fixedConstant().fixedNumberPrecision().IntegerConstant().toString());
@@ -257,7 +186,7 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
                     if (literal_ctx.floatingPointConstant() != null) {
                         try {
                             double value = -1 * Double.parseDouble(literal_ctx.floatingPointConstant().FloatingPointNumberWithoutPrecision().toString());
-                            int precision = m_currentSymbolTable.lookupDefaultFloatLength();
+                            int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFloatLength();
                             add(new ConstantFloatValue(value,precision));
                         } catch (NumberFormatException ex) {
                             throw new NumberOutOfRangeException(ctx.getText(), literal_ctx.start.getLine(), literal_ctx.start.getCharPositionInLine());
@@ -266,7 +195,7 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
                     else if (literal_ctx.fixedConstant() != null) {
                         try {
                             Integer value = null;
-                            int precision = m_currentSymbolTable.lookupDefaultFixedLength();
+                            int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFixedLength();
 
                             if ( literal_ctx.fixedConstant().fixedNumberPrecision() != null) {
                                 precision = Integer.parseInt(literal_ctx.fixedConstant().fixedNumberPrecision().IntegerConstant().toString());
@@ -283,7 +212,7 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
                     } else if (literal_ctx.floatingPointConstant() != null) {
                         try {
                             double value = -1 * Double.parseDouble(literal_ctx.floatingPointConstant().FloatingPointNumberWithoutPrecision().toString());
-                            int precision = m_currentSymbolTable.lookupDefaultFloatLength();
+                            int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFloatLength();
                             add(new ConstantFloatValue(value,precision));
                         } catch (NumberFormatException ex) {
                             throw new NumberOutOfRangeException(ctx.getText(), literal_ctx.start.getLine(), literal_ctx.start.getCharPositionInLine());
@@ -308,7 +237,7 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
         if ( ctx.fixedConstant() != null ) {
             try {
                 int value;
-                int precision = m_currentSymbolTable.lookupDefaultFixedLength();
+                int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFixedLength();
 
                 value = Integer.parseInt(ctx.fixedConstant().IntegerConstant().toString());
 
@@ -410,7 +339,7 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
         else if ( ctx.floatingPointConstant() != null ) {
             try {
                 double  value = 0.0;
-                int precision = m_currentSymbolTable.lookupDefaultFloatLength();
+                int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFloatLength();
 
                 // walk up the AST and get VariableDenotationContext:
                 ParserRuleContext  sctx =  ctx.getParent();
@@ -507,55 +436,6 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
 
         return seconds;
     }
-    @Override
-    public Void visitModule(SmallPearlParser.ModuleContext ctx) {
-        if (m_debug) {
-            System.out.println( "ConstantPoolVisitor: visitModule");
-        }
-
-        org.smallpearl.compiler.SymbolTable.SymbolTableEntry symbolTableEntry = m_currentSymbolTable.lookupLocal(ctx.ID().getText());
-        m_currentSymbolTable = ((ModuleEntry)symbolTableEntry).scope;
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitProcedureDeclaration(SmallPearlParser.ProcedureDeclarationContext ctx) {
-        if (m_debug) {
-            System.out.println( "ConstantPoolVisitor: visitProcedureDeclaration");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitTaskDeclaration(SmallPearlParser.TaskDeclarationContext ctx) {
-        if (m_debug) {
-            System.out.println( "ConstantPoolVisitor: visitTaskDeclaration");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitBlock_statement(SmallPearlParser.Block_statementContext ctx) {
-        if (m_debug) {
-            System.out.println( "ConstantPoolVisitor: visitBlock_statement");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
     @Override
     public Void visitLoopStatement(SmallPearlParser.LoopStatementContext ctx) {
         if (m_debug) {
@@ -564,14 +444,11 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
 
         int precision;
 
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-
-
         if ( ctx.loopStatement_for() == null ) {
             visitChildren(ctx);
         }
         else {
-            SymbolTableEntry entry = m_currentSymbolTable.lookup(ctx.loopStatement_for().ID().getText());
+            SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.loopStatement_for().ID());
             VariableEntry var = null;
 
             if ( entry != null && entry instanceof VariableEntry) {
@@ -607,7 +484,7 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
                 }
             }
 
-            precision = m_currentSymbolTable.lookupDefaultFixedLength();
+            precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFixedLength();
 
             if ( fromType != null) {
                 if ( toType != null ) {
@@ -622,14 +499,17 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
             }
 
 //TODO            m_constantPool.add(new ConstantFixedValue(value,precision));
+
+            visitChildren(ctx);
         }
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
+
         return null;
     }
 
     @Override
     public Void visitAssignment_statement(SmallPearlParser.Assignment_statementContext ctx) {
         String id = null;
+        TerminalNode idNode = null;
 
         if (m_verbose > 0) {
             System.out.println("ConstantPoolVisitor: visitAssignment_statement");
@@ -637,18 +517,21 @@ public class ConstantPoolVisitor extends SmallPearlBaseVisitor<Void> implements
 
         if ( ctx.stringSelection() != null ) {
             if ( ctx.stringSelection().charSelection() != null ) {
+                idNode = ctx.stringSelection().charSelection().ID();
                 id = ctx.stringSelection().charSelection().ID().getText();
             }
             else  if (ctx.stringSelection().bitSelection() != null) {
+                idNode = ctx.stringSelection().bitSelection().ID();
                 id = ctx.stringSelection().bitSelection().ID().getText();
             } else {
                 throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
             }
         } else {
+            idNode = ctx.ID();
             id = ctx.ID().getText();
         }
 
-        SymbolTableEntry entry = m_currentSymbolTable.lookup(id);
+        SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(idNode);
 
         if (!(entry instanceof VariableEntry)) {
             throw  new UnknownIdentifierException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -30,6 +30,7 @@
 package org.smallpearl.compiler;
 
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
 import org.antlr.v4.runtime.tree.TerminalNodeImpl;
 import org.smallpearl.compiler.SymbolTable.*;
 import org.stringtemplate.v4.ST;
@@ -48,11 +49,13 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
     private boolean m_debug;
     private String m_sourceFileName;
     private ExpressionTypeVisitor m_expressionTypeVisitor;
+    private ValueRangeVisitor m_valueRangeVisitor;
+    private ConstantFoldingVisitor m_constantFoldingVisitor;
     private ConstantExpressionEvaluatorVisitor m_constantExpressionEvaluatorVisitor;
     private SymbolTableVisitor m_symbolTableVisitor;
+    private ConstantPool m_constantPool;
     private boolean m_map_to_const = true;
     private SymbolTable m_symboltable;
-    private SymbolTable m_currentSymbolTable;
     private ModuleEntry m_module;
     private Integer m_currFixedLength = null;
 
@@ -66,20 +69,25 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
                                    boolean debug,
                                    SymbolTableVisitor symbolTableVisitor,
                                    ExpressionTypeVisitor expressionTypeVisitor,
-                                   ConstantExpressionEvaluatorVisitor constantExpressionEvaluatorVisitor) {
+                                   ValueRangeVisitor valueRangeVisitor,
+                                   ConstantFoldingVisitor constantFoldingVisitor,
+                                   ConstantExpressionEvaluatorVisitor constantExpressionEvaluatorVisitor,
+                                   ConstantPool constantPool) {
 
         m_debug = debug;
         m_verbose = verbose;
         m_sourceFileName = sourceFileName;
         m_symbolTableVisitor = symbolTableVisitor;
         m_expressionTypeVisitor = expressionTypeVisitor;
+        m_valueRangeVisitor = valueRangeVisitor;
+        m_constantFoldingVisitor = constantFoldingVisitor;
         m_constantExpressionEvaluatorVisitor = constantExpressionEvaluatorVisitor;
+        m_constantPool = constantPool;
         m_symboltable = symbolTableVisitor.symbolTable;
-        m_currentSymbolTable = m_symboltable;
 
         m_verbose = 1;
 
-        LinkedList<ModuleEntry> listOfModules = this.m_currentSymbolTable.getModules();
+        List<ModuleEntry> listOfModules = this.m_symboltable.getModules();
 
         if ( listOfModules.size() > 1 ) {
             throw new NotYetImplementedException("Multiple modules", 0, 0);
@@ -100,7 +108,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
             System.out.println("Read StringTemplate Group File: " + filename);
         }
 
-        this.m_group = new STGroupFile(filename);
+        this.m_group = TemplateGroups.get(filename);
 
         return null;
     }
@@ -112,7 +120,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
         ST taskspec = m_group.getInstanceOf("TaskSpecifier");
 
-        LinkedList<TaskEntry> taskEntries = this.m_module.scope.getTaskDeclarations();
+        List<TaskEntry> taskEntries = this.m_module.scope.getTaskDeclarations();
         ArrayList<String> listOfTaskNames = new ArrayList<String>();
 
         for (int i = 0; i < taskEntries.size(); i++) {
@@ -130,80 +138,82 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         return prologue;
     }
 
+    /**
+     * Generate the constant pool
+     *
+     * The FIXED, FLOAT, DURATION and CLOCK constants are emitted as const
+     * objects. The generated code applies only const methods of
+     * pearlrt::Fixed and pearlrt::Float to them (including abs(), sign()
+     * and fit()); DURATION and CLOCK literals are always copied into a
+     * temporary object before an operator is applied.
+     * CHARACTER and BIT constants are passed to runtime functions with
+     * non-const references (e.g. DationPG::toA, BitString::bitAnd) and
+     * remain modifiable objects.
+     * The runtime constructors check the range of the value and may throw
+     * a signal, hence none of the entries can be constexpr.
+     */
     private ST generateConstantPool() {
         ST pool = m_group.getInstanceOf("ConstantPoolList");
 
-        for (int i = 0; i < ConstantPool.constantPool.size(); i++) {
-            if (ConstantPool.constantPool.get(i) instanceof ConstantFixedValue ) {
-                ST entry = m_group.getInstanceOf("ConstantPoolEntry");
-                entry.add("name", ((ConstantFixedValue) ConstantPool.constantPool.get(i)).toString());
-                entry.add("type", ((ConstantFixedValue) ConstantPool.constantPool.get(i)).getBaseType());
-                entry.add("precision", ((ConstantFixedValue) ConstantPool.constantPool.get(i)).getPrecision());
-                entry.add("value", ((ConstantFixedValue) ConstantPool.constantPool.get(i)).getValue());
-                pool.add("constants", entry);
-            }
+        for (ConstantFixedValue value : m_constantPool.getFixedConstants()) {
+            ST entry = m_group.getInstanceOf("ConstantPoolEntry");
+            entry.add("name", value.toString());
+            entry.add("type", value.getBaseType());
+            entry.add("precision", value.getPrecision());
+            entry.add("value", value.getValue());
+            entry.add("readOnly", true);
+            pool.add("constants", entry);
         }
 
-        for (int i = 0; i < ConstantPool.constantPool.size(); i++) {
-            if (ConstantPool.constantPool.get(i) instanceof ConstantFloatValue) {
-                ST entry = m_group.getInstanceOf("ConstantPoolEntry");
-                entry.add("name", ((ConstantFloatValue) ConstantPool.constantPool.get(i)).toString());
-                entry.add("type", ((ConstantFloatValue) ConstantPool.constantPool.get(i)).getBaseType());
-                entry.add("precision", ((ConstantFloatValue) ConstantPool.constantPool.get(i)).getPrecision());
-                entry.add("value", ((ConstantFloatValue) ConstantPool.constantPool.get(i)).getValue());
-                pool.add("constants", entry);
-            }
+        for (ConstantFloatValue value : m_constantPool.getFloatConstants()) {
+            ST entry = m_group.getInstanceOf("ConstantPoolEntry");
+            entry.add("name", value.toString());
+            entry.add("type", value.getBaseType());
+            entry.add("precision", value.getPrecision());
+            entry.add("value", value.getValue());
+            entry.add("readOnly", true);
+            pool.add("constants", entry);
         }
 
-        for (int i = 0; i < ConstantPool.constantPool.size(); i++) {
-            if (ConstantPool.constantPool.get(i) instanceof ConstantCharacterValue) {
-                ConstantCharacterValue value = (ConstantCharacterValue) ConstantPool.constantPool.get(i);
-                ST entry = m_group.getInstanceOf("ConstantPoolCharacterEntry");
-                entry.add("name", value.toString());
-                entry.add("type", value.getBaseType());
+        for (ConstantCharacterValue value : m_constantPool.getCharacterConstants()) {
+            ST entry = m_group.getInstanceOf("ConstantPoolCharacterEntry");
+            entry.add("name", value.toString());
+            entry.add("type", value.getBaseType());
 
-                String s = CommonUtils.unescapePearlString(value.getValue());
-                entry.add("length", CommonUtils.getStringLength(s));
-                entry.add("value", s);
+            String s = CommonUtils.unescapePearlString(value.getValue());
+            entry.add("length", CommonUtils.getStringLength(s));
+            entry.add("value", s);
 
-                pool.add("constants", entry);
-            }
+            pool.add("constants", entry);
         }
 
-        for (int i = 0; i < ConstantPool.constantPool.size(); i++) {
-            if (ConstantPool.constantPool.get(i) instanceof ConstantBitValue) {
-                ConstantBitValue value = (ConstantBitValue) ConstantPool.constantPool.get(i);
-                ST entry = m_group.getInstanceOf("ConstantPoolBitEntry");
-                entry.add("name", value.toString());
-                entry.add("type", value.getBaseType());
-                entry.add("length", value.getLength());
-                entry.add("value", value.getValue());
-                pool.add("constants", entry);
-            }
+        for (ConstantBitValue value : m_constantPool.getBitConstants()) {
+            ST entry = m_group.getInstanceOf("ConstantPoolBitEntry");
+            entry.add("name", value.toString());
+            entry.add("type", value.getBaseType());
+            entry.add("length", value.getLength());
+            entry.add("value", value.getValue());
+            pool.add("constants", entry);
         }
 
-        for (int i = 0; i < ConstantPool.constantPool.size(); i++) {
-            if (ConstantPool.constantPool.get(i) instanceof ConstantDurationValue) {
-                ConstantDurationValue value = (ConstantDurationValue) ConstantPool.constantPool.get(i);
-                ST entry = m_group.getInstanceOf("ConstantPoolDurationEntry");
-                entry.add("name", value.toString());
-                entry.add("type", value.getBaseType());
-                entry.add("value", value.getValue());
+        for (ConstantDurationValue value : m_constantPool.getDurationConstants()) {
+            ST entry = m_group.getInstanceOf("ConstantPoolDurationEntry");
+            entry.add("name", value.toString());
+            entry.add("type", value.getBaseType());
+            entry.add("value", value.getValue());
+            entry.add("readOnly", true);
 
-                pool.add("constants", entry);
-            }
+            pool.add("constants", entry);
         }
 
-        for (int i = 0; i < ConstantPool.constantPool.size(); i++) {
-            if (ConstantPool.constantPool.get(i) instanceof ConstantClockValue) {
-                ConstantClockValue value = (ConstantClockValue) ConstantPool.constantPool.get(i);
-                ST entry = m_group.getInstanceOf("ConstantPoolClockEntry");
-                entry.add("name", value.toString());
-                entry.add("type", value.getBaseType());
-                entry.add("value", value.getValue());
+        for (ConstantClockValue value : m_constantPool.getClockConstants()) {
+            ST entry = m_group.getInstanceOf("ConstantPoolClockEntry");
+            entry.add("name", value.toString());
+            entry.add("type", value.getBaseType());
+            entry.add("value", value.getValue());
+            entry.add("readOnly", true);
 
-                pool.add("constants", entry);
-            }
+            pool.add("constants", entry);
         }
 
         return pool;
@@ -290,9 +300,6 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         module.add("name", ctx.ID().getText());
         module.add("prologue", generatePrologue());
 
-        org.smallpearl.compiler.SymbolTable.SymbolTableEntry symbolTableEntry = m_currentSymbolTable.lookupLocal(ctx.ID().getText());
-        m_currentSymbolTable = ((org.smallpearl.compiler.SymbolTable.ModuleEntry)symbolTableEntry).scope;
-
         if (ctx != null) {
             for (ParseTree c : ctx.children) {
                 if (c instanceof SmallPearlParser.System_partContext) {
@@ -306,8 +313,6 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
             }
         }
 
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-
         return module;
     }
 
@@ -465,7 +470,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
     @Override
     public ST visitType_float(SmallPearlParser.Type_floatContext ctx) {
         ST float_type = m_group.getInstanceOf("float_type");
-        int precision = m_currentSymbolTable.lookupDefaultFloatLength();
+        int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFloatLength();
 
         if (ctx.IntegerConstant() != null) {
             precision = Integer.parseInt(ctx.IntegerConstant().getText());
@@ -525,18 +530,20 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         ST variableDenotation = m_group.getInstanceOf("variable_denotation");
         ST typeAttribute = m_group.getInstanceOf("TypeAttribute");
         ArrayList<String> identifierDenotationList = null;
+        SmallPearlParser.IdentifierDenotationContext identifierDenotation = null;
 
         if (ctx != null) {
             for (ParseTree c : ctx.children) {
                 if (c instanceof SmallPearlParser.IdentifierDenotationContext) {
-                    identifierDenotationList = getIdentifierDenotation((SmallPearlParser.IdentifierDenotationContext) c);
+                    identifierDenotation = (SmallPearlParser.IdentifierDenotationContext) c;
+                    identifierDenotationList = getIdentifierDenotation(identifierDenotation);
                 }
             }
 
             for (int i = 0; i < identifierDenotationList.size(); i++) {
                 ST v = m_group.getInstanceOf("VariableDeclaration");
 
-                SymbolTableEntry entry = m_currentSymbolTable.lookup(identifierDenotationList.get(i));
+                SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(identifierDenotation.ID(i));
                 VariableEntry var = (VariableEntry)entry;
 
                 v.add("name", identifierDenotationList.get(i));
@@ -821,7 +828,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
                     }
                 }
 
-                ConstantFixedValue fixedConst = ConstantPool.lookupFixedValue(value,precision);
+                ConstantFixedValue fixedConst = m_constantPool.lookupFixedValue(value,precision);
 
                 if ( fixedConst != null ) {
                     integerConstant.add("value", fixedConst.toString());
@@ -893,7 +900,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         int nb = CommonUtils.getBitStringLength(bitString);
         long value = CommonUtils.convertBitStringToLong(bitString);
 
-        ConstantBitValue bitConst = ConstantPool.lookupBitValue(value,nb);
+        ConstantBitValue bitConst = m_constantPool.lookupBitValue(value,nb);
 
         if ( bitConst != null) {
             return bitConst.toString();
@@ -975,7 +982,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
             seconds = getSeconds(ctx.seconds());
         }
 
-        ConstantDurationValue constant = ConstantPool.lookupDurationValue(hours,minutes,seconds);
+        ConstantDurationValue constant = m_constantPool.lookupDurationValue(hours,minutes,seconds);
 
         if ( constant == null ) {
             throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -1090,7 +1097,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
     @Override
     public ST visitTypeInteger(SmallPearlParser.TypeIntegerContext ctx) {
         ST st = m_group.getInstanceOf("TypeInteger");
-        int size = m_currentSymbolTable.lookupDefaultFixedLength();
+        int size = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFixedLength();
 
         if (ctx != null) {
             for (ParseTree c : ctx.children) {
@@ -1109,7 +1116,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
     public ST visitTypeBitString(SmallPearlParser.TypeBitStringContext ctx) {
         ST st = m_group.getInstanceOf("TypeBitString");
 
-        int length = m_currentSymbolTable.lookupDefaultBitLength();
+        int length = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultBitLength();
 
         if (ctx.IntegerConstant() != null) {
             length = Integer.parseInt(ctx.IntegerConstant().getText());
@@ -1237,16 +1244,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
                 stArrayLimit.add("lowerBoundary",Integer.toString(listOfArrayDimensions.get(j).getLowerBoundary()));
                 stArrayLimit.add("upperBoundary",Integer.toString(listOfArrayDimensions.get(j).getUpperBoundary()));
 
-                int noOfElemenstOnNextSubArray = 0;
-                for(int k = j +1; k < listOfArrayDimensions.size(); k++) {
-                    noOfElemenstOnNextSubArray += listOfArrayDimensions.get(k).getNoOfElements();
-                }
-
-                if ( noOfElemenstOnNextSubArray == 0) {
-                    noOfElemenstOnNextSubArray = 1;
-                }
-
-                stArrayLimit.add("noOfElemenstOnNextSubArray", noOfElemenstOnNextSubArray);
+                stArrayLimit.add("noOfElemenstOnNextSubArray", arrayDescriptor.getNoOfElemenstOnNextSubArray(j));
                 stArrayLimits.add("limits", stArrayLimit);
             }
 
@@ -1414,8 +1412,6 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         ST priority = m_group.getInstanceOf("expression");
         Integer main = 0;
 
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-
         if (ctx.priority() != null) {
             priority = getExpression(ctx.priority().expression());
         }
@@ -1441,7 +1437,6 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
             }
         }
 
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
         return taskdecl;
     }
 
@@ -1808,25 +1803,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
     public ST visitIf_statement(SmallPearlParser.If_statementContext ctx) {
         ST stmt = m_group.getInstanceOf("if_statement");
 
-        TypeDefinition typeDef = m_expressionTypeVisitor.lookupType(ctx.expression());
-
-//        if ( typeDef instanceof TypeBit ) {
-//            TypeBit typeBit = (TypeBit) typeDef;
-//
-//            if ( typeBit.getPrecision() == 1 ) {
-//                stmt.add("rhs",  getExpression(ctx.expression()));
-//            }
-//            else {
-//                ST cast = m_group.getInstanceOf("CastBitToBoolean");
-//                cast.add("name", getExpression(ctx.expression()));
-//                stmt.add("rhs", cast);
-//            }
-//        }
-//        else {
-            ST cast = m_group.getInstanceOf("CastBitToBoolean");
-            cast.add("name", getExpression(ctx.expression()));
-            stmt.add("rhs", cast);
-//        }
+        stmt.add("rhs", getCondition(ctx.expression()));
 
         if (ctx.then_block() != null) {
             stmt.add("then_block", visitThen_block(ctx.then_block()));
@@ -1839,6 +1816,101 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         return stmt;
     }
 
+    /**
+     * Generate the C++ code of a condition as native bool expression
+     *
+     * A BIT(1) result is lowered recursively: AND, OR and NOT become the
+     * short-circuit operators &&, || and !, and comparisons of FIXED and
+     * FLOAT values compare the native values directly. All other
+     * expressions are converted with getBoolean().
+     *
+     * @param ctx the expression of the condition
+     * @return the condition code
+     */
+    private ST getCondition(SmallPearlParser.ExpressionContext ctx) {
+        ExpressionResult res = m_expressionTypeVisitor.lookup(ctx);
+
+        if ( res != null && m_constantFoldingVisitor.lookup(ctx) == null && res.getType() instanceof TypeBit && ((TypeBit) res.getType()).getPrecision() == 1 ) {
+            if ( ctx instanceof SmallPearlParser.BaseExpressionContext ) {
+                SmallPearlParser.PrimaryExpressionContext primary = ((SmallPearlParser.BaseExpressionContext) ctx).primaryExpression();
+
+                if ( primary != null && primary.ID() == null && primary.expression().size() == 1 ) {
+                    return getCondition(primary.expression(0));
+                }
+            } else if ( ctx instanceof SmallPearlParser.AndExpressionContext ) {
+                SmallPearlParser.AndExpressionContext c = (SmallPearlParser.AndExpressionContext) ctx;
+                ST st = m_group.getInstanceOf("BoolAnd");
+                st.add("lhs", getCondition(c.expression(0)));
+                st.add("rhs", getCondition(c.expression(1)));
+                return st;
+            } else if ( ctx instanceof SmallPearlParser.OrExpressionContext ) {
+                SmallPearlParser.OrExpressionContext c = (SmallPearlParser.OrExpressionContext) ctx;
+                ST st = m_group.getInstanceOf("BoolOr");
+                st.add("lhs", getCondition(c.expression(0)));
+                st.add("rhs", getCondition(c.expression(1)));
+                return st;
+            } else if ( ctx instanceof SmallPearlParser.NotExpressionContext ) {
+                ST st = m_group.getInstanceOf("BoolNot");
+                st.add("rhs", getCondition(((SmallPearlParser.NotExpressionContext) ctx).expression()));
+                return st;
+            } else {
+                String operator = getNativeRelation(ctx);
+
+                if ( operator != null ) {
+                    ST st = m_group.getInstanceOf("NativeRelation");
+                    st.add("lhs", visit(ctx.getChild(0)));
+                    st.add("operator", operator);
+                    st.add("rhs", visit(ctx.getChild(2)));
+                    return st;
+                }
+            }
+        }
+
+        ST cast = m_group.getInstanceOf("CastBitToBoolean");
+        cast.add("name", getExpression(ctx));
+        return cast;
+    }
+
+    /**
+     * Check if a comparison may be done on the native values
+     *
+     * The runtime compares FIXED and FLOAT values on their member x. The
+     * comparison yields the same result, if the generated code does this
+     * directly.
+     *
+     * @param ctx the expression
+     * @return the C++ operator, or null if ctx is no such comparison
+     */
+    private String getNativeRelation(SmallPearlParser.ExpressionContext ctx) {
+        String operator;
+
+        if ( ctx instanceof SmallPearlParser.EqRelationalExpressionContext ) {
+            operator = "==";
+        } else if ( ctx instanceof SmallPearlParser.NeRelationalExpressionContext ) {
+            operator = "!=";
+        } else if ( ctx instanceof SmallPearlParser.LtRelationalExpressionContext ) {
+            operator = "<";
+        } else if ( ctx instanceof SmallPearlParser.LeRelationalExpressionContext ) {
+            operator = "<=";
+        } else if ( ctx instanceof SmallPearlParser.GtRelationalExpressionContext ) {
+            operator = ">";
+        } else if ( ctx instanceof SmallPearlParser.GeRelationalExpressionContext ) {
+            operator = ">=";
+        } else {
+            return null;
+        }
+
+        for ( int i = 0; i < 2; i++ ) {
+            ExpressionResult op = m_expressionTypeVisitor.lookup((SmallPearlParser.ExpressionContext) ctx.getChild(2 * i));
+
+            if ( op == null || !(op.getType() instanceof TypeFixed || op.getType() instanceof TypeFloat) ) {
+                return null;
+            }
+        }
+
+        return operator;
+    }
+
     @Override
     public ST visitElse_block(SmallPearlParser.Else_blockContext ctx) {
         ST statement = m_group.getInstanceOf("statement");
@@ -2004,22 +2076,26 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
     public ST visitAssignment_statement(SmallPearlParser.Assignment_statementContext ctx) {
         ST stmt = null;
         String id = null;
+        TerminalNode idNode = null;
 
         if ( ctx.ID() != null ) {
+            idNode = ctx.ID();
             id = ctx.ID().getText();
         } else if ( ctx.stringSelection() != null ) {
             if ( ctx.stringSelection().charSelection() != null ) {
+                idNode = ctx.stringSelection().charSelection().ID();
                 id = ctx.stringSelection().charSelection().ID().getText();
             }
             else if ( ctx.stringSelection().bitSelection() != null ) {
+                idNode = ctx.stringSelection().bitSelection().ID();
                 id = ctx.stringSelection().bitSelection().ID().getText();
             }
         }
 
-        SymbolTableEntry entry = m_currentSymbolTable.lookup(id);
+        SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(idNode);
 
         if ( entry == null ) {
-            m_currentSymbolTable.dump();
+            m_symbolTableVisitor.getEnclosingSymbolTable(ctx).dump();
             throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
         }
 
@@ -2096,17 +2172,22 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
             else {
                 if ( lhs_type instanceof TypeArray) {
                     ST st = m_group.getInstanceOf("assignment_statement");
-                    ST array = m_group.getInstanceOf("ArrayLHS");
+                    ST array = getUncheckedArrayElement(variable, ctx.indices().expression());
+
+                    if ( array == null ) {
+                        array = m_group.getInstanceOf("ArrayLHS");
 
-                    ArrayDescriptor array_descriptor = new ArrayDescriptor(((TypeArray)lhs_type).getNoOfDimensions(),((TypeArray)lhs_type).getDimensions());
+                        ArrayDescriptor array_descriptor = new ArrayDescriptor(((TypeArray)lhs_type).getNoOfDimensions(),((TypeArray)lhs_type).getDimensions());
 
-                    array.add("name", variable.getName());
-                    array.add("descriptor", array_descriptor.getName());
+                        array.add("name", variable.getName());
+                        array.add("descriptor", array_descriptor.getName());
 
-                    ST indices = m_group.getInstanceOf("ArrayIndices");
+                        ST indices = m_group.getInstanceOf("ArrayIndices");
+
+                        indices.add("indices",visitIndices(ctx.indices()));
+                        array.add("indices", indices);
+                    }
 
-                    indices.add("indices",visitIndices(ctx.indices()));
-                    array.add("indices", indices);
                     st.add("lhs", array);
                     st.add("rhs", getExpression(ctx.expression()));
                     stmt = st;
@@ -2259,7 +2340,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
                 expression.add("code", visitLiteral(ctx.literal()));
 //            }
         } else if (ctx.ID() != null) {
-            SymbolTableEntry entry = m_currentSymbolTable.lookup(ctx.ID().getText());
+            SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.ID());
 
             if ( entry instanceof org.smallpearl.compiler.SymbolTable.ProcedureEntry ) {
                 ST functionCall = m_group.getInstanceOf("FunctionCall");
@@ -2279,13 +2360,17 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
                     expression.add("id", getUserVariable(ctx.ID().getText()));
                 }
                 else if ( variable.getType() instanceof TypeArray ) {
-                    ST array = m_group.getInstanceOf("ArrayLHS");
+                    ST array = getUncheckedArrayElement(variable, ctx.expression());
 
-                    TypeArray type = (TypeArray) variable.getType();
-                    ArrayDescriptor array_descriptor = new ArrayDescriptor(type.getNoOfDimensions(),type.getDimensions());
-                    array.add("name", variable.getName());
-                    array.add("descriptor", array_descriptor.getName());
-                    array.add("indices", getIndices(ctx.expression()));
+                    if ( array == null ) {
+                        array = m_group.getInstanceOf("ArrayLHS");
+
+                        TypeArray type = (TypeArray) variable.getType();
+                        ArrayDescriptor array_descriptor = new ArrayDescriptor(type.getNoOfDimensions(),type.getDimensions());
+                        array.add("name", variable.getName());
+                        array.add("descriptor", array_descriptor.getName());
+                        array.add("indices", getIndices(ctx.expression()));
+                    }
 
                     expression.add("id", array);
                 }
@@ -2376,6 +2461,16 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitAdditiveExpression(SmallPearlParser.AdditiveExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
+        if (isUncheckedFixed(ctx)) {
+            return getUncheckedFixed(ctx);
+        }
+
         ST expr = m_group.getInstanceOf("expression");
 
         expr.add("code", visit(ctx.expression(0)));
@@ -2387,6 +2482,16 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitSubtractiveExpression(SmallPearlParser.SubtractiveExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
+        if (isUncheckedFixed(ctx)) {
+            return getUncheckedFixed(ctx);
+        }
+
         ST expr = m_group.getInstanceOf("expression");
 
         expr.add("code", visit(ctx.expression(0)));
@@ -2398,6 +2503,16 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitMultiplicativeExpression(SmallPearlParser.MultiplicativeExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
+        if (isUncheckedFixed(ctx)) {
+            return getUncheckedFixed(ctx);
+        }
+
         ST expr = m_group.getInstanceOf("expression");
 
         expr.add("code", visit(ctx.expression(0)));
@@ -2409,6 +2524,12 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitDivideExpression(SmallPearlParser.DivideExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
         ST expr = m_group.getInstanceOf("expression");
 
         expr.add("code", visit(ctx.expression(0)));
@@ -2420,6 +2541,16 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitDivideIntegerExpression(SmallPearlParser.DivideIntegerExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
+        if (isUncheckedFixed(ctx)) {
+            return getUncheckedFixed(ctx);
+        }
+
         ST expr = m_group.getInstanceOf("expression");
 
         expr.add("code", visit(ctx.expression(0)));
@@ -2429,6 +2560,108 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         return expr;
     }
 
+    /**
+     * Get the constant pool entry of an expression, which was evaluated
+     * by the ConstantFoldingVisitor
+     *
+     * @param ctx the expression
+     * @return the literal referring to the pool entry; null, if the
+     *         expression is not folded or literals are not mapped to the
+     *         constant pool
+     */
+    private ST getFoldedConstant(SmallPearlParser.ExpressionContext ctx) {
+        ConstantValue value = m_constantFoldingVisitor.lookup(ctx);
+
+        if (!m_map_to_const || value == null) {
+            return null;
+        }
+
+        ST literal = m_group.getInstanceOf("literal");
+
+        if (value instanceof ConstantFixedValue) {
+            literal.add("integer", value);
+        } else if (value instanceof ConstantFloatValue) {
+            literal.add("float", value);
+        } else if (value instanceof ConstantCharacterValue) {
+            literal.add("string", value);
+        } else if (value instanceof ConstantBitValue) {
+            literal.add("bitstring", value);
+        } else if (value instanceof ConstantDurationValue) {
+            literal.add("duration", value);
+        } else if (value instanceof ConstantClockValue) {
+            literal.add("time", value);
+        }
+
+        return literal;
+    }
+
+    /**
+     * Check if a FIXED operation may be generated without the overflow
+     * checks of the runtime operators
+     *
+     * Literals are not mapped to the constant pool in loop boundaries;
+     * these expressions are left to the runtime operators.
+     *
+     * @param ctx the arithmetic expression
+     * @return true, if the value range analysis proved, that the operation
+     *         can not overflow
+     */
+    private boolean isUncheckedFixed(SmallPearlParser.ExpressionContext ctx) {
+        return m_map_to_const && m_valueRangeVisitor.isOverflowFree(ctx);
+    }
+
+    /**
+     * Generate an overflow free FIXED operation on the native values of
+     * the operands. The result is converted to pearlrt::Fixed once for
+     * the whole overflow free subexpression.
+     *
+     * @param ctx the arithmetic expression
+     * @return the code of the expression of type pearlrt::Fixed
+     */
+    private ST getUncheckedFixed(SmallPearlParser.ExpressionContext ctx) {
+        ST st = m_group.getInstanceOf("UncheckedFixed");
+        st.add("precision", m_valueRangeVisitor.getPrecision(ctx));
+        st.add("value", getNativeFixed(ctx));
+        return st;
+    }
+
+    private ST getNativeFixed(SmallPearlParser.ExpressionContext ctx) {
+        SmallPearlParser.ExpressionContext lhs = null;
+        SmallPearlParser.ExpressionContext rhs = null;
+        String operator = null;
+
+        if (m_constantFoldingVisitor.lookup(ctx) != null) {
+            // the folded value is taken from the constant pool
+        } else if (ctx instanceof SmallPearlParser.AdditiveExpressionContext) {
+            operator = "+";
+        } else if (ctx instanceof SmallPearlParser.SubtractiveExpressionContext) {
+            operator = "-";
+        } else if (ctx instanceof SmallPearlParser.MultiplicativeExpressionContext) {
+            operator = "*";
+        } else if (ctx instanceof SmallPearlParser.DivideIntegerExpressionContext) {
+            operator = "/";
+        } else if (ctx instanceof SmallPearlParser.BaseExpressionContext) {
+            SmallPearlParser.PrimaryExpressionContext primary = ((SmallPearlParser.BaseExpressionContext) ctx).primaryExpression();
+
+            if (primary != null && primary.ID() == null && primary.expression().size() == 1 &&
+                m_valueRangeVisitor.isOverflowFree(primary.expression(0))) {
+                return getNativeFixed(primary.expression(0));
+            }
+        }
+
+        if (operator != null && m_valueRangeVisitor.isOverflowFree(ctx)) {
+            ST st = m_group.getInstanceOf("NativeFixedOperation");
+            st.add("lhs", getNativeFixed((SmallPearlParser.ExpressionContext) ctx.getChild(0)));
+            st.add("operator", operator);
+            st.add("rhs", getNativeFixed((SmallPearlParser.ExpressionContext) ctx.getChild(2)));
+            return st;
+        }
+
+        ST st = m_group.getInstanceOf("NativeFixedValue");
+        st.add("value", visit(ctx));
+        return st;
+    }
+
     @Override
     public ST visitUnaryExpression(SmallPearlParser.UnaryExpressionContext ctx) {
         ST st = m_group.getInstanceOf("expression");
@@ -2449,6 +2682,12 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitUnarySubtractiveExpression(SmallPearlParser.UnarySubtractiveExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
         ST expr = m_group.getInstanceOf("expression");
 
         if (ctx.getChild(1) instanceof SmallPearlParser.BaseExpressionContext) {
@@ -2463,7 +2702,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
                     if (literal_ctx.floatingPointConstant() != null) {
                         try {
                             double value = -1 * Double.parseDouble(literal_ctx.floatingPointConstant().FloatingPointNumberWithoutPrecision().toString());
-                            int precision = m_currentSymbolTable.lookupDefaultFloatLength();
+                            int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFloatLength();
                             ConstantFloatValue float_value = new ConstantFloatValue(value,precision);
                             expr.add("code", float_value);
                         } catch (NumberFormatException ex) {
@@ -2473,7 +2712,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
                     else if (literal_ctx.fixedConstant() != null) {
                         try {
                             int value = 0;
-                            int precision = m_currentSymbolTable.lookupDefaultFixedLength();
+                            int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFixedLength();
 
                             if ( literal_ctx.fixedConstant().fixedNumberPrecision() != null) {
                                 precision = Integer.parseInt(literal_ctx.fixedConstant().fixedNumberPrecision().IntegerConstant().toString());
@@ -2515,6 +2754,12 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitNotExpression(SmallPearlParser.NotExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
         TypeDefinition typ = m_expressionTypeVisitor.lookupType(ctx);
         ST expr = null;
 
@@ -2533,6 +2778,12 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitAndExpression(SmallPearlParser.AndExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
         TypeDefinition typ = m_expressionTypeVisitor.lookupType(ctx);
         ST expr = null;
 
@@ -2551,6 +2802,12 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitOrExpression(SmallPearlParser.OrExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
         TypeDefinition typ = m_expressionTypeVisitor.lookupType(ctx);
         ST expr = null;
 
@@ -2569,6 +2826,12 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitExorExpression(SmallPearlParser.ExorExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
         TypeDefinition typ = m_expressionTypeVisitor.lookupType(ctx);
         ST expr = null;
 
@@ -2607,6 +2870,12 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitCatExpression(SmallPearlParser.CatExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
         ST st;
 
         TypeDefinition resultType = m_expressionTypeVisitor.lookupType(ctx);
@@ -2637,7 +2906,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
         if (ctx.durationConstant() != null) {
             ConstantDurationValue duration = getConstantDurationValue(ctx.durationConstant());
-            ConstantDurationValue constDuration = ConstantPool.lookupDurationValue(duration.getHours(),duration.getMinutes(),duration.getSeconds());
+            ConstantDurationValue constDuration = m_constantPool.lookupDurationValue(duration.getHours(),duration.getMinutes(),duration.getSeconds());
 
             if (constDuration != null) {
                 literal.add("duration", constDuration);
@@ -2647,8 +2916,8 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         } else if (ctx.floatingPointConstant() != null) {
             try {
                 Double value = Double.parseDouble(ctx.floatingPointConstant().FloatingPointNumberWithoutPrecision().toString());
-                int precision = m_currentSymbolTable.lookupDefaultFloatLength();
-                ConstantFloatValue constFloat = ConstantPool.lookupFloatValue(value,precision);
+                int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFloatLength();
+                ConstantFloatValue constFloat = m_constantPool.lookupFloatValue(value,precision);
 
                 if (constFloat != null) {
                     literal.add("float", constFloat);
@@ -2664,7 +2933,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
             String s = ctx.StringLiteral().getText();
             s = CommonUtils.remopveQuotes(s);
             ST constantCharacterValue = m_group.getInstanceOf("ConstantCharacterValue");
-            ConstantCharacterValue value = ConstantPool.lookupCharacterValue(s);
+            ConstantCharacterValue value = m_constantPool.lookupCharacterValue(s);
 
             if (value != null) {
                 literal.add("string", value);
@@ -2675,7 +2944,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
             String s = ctx.BitStringLiteral().getText();
             long value = CommonUtils.convertBitStringToLong(ctx.BitStringLiteral().getText());
             int  nb = CommonUtils.getBitStringLength(ctx.BitStringLiteral().getText());
-            ConstantBitValue bitStr = ConstantPool.lookupBitValue(value,nb);
+            ConstantBitValue bitStr = m_constantPool.lookupBitValue(value,nb);
 
             if (bitStr != null) {
                 literal.add("bitstring", bitStr);
@@ -2685,7 +2954,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         } else if (ctx.fixedConstant() != null) {
             try {
                 int value;
-                int precision = m_currentSymbolTable.lookupDefaultFixedLength();
+                int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFixedLength();
 
                 if ( ctx.fixedConstant().fixedNumberPrecision() != null) {
                     precision = Integer.parseInt(ctx.fixedConstant().fixedNumberPrecision().IntegerConstant().toString());
@@ -3035,26 +3304,26 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         if (ctx.open_parameterlist() != null) {
             stmt.add("paramlist", visitOpen_parameterlist(ctx.open_parameterlist()));
 
-            ArrayList<String> idfFilenames = getIdfFilenames(ctx.open_parameterlist());
+            ArrayList<SmallPearlParser.Open_parameter_idfContext> idfParameters = getIdfParameters(ctx.open_parameterlist());
 
-            if (idfFilenames.size() > 1) {
+            if (idfParameters.size() > 1) {
                 throw new NotSupportedFeatureException("open_statement", ctx.start.getLine(), ctx.start.getCharPositionInLine(), "OPEN: Mulitple IDF not supported");
             }
 
-            if (idfFilenames.size() == 1) {
-                String fname = idfFilenames.get(0).toString();
-//                fname = fname.substring(1, fname.length() - 1);
+            if (idfParameters.size() == 1) {
+                SmallPearlParser.Open_parameter_idfContext idf = idfParameters.get(0);
 
                 ST declFilename = m_group.getInstanceOf("declare_idf_filename");
                 ST refFilename = m_group.getInstanceOf("reference_idf_filename");
 
-                SymbolTableEntry entry = m_currentSymbolTable.lookup(fname);
-
-                if ( entry instanceof VariableEntry ) {
+                if ( idf.ID() != null ) {
+                    String fname = idf.ID().toString();
                     declFilename.add("variable",fname);
                     refFilename.add("variable",fname);
                 }
                 else {
+                    String fname = idf.StringLiteral().toString();
+                    fname = fname.substring(1, fname.length() - 1);
                     declFilename.add("stringConstant",fname);
                     declFilename.add("lengthOfStringConstant", fname.length());
                     refFilename.add("stringConstant",fname);
@@ -3081,33 +3350,29 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         return stmt;
     }
 
-    private ArrayList<String> getIdfFilenames(SmallPearlParser.Open_parameterlistContext ctx) {
-        ArrayList<String> filenames = new ArrayList<String>();
+    private ArrayList<SmallPearlParser.Open_parameter_idfContext> getIdfParameters(SmallPearlParser.Open_parameterlistContext ctx) {
+        ArrayList<SmallPearlParser.Open_parameter_idfContext> parameters = new ArrayList<SmallPearlParser.Open_parameter_idfContext>();
 
         if (ctx != null) {
             for (int i = 0; i < ctx.open_parameter().size(); i++) {
                 if (ctx.open_parameter(i) instanceof SmallPearlParser.Open_parameter_idfContext) {
                     SmallPearlParser.Open_parameter_idfContext c = (SmallPearlParser.Open_parameter_idfContext) ctx.open_parameter(i);
 
-                    if (c.StringLiteral() != null) {
-                        String quoteless = c.StringLiteral().toString().subSequence(1, c.StringLiteral().toString().length() - 1).toString();
-                        filenames.add(quoteless);
-                    } else if (c.ID() != null) {
-                        SymbolTableEntry entry = m_currentSymbolTable.lookup(c.ID().getText());
+                    if (c.ID() != null) {
+                        SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(c.ID());
 
                         if ( !(entry instanceof VariableEntry )) {
                             throw new UnknownIdentifierException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
                         }
-
-
-                        filenames.add(c.ID().toString());
                     }
+
+                    parameters.add(c);
                 }
 
             }
         }
 
-        return filenames;
+        return parameters;
     }
 
     private ArrayList<String> getOpenRstVariables(SmallPearlParser.Open_parameterlistContext ctx) {
@@ -4297,6 +4562,106 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         return stmt;
     }
 
+    /**
+     * Generate the access to an array element without the index check of
+     * the runtime
+     *
+     * This is possible, if the value range analysis proved, that all
+     * indices are within the boundaries of their dimension; e.g. the
+     * control variable of a loop, which runs over the dimension.
+     * The offset of the element is calculated on the native index values.
+     * Indices, which are literals or constants, are folded into a
+     * constant part of the offset.
+     *
+     * @param variable the array variable
+     * @param indices the index expressions
+     * @return the code of the element; null, if the indices must be
+     *         checked at runtime
+     */
+    private ST getUncheckedArrayElement(VariableEntry variable,
+                                        List<SmallPearlParser.ExpressionContext> indices) {
+        TypeArray type = (TypeArray) variable.getType();
+        ArrayDescriptor array_descriptor = new ArrayDescriptor(type.getNoOfDimensions(),type.getDimensions());
+        ArrayList<ArrayDimension> dimensions = array_descriptor.getDimensions();
+
+        if ( !m_map_to_const || indices == null || indices.size() != dimensions.size()) {
+            return null;
+        }
+
+        ST offset = m_group.getInstanceOf("ArrayOffset");
+        long constantOffset = 0;
+        boolean hasTerms = false;
+
+        for (int i = 0; i < indices.size(); i++) {
+            ArrayDimension dimension = dimensions.get(i);
+            ValueRange range = m_valueRangeVisitor.lookup(indices.get(i));
+
+            if ( range == null ||
+                 !range.isContainedIn(new ValueRange(dimension.getLowerBoundary(), dimension.getUpperBoundary()))) {
+                return null;
+            }
+
+            int size = array_descriptor.getNoOfElemenstOnNextSubArray(i);
+            constantOffset -= (long)dimension.getLowerBoundary() * size;
+
+            if ( range.getLowerBoundary() == range.getUpperBoundary() && isConstantIndex(indices.get(i))) {
+                constantOffset += range.getLowerBoundary() * size;
+            } else {
+                ST term = m_group.getInstanceOf("ArrayOffsetTerm");
+                term.add("index", getNativeFixed(indices.get(i)));
+
+                if ( size != 1) {
+                    term.add("size", size);
+                }
+
+                offset.add("terms", term);
+                hasTerms = true;
+            }
+        }
+
+        ST element = m_group.getInstanceOf("ArrayElement");
+        element.add("name", variable.getName());
+
+        if ( !hasTerms) {
+            element.add("offset", constantOffset);
+        } else {
+            if ( constantOffset < 0) {
+                offset.add("operator", "-");
+                offset.add("constant", -constantOffset);
+            } else if ( constantOffset > 0) {
+                offset.add("operator", "+");
+                offset.add("constant", constantOffset);
+            }
+
+            element.add("offset", offset);
+        }
+
+        return element;
+    }
+
+    /**
+     * check if an array index is a literal or the name of a constant;
+     * the value of these indices may be used instead of the expression
+     * without loosing any side effect
+     */
+    private boolean isConstantIndex(SmallPearlParser.ExpressionContext ctx) {
+        if ( ctx instanceof SmallPearlParser.BaseExpressionContext) {
+            SmallPearlParser.PrimaryExpressionContext primary = ((SmallPearlParser.BaseExpressionContext) ctx).primaryExpression();
+
+            if ( primary != null) {
+                if ( primary.literal() != null) {
+                    return true;
+                }
+
+                if ( primary.ID() != null && primary.expression().isEmpty()) {
+                    return m_symbolTableVisitor.getEntryPerIdentifier(primary.ID()) instanceof VariableEntry;
+                }
+            }
+        }
+
+        return false;
+    }
+
     private ST getIndices(List<SmallPearlParser.ExpressionContext> indices) {
         ST st = m_group.getInstanceOf("ArrayIndices");
 
@@ -4405,6 +4770,12 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
 
     @Override
     public ST visitRemainderExpression(SmallPearlParser.RemainderExpressionContext ctx) {
+        ST folded = getFoldedConstant(ctx);
+
+        if (folded != null) {
+            return folded;
+        }
+
         ST st = m_group.getInstanceOf("REM");
         st.add("lhs", visit(ctx.expression(0)));
         st.add("rhs", visit(ctx.expression(1)));
@@ -4800,8 +5171,6 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
     public ST visitBlock_statement(SmallPearlParser.Block_statementContext ctx) {
         ST st = m_group.getInstanceOf("block_statement");
 
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-
         for (ParseTree c : ctx.children) {
             if ( c instanceof SmallPearlParser.ScalarVariableDeclarationContext ) {
                 st.add("code", visitScalarVariableDeclaration((SmallPearlParser.ScalarVariableDeclarationContext)c));
@@ -4814,11 +5183,92 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
             }
         }
 
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-
         return st;
     }
 
+    /**
+     * Determine the C++ type of a native loop counter
+     *
+     * The loop counter, the end value, the step and the difference of end
+     * value and step must fit into the native type. The ranges are taken
+     * from the value range analysis. Loops without TO count until the
+     * counter overflows and keep the pearlrt::Fixed counter.
+     *
+     * @param ctx the loop statement
+     * @return "int32_t" or "int64_t"; null if the counter may overflow
+     */
+    private String getLoopCounterNativeType(SmallPearlParser.LoopStatementContext ctx) {
+        if ( ctx.loopStatement_to() == null ) {
+            return null;
+        }
+
+        ValueRange from = new ValueRange(1, 1);
+        ValueRange to = m_valueRangeVisitor.lookup(ctx.loopStatement_to().expression());
+        ValueRange by = new ValueRange(1, 1);
+
+        if ( ctx.loopStatement_from() != null ) {
+            from = m_valueRangeVisitor.lookup(ctx.loopStatement_from().expression());
+        }
+
+        if ( ctx.loopStatement_by() != null ) {
+            by = m_valueRangeVisitor.lookup(ctx.loopStatement_by().expression());
+        }
+
+        if ( from == null || to == null || by == null ) {
+            return null;
+        }
+
+        ValueRange limit = to.subtract(by);
+
+        if ( limit == null ) {
+            return null;
+        }
+
+        ValueRange counter = from.union(to).union(by).union(limit);
+
+        if ( counter.isContainedIn(ValueRange.ofFixed(31)) ) {
+            return "int32_t";
+        }
+
+        return "int64_t";
+    }
+
+    /**
+     * Check if the body of a loop reads the control variable
+     *
+     * C++ inline code may refer to the variable by its C++ name; it is
+     * treated as reading the variable.
+     *
+     * @param ctx the loop statement with FOR
+     * @return true, if the control variable is used in the loop body
+     */
+    private boolean isLoopControlVariableRead(SmallPearlParser.LoopStatementContext ctx) {
+        TerminalNode id = ctx.loopStatement_for().ID();
+        SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(id);
+
+        for (TerminalNode node : m_symbolTableVisitor.getIdentifiersPerEntry(entry)) {
+            if ( node != id ) {
+                return true;
+            }
+        }
+
+        return containsCppInline(ctx);
+    }
+
+    private boolean containsCppInline(ParseTree tree) {
+        if ( tree instanceof SmallPearlParser.Cpp_inlineContext ) {
+            return true;
+        }
+
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            if ( containsCppInline(tree.getChild(i)) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public ST visitLoopStatement(SmallPearlParser.LoopStatementContext ctx) {
         ST st = m_group.getInstanceOf("LoopStatement");
@@ -4828,12 +5278,18 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         Integer rangePrecision = 31;
         Boolean loopCounterNeeded = false;
 
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-
         st.add("srcLine", ctx.start.getLine());
 
+        String nativeType = getLoopCounterNativeType(ctx);
+
+        if ( nativeType != null ) {
+            st.add("nativeType", nativeType);
+        }
+
         if ( ctx.loopStatement_for() != null) {
-            st.add( "variable", ctx.loopStatement_for().ID().toString());
+            if ( nativeType == null || isLoopControlVariableRead(ctx) ) {
+                st.add( "variable", ctx.loopStatement_for().ID().toString());
+            }
             loopCounterNeeded = true;
         }
 
@@ -4891,13 +5347,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         }
 
         if ( ctx.loopStatement_while() != null && ctx.loopStatement_while().expression() != null) {
-            ST wc = getExpression(ctx.loopStatement_while().expression());
-            String s = wc.toString();
-            if ( wc.toString().length() > 0 ) {
-                ST cast = m_group.getInstanceOf("CastBitToBoolean");
-                cast.add("name", wc);
-                st.add("while_cond", cast);
-            }
+            st.add("while_cond", getCondition(ctx.loopStatement_while().expression()));
         }
 
         for (int i = 0; i < ctx.scalarVariableDeclaration().size(); i++) {
@@ -4924,8 +5374,6 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
             st.add( "GenerateLoopCounter", 1);
         }
 
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-
         return st;
     }
 
@@ -4945,8 +5393,6 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         ST st = m_group.getInstanceOf("ProcedureDeclaration");
         st.add("id", ctx.ID().getText());
 
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-
         for (ParseTree c : ctx.children) {
             if (c instanceof SmallPearlParser.ProcedureBodyContext) {
                 st.add("body", visitProcedureBody((SmallPearlParser.ProcedureBodyContext) c));
@@ -4962,7 +5408,6 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
             }
         }
 
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
         return st;
     }
 
@@ -5211,7 +5656,7 @@ public class CppCodeGeneratorVisitor extends SmallPearlBaseVisitor<ST> implement
         ST declarations = m_group.getInstanceOf("ArrayVariableDeclarations");
 
         for (int i = 0; i < ctx.ID().size(); i++) {
-            SymbolTableEntry entry = m_currentSymbolTable.lookup(ctx.ID().get(i).toString());
+            SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.ID(i));
 
             if ( entry == null || !(entry instanceof VariableEntry)) {
                 throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
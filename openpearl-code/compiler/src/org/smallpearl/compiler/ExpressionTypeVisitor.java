@@ -30,10 +30,16 @@
 package org.smallpearl.compiler;
 
 import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeProperty;
+import org.antlr.v4.runtime.tree.TerminalNode;
 import org.smallpearl.compiler.SymbolTable.*;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 public  class ExpressionTypeVisitor extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
 
@@ -41,7 +47,6 @@ public  class ExpressionTypeVisitor extends SmallPearlBaseVisitor<Void> implemen
     private boolean m_debug;
     private SymbolTableVisitor m_symbolTableVisitor;
     private org.smallpearl.compiler.SymbolTable.SymbolTable m_symboltable;
-    private org.smallpearl.compiler.SymbolTable.SymbolTable m_currentSymbolTable;
     private org.smallpearl.compiler.SymbolTable.ModuleEntry m_module;
     private ParseTreeProperty<ExpressionResult> m_properties = null;
     private Integer m_currFixedLength = null;
@@ -63,14 +68,13 @@ public  class ExpressionTypeVisitor extends SmallPearlBaseVisitor<Void> implemen
             System.out.println("Semantic Check: Enabled debugging information");
         }
 
-        LinkedList<ModuleEntry> listOfModules = this.m_symboltable.getModules();
+        List<ModuleEntry> listOfModules = this.m_symboltable.getModules();
 
         if (listOfModules.size() > 1) {
             throw new NotYetImplementedException("Multiple modules", 0, 0);
         }
 
         m_module = listOfModules.get(0);
-        m_currentSymbolTable = m_module.scope;
         m_properties = new ParseTreeProperty<ExpressionResult>();
         m_calculateRealFixedLength = false;
     }
@@ -83,6 +87,86 @@ public  class ExpressionTypeVisitor extends SmallPearlBaseVisitor<Void> implemen
         return m_properties.get(ctx);
     }
 
+    /**
+     * determine the types again after the given declarations were changed
+     *
+     * Only the statements which use one of the declarations are visited
+     * again. If a use is not part of a statement, the whole tree is visited.
+     *
+     * @param tree the parse tree of the module
+     * @param changedEntries the declarations whose types were changed
+     */
+    public Void retype(ParserRuleContext tree, Collection<SymbolTableEntry> changedEntries) {
+        Set<ParserRuleContext> statements = new LinkedHashSet<ParserRuleContext>();
+
+        for (SymbolTableEntry entry : changedEntries) {
+            for (TerminalNode id : m_symbolTableVisitor.getIdentifiersPerEntry(entry)) {
+                ParserRuleContext statement = getEnclosingStatement(id);
+
+                if (statement == null) {
+                    visit(tree);
+                    return null;
+                }
+
+                statements.add(statement);
+            }
+        }
+
+        for (ParserRuleContext statement : statements) {
+            if (!isNestedIn(statement, statements)) {
+                visit(statement);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * compare the types of all expressions with the types determined by
+     * another visitor
+     *
+     * @param tree the parse tree of the module
+     * @param other the visitor which typed the same tree
+     * @return the expressions with different types
+     */
+    public List<ParserRuleContext> compare(ParserRuleContext tree, ExpressionTypeVisitor other) {
+        List<ParserRuleContext> differences = new ArrayList<ParserRuleContext>();
+        compare(tree, other, differences);
+        return differences;
+    }
+
+    private void compare(ParserRuleContext ctx, ExpressionTypeVisitor other, List<ParserRuleContext> differences) {
+        if (!String.valueOf(lookup(ctx)).equals(String.valueOf(other.lookup(ctx)))) {
+            differences.add(ctx);
+        }
+
+        for (int i = 0; i < ctx.getChildCount(); i++) {
+            if (ctx.getChild(i) instanceof ParserRuleContext) {
+                compare((ParserRuleContext) ctx.getChild(i), other, differences);
+            }
+        }
+    }
+
+    private ParserRuleContext getEnclosingStatement(ParseTree node) {
+        for (ParseTree p = node.getParent(); p != null; p = p.getParent()) {
+            if (p instanceof SmallPearlParser.StatementContext) {
+                return (ParserRuleContext) p;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isNestedIn(ParserRuleContext ctx, Set<ParserRuleContext> statements) {
+        for (ParseTree p = ctx.getParent(); p != null; p = p.getParent()) {
+            if (statements.contains(p)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public Void visitBaseExpression(SmallPearlParser.BaseExpressionContext ctx) {
         if (m_debug)
@@ -118,7 +202,7 @@ public  class ExpressionTypeVisitor extends SmallPearlBaseVisitor<Void> implemen
                 throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
             }
         } else if (ctx.ID() != null) {
-            SymbolTableEntry entry = m_currentSymbolTable.lookup(ctx.ID().getText());
+            SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.ID());
 
             if ( entry == null ) {
                 throw  new UnknownIdentifierException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -130,6 +214,12 @@ public  class ExpressionTypeVisitor extends SmallPearlBaseVisitor<Void> implemen
                 VariableEntry variable = (VariableEntry) entry;
 
                 if ( variable.getType() instanceof TypeArray ) {
+                    // the types of the indices are required for the
+                    // range check of the indices
+                    for (int i = 0; i < ctx.expression().size(); i++) {
+                        visit(ctx.expression(i));
+                    }
+
                     expressionResult = new ExpressionResult(((TypeArray) variable.getType()).getBaseType(), variable.getAssigmentProtection(), variable);
                 }
                 else {
@@ -1499,7 +1589,7 @@ public  class ExpressionTypeVisitor extends SmallPearlBaseVisitor<Void> implemen
             m_properties.put(ctx, expressionResult);
         } else if (ctx.fixedConstant() != null) {
             try {
-                int precision = m_currentSymbolTable.lookupDefaultFixedLength();
+                int precision = m_symbolTableVisitor.getEnclosingSymbolTable(ctx).lookupDefaultFixedLength();
 
                 if ( ctx.fixedConstant().fixedNumberPrecision() != null) {
                     precision = Integer.parseInt(ctx.fixedConstant().fixedNumberPrecision().IntegerConstant().toString());
@@ -1552,93 +1642,6 @@ public  class ExpressionTypeVisitor extends SmallPearlBaseVisitor<Void> implemen
     }
 
 
-    @Override
-    public Void visitModule(SmallPearlParser.ModuleContext ctx) {
-        if (m_verbose > 0) {
-            System.out.println("SymbolTableVisitor: visitModule");
-        }
-
-//        this.m_currentSymbolTable = this.symbolTable.newLevel(moduleEntry);
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-
-    @Override
-    public Void visitTaskDeclaration(SmallPearlParser.TaskDeclarationContext ctx) {
-        if (m_verbose > 0) {
-            System.out.println("ExpressionTypeVisitor: vistTaskDeclaration");
-        }
-
-        SymbolTableEntry entry = this.m_currentSymbolTable.lookupLocal(ctx.ID().getText());
-
-        if (entry != null) {
-            if (entry instanceof TaskEntry) {
-                m_currentSymbolTable = ((TaskEntry) entry).scope;
-                visitChildren(ctx);
-                this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-            } else {
-                throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
-            }
-        } else {
-            throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
-        }
-
-        return null;
-    }
-
-    @Override
-    public Void visitProcedureDeclaration(SmallPearlParser.ProcedureDeclarationContext ctx) {
-        if (m_verbose > 0) {
-            System.out.println("ExpressionTypeVisitor: visitProcedureDeclaration");
-        }
-
-        SymbolTableEntry entry = this.m_currentSymbolTable.lookupLocal(ctx.ID().getText());
-
-        if (entry != null) {
-            if (entry instanceof ProcedureEntry) {
-                m_currentSymbolTable = ((ProcedureEntry) entry).scope;
-
-                visitChildren(ctx);
-                this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-            } else {
-                throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
-            }
-        } else {
-            throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
-        }
-
-        return null;
-    }
-
-    @Override
-    public Void visitBlock_statement(SmallPearlParser.Block_statementContext ctx) {
-        if (m_verbose > 0) {
-            System.out.println("ExpressionTypeVisitor: visitBlock_statement");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitLoopStatement(SmallPearlParser.LoopStatementContext ctx) {
-        if (m_verbose > 0) {
-            System.out.println("ExpressionTypeVisitor: visitLoopStatement");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-
-        visitChildren(ctx);
-
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
     @Override
     public Void visitLoopStatement_from(SmallPearlParser.LoopStatement_fromContext ctx) {
         if (m_verbose > 0) {
@@ -1681,24 +1684,28 @@ public  class ExpressionTypeVisitor extends SmallPearlBaseVisitor<Void> implemen
     @Override
     public Void visitAssignment_statement(SmallPearlParser.Assignment_statementContext ctx) {
         String id = null;
+        TerminalNode idNode = null;
 
         if (m_verbose > 0) {
             System.out.println("ExpressionTypeVisitor: visitAssignment_statement");
         }
         if ( ctx.stringSelection() != null ) {
             if (ctx.stringSelection().charSelection() != null) {
+                idNode = ctx.stringSelection().charSelection().ID();
                 id = ctx.stringSelection().charSelection().ID().getText();
             }
             else  if (ctx.stringSelection().bitSelection() != null) {
+                idNode = ctx.stringSelection().bitSelection().ID();
                 id = ctx.stringSelection().bitSelection().ID().getText();
             } else {
                 throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
             }
         } else {
+            idNode = ctx.ID();
             id = ctx.ID().getText();
         }
 
-        SymbolTableEntry entry = m_currentSymbolTable.lookup(id);
+        SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(idNode);
         if (!(entry instanceof VariableEntry)) {
             throw  new UnknownIdentifierException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
         }
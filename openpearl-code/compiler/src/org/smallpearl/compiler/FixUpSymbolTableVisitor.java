@@ -33,7 +33,9 @@ import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.ParseTreeProperty;
 import org.smallpearl.compiler.SymbolTable.*;
 
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 public  class FixUpSymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
 
@@ -46,6 +48,7 @@ public  class FixUpSymbolTableVisitor extends SmallPearlBaseVisitor<Void> implem
     private ConstantPoolVisitor m_constantPoolVisitor;
     private ModuleEntry m_module;
     private ParseTreeProperty<ExpressionResult> m_properties = null;
+    private Set<SymbolTableEntry> m_changedEntries = null;
 
     public FixUpSymbolTableVisitor(int verbose,
                                    boolean debug,
@@ -62,7 +65,7 @@ public  class FixUpSymbolTableVisitor extends SmallPearlBaseVisitor<Void> implem
         m_expressionTypeVisitor = expressionTypeVisitor;
         m_constantPoolVisitor  = constantPoolVisitor;
 
-        LinkedList<ModuleEntry> listOfModules = this.m_symboltable.getModules();
+        List<ModuleEntry> listOfModules = this.m_symboltable.getModules();
 
         if (listOfModules.size() > 1) {
             throw new NotYetImplementedException("Multiple modules", 0, 0);
@@ -71,6 +74,17 @@ public  class FixUpSymbolTableVisitor extends SmallPearlBaseVisitor<Void> implem
         m_module = listOfModules.get(0);
         m_currentSymbolTable = m_module.scope;
         m_properties = new ParseTreeProperty<ExpressionResult>();
+        m_changedEntries = new LinkedHashSet<SymbolTableEntry>();
+    }
+
+    /**
+     * get the declarations whose type was changed by this visitor
+     *
+     * The types of all expressions which use these declarations must be
+     * determined again.
+     */
+    public Set<SymbolTableEntry> getChangedEntries() {
+        return m_changedEntries;
     }
 
 
@@ -165,7 +179,7 @@ public  class FixUpSymbolTableVisitor extends SmallPearlBaseVisitor<Void> implem
         m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
 
         if (ctx.loopStatement_for() != null) {
-            SymbolTableEntry entry = m_currentSymbolTable.lookup(ctx.loopStatement_for().ID().getText());
+            SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.loopStatement_for().ID());
 
             if (entry != null && entry instanceof VariableEntry) {
                 var = (VariableEntry) entry;
@@ -226,7 +240,11 @@ public  class FixUpSymbolTableVisitor extends SmallPearlBaseVisitor<Void> implem
             TypeDefinition varType = var.getType();
             if (varType != null && varType instanceof TypeFixed) {
                 TypeFixed typ = (TypeFixed) varType;
-                typ.setPrecision(precision);
+
+                if (!Integer.valueOf(precision).equals(typ.getPrecision())) {
+                    typ.setPrecision(precision);
+                    m_changedEntries.add(var);
+                }
             }
         }
 
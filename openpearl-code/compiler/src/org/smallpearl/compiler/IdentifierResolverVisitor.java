@@ -0,0 +1,106 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2016 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permissision.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler;
+
+import org.antlr.v4.runtime.tree.ParseTreeProperty;
+import org.antlr.v4.runtime.tree.RuleNode;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.smallpearl.compiler.SymbolTable.SymbolTable;
+import org.smallpearl.compiler.SymbolTable.SymbolTableEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolve every identifier of the parse tree once.
+ *
+ * The visitor runs after the symbol table is complete. It walks the scopes
+ * recorded by the SymbolTableVisitor and stores the symbol table entry of
+ * each ID token in a side table, so that the later passes need not repeat
+ * the lookup through the enclosing scopes. The reverse index lists the ID
+ * tokens per entry.
+ * FixUpSymbolTableVisitor only changes the types of existing entries, which
+ * keeps the side table valid for all following passes.
+ */
+public class IdentifierResolverVisitor extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
+
+    private SymbolTableVisitor m_symbolTableVisitor;
+    private SymbolTable m_currentSymbolTable;
+    private ParseTreeProperty<SymbolTableEntry> m_entryPerIdentifier;
+    private Map<SymbolTableEntry, List<TerminalNode>> m_identifiersPerEntry;
+
+    public IdentifierResolverVisitor(SymbolTableVisitor symbolTableVisitor,
+                                     ParseTreeProperty<SymbolTableEntry> entryPerIdentifier,
+                                     Map<SymbolTableEntry, List<TerminalNode>> identifiersPerEntry) {
+        m_symbolTableVisitor = symbolTableVisitor;
+        m_currentSymbolTable = symbolTableVisitor.symbolTable;
+        m_entryPerIdentifier = entryPerIdentifier;
+        m_identifiersPerEntry = identifiersPerEntry;
+    }
+
+    @Override
+    public Void visitChildren(RuleNode node) {
+        SymbolTable scope = m_symbolTableVisitor.getSymbolTablePerContext(node);
+
+        if (scope == null) {
+            return super.visitChildren(node);
+        }
+
+        SymbolTable enclosingScope = m_currentSymbolTable;
+        m_currentSymbolTable = scope;
+        super.visitChildren(node);
+        m_currentSymbolTable = enclosingScope;
+
+        return null;
+    }
+
+    @Override
+    public Void visitTerminal(TerminalNode node) {
+        if (node.getSymbol().getType() == SmallPearlParser.ID) {
+            SymbolTableEntry entry = m_currentSymbolTable.lookup(node.getText());
+
+            if (entry != null) {
+                m_entryPerIdentifier.put(node, entry);
+
+                List<TerminalNode> identifiers = m_identifiersPerEntry.get(entry);
+
+                if (identifiers == null) {
+                    identifiers = new ArrayList<TerminalNode>();
+                    m_identifiersPerEntry.put(entry, identifiers);
+                }
+
+                identifiers.add(node);
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2017 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * OutputStream which collects the output of the current thread in a private
+ * buffer, if the thread has started capturing. All other threads write
+ * directly to the original stream.
+ *
+ * This is used in batch mode and in the compile server, where several
+ * modules are compiled in parallel. Each worker captures the messages of its
+ * module, which are printed as one block afterwards.
+ *
+ * stdout and stderr of a thread are captured into one sequence of lines.
+ * Each line is tagged with its stream, so that the original order of the
+ * messages of both streams is kept.
+ */
+public class ModuleOutputStream extends OutputStream {
+    private static ModuleOutputStream s_stdout = null;
+    private static ModuleOutputStream s_stderr = null;
+    private static final ThreadLocal<Capture> s_capture = new ThreadLocal<Capture>();
+
+    private final OutputStream m_original;
+    private final boolean m_error;
+
+    /**
+     * one line of captured output
+     */
+    public static class Line {
+        public final boolean error;
+        public final String text;
+
+        Line(boolean error, String text) {
+            this.error = error;
+            this.text = text;
+        }
+    }
+
+    /**
+     * the output of one thread between startCapture() and stopCapture()
+     */
+    public static class Captured {
+        public final List<Line> lines;
+
+        Captured(List<Line> lines) {
+            this.lines = Collections.unmodifiableList(lines);
+        }
+
+        /**
+         * print the lines in their original order
+         *
+         * @param out the stream for the lines written to stdout
+         * @param err the stream for the lines written to stderr
+         */
+        public void print(PrintStream out, PrintStream err) {
+            for (Line line : lines) {
+                PrintStream stream = line.error ? err : out;
+                stream.println(line.text);
+                stream.flush();
+            }
+        }
+    }
+
+    /**
+     * the lines of one thread; a line is complete with its newline
+     */
+    private static class Capture {
+        private final List<Line> m_lines = new ArrayList<Line>();
+        private final ByteArrayOutputStream m_stdoutLine = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream m_stderrLine = new ByteArrayOutputStream();
+
+        void write(boolean error, byte[] b, int off, int len) {
+            ByteArrayOutputStream line = error ? m_stderrLine : m_stdoutLine;
+
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    addLine(error, line);
+                } else {
+                    line.write(b[i]);
+                }
+            }
+        }
+
+        private void addLine(boolean error, ByteArrayOutputStream line) {
+            String text = line.toString();
+
+            if (text.endsWith("\r")) {
+                text = text.substring(0, text.length() - 1);
+            }
+
+            m_lines.add(new Line(error, text));
+            line.reset();
+        }
+
+        List<Line> finish() {
+            if (m_stdoutLine.size() > 0) {
+                addLine(false, m_stdoutLine);
+            }
+            if (m_stderrLine.size() > 0) {
+                addLine(true, m_stderrLine);
+            }
+
+            return m_lines;
+        }
+    }
+
+    private ModuleOutputStream(OutputStream original, boolean error) {
+        m_original = original;
+        m_error = error;
+    }
+
+    /**
+     * replace System.out and System.err by capturing streams. Threads which
+     * do not capture still write to the original streams.
+     */
+    public static synchronized void install() {
+        if (s_stdout == null) {
+            s_stdout = new ModuleOutputStream(System.out, false);
+            s_stderr = new ModuleOutputStream(System.err, true);
+            System.setOut(new PrintStream(s_stdout, true));
+            System.setErr(new PrintStream(s_stderr, true));
+        }
+    }
+
+    public static void startCapture() {
+        install();
+        s_capture.set(new Capture());
+    }
+
+    public static Captured stopCapture() {
+        System.out.flush();
+        System.err.flush();
+
+        Capture capture = s_capture.get();
+        s_capture.remove();
+
+        if (capture == null) {
+            return new Captured(new ArrayList<Line>());
+        }
+
+        return new Captured(capture.finish());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Capture capture = s_capture.get();
+
+        if (capture != null) {
+            capture.write(m_error, b, off, len);
+        } else {
+            m_original.write(b, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (s_capture.get() == null) {
+            m_original.flush();
+        }
+    }
+}
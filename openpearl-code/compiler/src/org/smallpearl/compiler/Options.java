@@ -1,6 +1,6 @@
 /*
  * [The "BSD license"]
- *  Copyright (c) 2012-2016 Marcel Schaible
+ *  Copyright (c) 2012-2017 Marcel Schaible
  *  All rights reserved.
  *
  *  Redistribution and use in source and binary forms, with or without
@@ -29,15 +29,65 @@
 
 package org.smallpearl.compiler;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The options of one compiler invocation. Each invocation (command line,
+ * or request to the compile server) gets its own set of options, so that
+ * concurrent compilations do not share any state.
+ */
 public class Options {
-    static boolean printTree = false;
-    static boolean gui = false;
-    static String psFile = null;
-    static boolean showTokens = false;
-    static boolean trace = false;
-    static boolean diagnostics = false;
-    static String encoding = null;
-    static boolean SLL = false;
-    static int verbose = 1;
-    static boolean dumpDFA = false;
+    List<String> inputFiles = new ArrayList<String>();
+    File baseDirectory = null;
+    boolean printAST = false;
+    String psFile = null;
+    String outputFilename = null;
+    boolean showTokens = false;
+    boolean trace = true;
+    boolean diagnostics = false;
+    String encoding = null;
+    boolean SLL = false;
+    boolean LL = false;
+    boolean nosemantic = false;
+    Set<String> disabledChecks = new HashSet<String>();
+    int verbose = 0;
+    boolean dumpDFA = false;
+    boolean dumpSymbolTable = false;
+    boolean dumpConstantPool = false;
+    boolean debug = false;
+    boolean debugSTG = false;
+    boolean stacktrace = false;
+    boolean verifyRetyping = false;
+    boolean timings = false;
+    boolean timingsAsJson = false;
+    boolean imc = true;
+    String imcTarget = null;
+    String imcOutput = "system.cc";
+    boolean imcXml = false;
+    int warninglevel = 255;
+    int lineWidth = 80;
+    int jobs = Runtime.getRuntime().availableProcessors();
+    boolean server = false;
+    boolean stopServer = false;
+
+    /**
+     * resolve a file name given by the user relative to the working
+     * directory of the invocation
+     *
+     * @param fileName the file name as given on the command line
+     * @return the file relative to the base directory, if the name is not absolute
+     */
+    File resolve(String fileName) {
+        File file = new File(fileName);
+
+        if (baseDirectory == null || file.isAbsolute()) {
+            return file;
+        }
+
+        return new File(baseDirectory, fileName);
+    }
 }
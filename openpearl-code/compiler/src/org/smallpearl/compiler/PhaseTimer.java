@@ -0,0 +1,267 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2017 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures wall time, cpu time and allocated bytes of the phases of one
+ * compilation (--timings or --timings=json).
+ *
+ * A disabled timer ignores all calls, so the phases may be bracketed
+ * unconditionally. Cpu time and allocation are measured for the current
+ * thread; they are reported as -1 if the JVM does not support this.
+ *
+ * An Accumulator sums many short intervals within the current phase into a
+ * phase of its own, e.g. the calls of one semantic rule during the common
+ * tree traversal. Its time is subtracted from the enclosing phase and it is
+ * reported right after it, so the total stays correct.
+ */
+public class PhaseTimer {
+    private final boolean m_enabled;
+    private final String m_sourceFileName;
+    private final List<Phase> m_phases = new ArrayList<Phase>();
+    private final List<Phase> m_accumulated = new ArrayList<Phase>();
+    private final ThreadMXBean m_threadBean;
+    private Phase m_current = null;
+
+    private static class Phase {
+        String name;
+        long wallTime;
+        long cpuTime;
+        long allocatedBytes;
+    }
+
+    /**
+     * Sums the wall time, cpu time and allocated bytes of all intervals
+     * between start() and stop(). An accumulator of a disabled timer ignores
+     * all calls.
+     */
+    public class Accumulator {
+        private final Phase m_phase;
+        private long m_wallTime;
+        private long m_cpuTime;
+        private long m_allocatedBytes;
+
+        private Accumulator(Phase phase) {
+            m_phase = phase;
+        }
+
+        public void start() {
+            if (!m_enabled) {
+                return;
+            }
+
+            m_allocatedBytes = getAllocatedBytes();
+            m_cpuTime = getCpuTime();
+            m_wallTime = System.nanoTime();
+        }
+
+        public void stop() {
+            if (!m_enabled) {
+                return;
+            }
+
+            long wallTime = System.nanoTime();
+            long cpuTime = getCpuTime();
+            long allocatedBytes = getAllocatedBytes();
+
+            m_phase.wallTime += wallTime - m_wallTime;
+            m_phase.cpuTime = (cpuTime < 0 || m_cpuTime < 0 || m_phase.cpuTime < 0) ? -1 : m_phase.cpuTime + cpuTime - m_cpuTime;
+            m_phase.allocatedBytes = (allocatedBytes < 0 || m_allocatedBytes < 0 || m_phase.allocatedBytes < 0) ? -1 : m_phase.allocatedBytes + allocatedBytes - m_allocatedBytes;
+        }
+    }
+
+    public PhaseTimer(String sourceFileName, boolean enabled) {
+        m_sourceFileName = sourceFileName;
+        m_enabled = enabled;
+
+        if (enabled) {
+            m_threadBean = ManagementFactory.getThreadMXBean();
+        } else {
+            m_threadBean = null;
+        }
+    }
+
+    /**
+     * start a new phase; a still running phase is stopped before
+     *
+     * @param name the name of the phase
+     */
+    public void start(String name) {
+        if (!m_enabled) {
+            return;
+        }
+
+        if (m_current != null) {
+            stop();
+        }
+
+        m_current = new Phase();
+        m_current.name = name;
+        m_current.allocatedBytes = getAllocatedBytes();
+        m_current.cpuTime = getCpuTime();
+        m_current.wallTime = System.nanoTime();
+    }
+
+    /**
+     * create an accumulator, which is reported after the current phase
+     *
+     * @param name the name of the accumulated phase
+     * @return the accumulator
+     */
+    public Accumulator accumulate(String name) {
+        Phase phase = new Phase();
+        phase.name = name;
+
+        if (m_enabled) {
+            m_accumulated.add(phase);
+        }
+
+        return new Accumulator(phase);
+    }
+
+    /**
+     * stop the current phase
+     */
+    public void stop() {
+        if (!m_enabled || m_current == null) {
+            return;
+        }
+
+        long wallTime = System.nanoTime();
+        long cpuTime = getCpuTime();
+        long allocatedBytes = getAllocatedBytes();
+
+        m_current.wallTime = wallTime - m_current.wallTime;
+        m_current.cpuTime = (cpuTime < 0 || m_current.cpuTime < 0) ? -1 : cpuTime - m_current.cpuTime;
+        m_current.allocatedBytes = (allocatedBytes < 0 || m_current.allocatedBytes < 0) ? -1 : allocatedBytes - m_current.allocatedBytes;
+
+        for (Phase phase : m_accumulated) {
+            m_current.wallTime -= phase.wallTime;
+            m_current.cpuTime = (m_current.cpuTime < 0 || phase.cpuTime < 0) ? -1 : m_current.cpuTime - phase.cpuTime;
+            m_current.allocatedBytes = (m_current.allocatedBytes < 0 || phase.allocatedBytes < 0) ? -1 : m_current.allocatedBytes - phase.allocatedBytes;
+        }
+
+        m_phases.add(m_current);
+        m_phases.addAll(m_accumulated);
+        m_accumulated.clear();
+        m_current = null;
+    }
+
+    private long getCpuTime() {
+        if (m_threadBean.isCurrentThreadCpuTimeSupported()) {
+            return m_threadBean.getCurrentThreadCpuTime();
+        }
+
+        return -1;
+    }
+
+    private long getAllocatedBytes() {
+        if (m_threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) m_threadBean;
+
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * print the measured phases as table
+     */
+    public void print() {
+        if (!m_enabled) {
+            return;
+        }
+
+        stop();
+
+        long wallTime = 0;
+        long cpuTime = 0;
+        long allocatedBytes = 0;
+
+        System.out.println("Timings of " + m_sourceFileName + ":");
+        System.out.println(String.format("  %-40s %12s %12s %16s", "phase", "wall [ms]", "cpu [ms]", "allocated [B]"));
+
+        for (Phase phase : m_phases) {
+            System.out.println(String.format("  %-40s %12.3f %12.3f %16d", phase.name,
+                    phase.wallTime / 1e6, phase.cpuTime / 1e6, phase.allocatedBytes));
+            wallTime += phase.wallTime;
+            cpuTime = (cpuTime < 0 || phase.cpuTime < 0) ? -1 : cpuTime + phase.cpuTime;
+            allocatedBytes = (allocatedBytes < 0 || phase.allocatedBytes < 0) ? -1 : allocatedBytes + phase.allocatedBytes;
+        }
+
+        System.out.println(String.format("  %-40s %12.3f %12.3f %16d", "total",
+                wallTime / 1e6, cpuTime / 1e6, allocatedBytes));
+    }
+
+    /**
+     * print the measured phases as one line of JSON
+     */
+    public void printJson() {
+        if (!m_enabled) {
+            return;
+        }
+
+        stop();
+
+        StringBuilder json = new StringBuilder();
+
+        json.append("{\"module\":\"").append(escape(m_sourceFileName)).append("\",\"phases\":[");
+
+        for (int i = 0; i < m_phases.size(); i++) {
+            Phase phase = m_phases.get(i);
+
+            if (i > 0) {
+                json.append(",");
+            }
+
+            json.append("{\"name\":\"").append(escape(phase.name)).append("\"");
+            json.append(",\"wall_ns\":").append(phase.wallTime);
+            json.append(",\"cpu_ns\":").append(phase.cpuTime);
+            json.append(",\"allocated_bytes\":").append(phase.allocatedBytes);
+            json.append("}");
+        }
+
+        json.append("]}");
+
+        System.out.println(json.toString());
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -31,6 +31,7 @@ package org.smallpearl.compiler.SemanticAnalysis;
 
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
 import org.smallpearl.compiler.*;
 import org.smallpearl.compiler.SymbolTable.ModuleEntry;
 import org.smallpearl.compiler.SymbolTable.SymbolTable;
@@ -39,7 +40,7 @@ import org.smallpearl.compiler.SymbolTable.VariableEntry;
 import org.stringtemplate.v4.ST;
 import org.stringtemplate.v4.STGroup;
 
-public class CheckAssignment extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
+public class CheckAssignment extends SemanticRule {
 
     private int m_verbose;
     private boolean m_debug;
@@ -47,7 +48,6 @@ public class CheckAssignment extends SmallPearlBaseVisitor<Void> implements Smal
     private ExpressionTypeVisitor m_expressionTypeVisitor;
     private SymbolTableVisitor m_symbolTableVisitor;
     private SymbolTable m_symboltable;
-    private SymbolTable m_currentSymbolTable;
     private ModuleEntry m_module;
 
 
@@ -63,7 +63,6 @@ public class CheckAssignment extends SmallPearlBaseVisitor<Void> implements Smal
         m_symbolTableVisitor = symbolTableVisitor;
         m_expressionTypeVisitor = expressionTypeVisitor;
         m_symboltable = symbolTableVisitor.symbolTable;
-        m_currentSymbolTable = m_symboltable;
 
         if (m_verbose > 0) {
             System.out.println( "    Check Assignments");
@@ -87,22 +86,26 @@ public class CheckAssignment extends SmallPearlBaseVisitor<Void> implements Smal
         }
 
         String id = null;
+        TerminalNode idNode = null;
 
         if ( ctx.stringSelection() != null ) {
             if ( ctx.stringSelection().charSelection() != null ) {
+                idNode = ctx.stringSelection().charSelection().ID();
                 id = ctx.stringSelection().charSelection().ID().getText();
             }
             else  if (ctx.stringSelection().bitSelection() != null) {
+                idNode = ctx.stringSelection().bitSelection().ID();
                 id = ctx.stringSelection().bitSelection().ID().getText();
             } else {
                 throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
             }
         }
         else {
+            idNode = ctx.ID();
             id = ctx.ID().getText();
         }
 
-        SymbolTableEntry lhs = m_currentSymbolTable.lookup(id);
+        SymbolTableEntry lhs = m_symbolTableVisitor.getEntryPerIdentifier(idNode);
 
         TypeDefinition rhs = m_expressionTypeVisitor.lookupType(ctx.expression());
         ExpressionResult rhs1 = m_expressionTypeVisitor.lookup(ctx.expression());
@@ -223,44 +226,4 @@ public class CheckAssignment extends SmallPearlBaseVisitor<Void> implements Smal
         return null;
     }
 
-    @Override
-    public Void visitModule(SmallPearlParser.ModuleContext ctx) {
-        org.smallpearl.compiler.SymbolTable.SymbolTableEntry symbolTableEntry = m_currentSymbolTable.lookupLocal(ctx.ID().getText());
-        m_currentSymbolTable = ((org.smallpearl.compiler.SymbolTable.ModuleEntry)symbolTableEntry).scope;
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitProcedureDeclaration(SmallPearlParser.ProcedureDeclarationContext ctx) {
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitTaskDeclaration(SmallPearlParser.TaskDeclarationContext ctx) {
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitBlock_statement(SmallPearlParser.Block_statementContext ctx) {
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitLoopStatement(SmallPearlParser.LoopStatementContext ctx) {
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
 }
\ No newline at end of file
@@ -32,17 +32,9 @@ package org.smallpearl.compiler.SemanticAnalysis;
 import org.smallpearl.compiler.*;
 import org.smallpearl.compiler.SymbolTable.ModuleEntry;
 import org.smallpearl.compiler.SymbolTable.SymbolTable;
+import org.smallpearl.compiler.SemanticAnalysis.SemanticRuleDispatcher.Scope;
 
-public class CheckDeclarationScope extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
-
-    private enum Scope {
-        UNKNOWN,
-        MODULE,
-        TASK,
-        PROCEDURE,
-        BLOCK,
-        LOOP
-    }
+public class CheckDeclarationScope extends SemanticRule {
 
     private int m_verbose;
     private boolean m_debug;
@@ -50,9 +42,7 @@ public class CheckDeclarationScope extends SmallPearlBaseVisitor<Void> implement
     private ExpressionTypeVisitor m_expressionTypeVisitor;
     private SymbolTableVisitor m_symbolTableVisitor;
     private SymbolTable m_symboltable;
-    private SymbolTable m_currentSymbolTable;
     private ModuleEntry m_module;
-    private Scope m_currentScope;
 
     public CheckDeclarationScope(String sourceFileName,
                                  int verbose,
@@ -66,8 +56,6 @@ public class CheckDeclarationScope extends SmallPearlBaseVisitor<Void> implement
         m_symbolTableVisitor = symbolTableVisitor;
         m_expressionTypeVisitor = expressionTypeVisitor;
         m_symboltable = symbolTableVisitor.symbolTable;
-        m_currentSymbolTable = m_symboltable;
-        m_currentScope = Scope.UNKNOWN;
 
         if (m_verbose > 0) {
             System.out.println( "    Check Declaration Scope");
@@ -80,21 +68,13 @@ public class CheckDeclarationScope extends SmallPearlBaseVisitor<Void> implement
             System.out.println( "Semantic: Check Declaration Scope: visitModule");
         }
 
-        Scope lastScope = m_currentScope;
-
-        if ( m_currentScope  != Scope.UNKNOWN ) {
+        if ( getCurrentScope()  != Scope.UNKNOWN ) {
             throw new DeclarationScopeException(
                     ctx.getText(),
                     ctx.start.getLine(),
                     ctx.start.getCharPositionInLine());
         }
 
-        org.smallpearl.compiler.SymbolTable.SymbolTableEntry symbolTableEntry = m_currentSymbolTable.lookupLocal(ctx.ID().getText());
-        m_currentSymbolTable = ((ModuleEntry)symbolTableEntry).scope;
-        m_currentScope = Scope.MODULE;
-        visitChildren(ctx);
-        m_currentScope = lastScope;
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
         return null;
     }
 
@@ -104,22 +84,13 @@ public class CheckDeclarationScope extends SmallPearlBaseVisitor<Void> implement
             System.out.println( "Semantic: Check Declaration Scope: visitProcedureDeclaration");
         }
 
-        Scope lastScope = m_currentScope;
-
-        if ( m_currentScope  != Scope.MODULE ) {
+        if ( getCurrentScope()  != Scope.MODULE ) {
             throw new DeclarationScopeException(
                     ctx.getText(),
                     ctx.start.getLine(),
                     ctx.start.getCharPositionInLine());
         }
 
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        this.m_currentScope = Scope.PROCEDURE;
-
-        visitChildren(ctx);
-
-        this.m_currentScope = lastScope;
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
         return null;
     }
 
@@ -129,22 +100,13 @@ public class CheckDeclarationScope extends SmallPearlBaseVisitor<Void> implement
             System.out.println( "Semantic: Check Declaration Scope: visitTaskDeclaration");
         }
 
-        Scope lastScope = m_currentScope;
-
-        if ( m_currentScope  != Scope.MODULE ) {
+        if ( getCurrentScope()  != Scope.MODULE ) {
             throw new DeclarationScopeException(
                     ctx.getText(),
                     ctx.start.getLine(),
                     ctx.start.getCharPositionInLine());
         }
 
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        this.m_currentScope = Scope.TASK;
-
-        visitChildren(ctx);
-
-        this.m_currentScope = lastScope;
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
         return null;
     }
 
@@ -154,43 +116,16 @@ public class CheckDeclarationScope extends SmallPearlBaseVisitor<Void> implement
             System.out.println( "Semantic: Check Declaration Scope: visitBlock_statement");
         }
 
-        Scope lastScope = m_currentScope;
-
-        if (    m_currentScope  != Scope.PROCEDURE &&
-                m_currentScope != Scope.TASK  &&
-                m_currentScope != Scope.PROCEDURE &&
-                m_currentScope != Scope.BLOCK) {
+        if (    getCurrentScope()  != Scope.PROCEDURE &&
+                getCurrentScope() != Scope.TASK  &&
+                getCurrentScope() != Scope.PROCEDURE &&
+                getCurrentScope() != Scope.BLOCK) {
             throw new DeclarationScopeException(
                     ctx.getText(),
                     ctx.start.getLine(),
                     ctx.start.getCharPositionInLine());
         }
 
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        this.m_currentScope = Scope.BLOCK;
-
-        visitChildren(ctx);
-
-        this.m_currentScope = lastScope;
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitLoopStatement(SmallPearlParser.LoopStatementContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Declaration Scope: visitLoopStatement");
-        }
-
-        Scope lastScope = m_currentScope;
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        this.m_currentScope = Scope.LOOP;
-
-        visitChildren(ctx);
-
-        this.m_currentScope = lastScope;
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
         return null;
     }
 
@@ -200,16 +135,13 @@ public class CheckDeclarationScope extends SmallPearlBaseVisitor<Void> implement
             System.out.println( "Semantic: Check Declaration Scope: visitDationDeclaration");
         }
 
-        Scope lastScope = m_currentScope;
-
-        if ( m_currentScope  != Scope.MODULE ) {
+        if ( getCurrentScope()  != Scope.MODULE ) {
             throw new DeclarationScopeException(
                     ctx.getText(),
                     ctx.start.getLine(),
                     ctx.start.getCharPositionInLine());
         }
 
-        m_currentScope = lastScope;
         return null;
     }
 
@@ -219,19 +151,16 @@ public class CheckDeclarationScope extends SmallPearlBaseVisitor<Void> implement
             System.out.println( "Semantic: Check Declaration Scope: visitLabel_statement");
         }
 
-        Scope lastScope = m_currentScope;
-
-        if (    m_currentScope  != Scope.PROCEDURE &&
-                m_currentScope != Scope.TASK  &&
-                m_currentScope != Scope.PROCEDURE &&
-                m_currentScope != Scope.BLOCK) {
+        if (    getCurrentScope()  != Scope.PROCEDURE &&
+                getCurrentScope() != Scope.TASK  &&
+                getCurrentScope() != Scope.PROCEDURE &&
+                getCurrentScope() != Scope.BLOCK) {
             throw new DeclarationScopeException(
                     ctx.getText(),
                     ctx.start.getLine(),
                     ctx.start.getCharPositionInLine());
         }
 
-        m_currentScope = lastScope;
         return null;
     }
 
@@ -241,16 +170,13 @@ public class CheckDeclarationScope extends SmallPearlBaseVisitor<Void> implement
             System.out.println( "Semantic: Check Declaration Scope: visitBoltDeclaration");
         }
 
-        Scope lastScope = m_currentScope;
-
-        if (    m_currentScope  != Scope.MODULE) {
+        if (    getCurrentScope()  != Scope.MODULE) {
             throw new DeclarationScopeException(
                     ctx.getText(),
                     ctx.start.getLine(),
                     ctx.start.getCharPositionInLine());
         }
 
-        m_currentScope = lastScope;
         return null;
     }
 
@@ -260,16 +186,13 @@ public class CheckDeclarationScope extends SmallPearlBaseVisitor<Void> implement
             System.out.println( "Semantic: Check Declaration Scope: visitSemaDeclaration");
         }
 
-        Scope lastScope = m_currentScope;
-
-        if (    m_currentScope  != Scope.MODULE) {
+        if (    getCurrentScope()  != Scope.MODULE) {
             throw new DeclarationScopeException(
                     ctx.getText(),
                     ctx.start.getLine(),
                     ctx.start.getCharPositionInLine());
         }
 
-        m_currentScope = lastScope;
         return null;
     }
 
@@ -33,7 +33,7 @@ import org.smallpearl.compiler.*;
 import org.smallpearl.compiler.SymbolTable.ModuleEntry;
 import org.smallpearl.compiler.SymbolTable.SymbolTable;
 
-public class CheckInterrupt extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
+public class CheckInterrupt extends SemanticRule {
 
     private int m_verbose;
     private boolean m_debug;
@@ -41,7 +41,6 @@ public class CheckInterrupt extends SmallPearlBaseVisitor<Void> implements Small
     private ExpressionTypeVisitor m_expressionTypeVisitor;
     private SymbolTableVisitor m_symbolTableVisitor;
     private SymbolTable m_symboltable;
-    private SymbolTable m_currentSymbolTable;
     private ModuleEntry m_module;
 
     public CheckInterrupt(String sourceFileName,
@@ -56,71 +55,10 @@ public class CheckInterrupt extends SmallPearlBaseVisitor<Void> implements Small
         m_symbolTableVisitor = symbolTableVisitor;
         m_expressionTypeVisitor = expressionTypeVisitor;
         m_symboltable = symbolTableVisitor.symbolTable;
-        m_currentSymbolTable = m_symboltable;
 
         if (m_verbose > 0) {
             System.out.println( "    Check Template");
         }
     }
 
-    @Override
-    public Void visitModule(SmallPearlParser.ModuleContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Interrupt: visitModule");
-        }
-
-        org.smallpearl.compiler.SymbolTable.SymbolTableEntry symbolTableEntry = m_currentSymbolTable.lookupLocal(ctx.ID().getText());
-        m_currentSymbolTable = ((ModuleEntry)symbolTableEntry).scope;
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitProcedureDeclaration(SmallPearlParser.ProcedureDeclarationContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Interrupt: visitProcedureDeclaration");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitTaskDeclaration(SmallPearlParser.TaskDeclarationContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Template: visitTaskDeclaration");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitBlock_statement(SmallPearlParser.Block_statementContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Template: visitBlock_statement");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitLoopStatement(SmallPearlParser.LoopStatementContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Template: visitLoopStatement");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
 }
\ No newline at end of file
@@ -35,7 +35,7 @@ import org.stringtemplate.v4.ST;
 
 import java.util.List;
 
-public class CheckProcedureCall extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
+public class CheckProcedureCall extends SemanticRule {
 
     private int m_verbose;
     private boolean m_debug;
@@ -43,7 +43,6 @@ public class CheckProcedureCall extends SmallPearlBaseVisitor<Void> implements S
     private ExpressionTypeVisitor m_expressionTypeVisitor;
     private SymbolTableVisitor m_symbolTableVisitor;
     private SymbolTable m_symboltable;
-    private SymbolTable m_currentSymbolTable;
     private ModuleEntry m_module;
 
     public CheckProcedureCall(String sourceFileName,
@@ -58,81 +57,19 @@ public class CheckProcedureCall extends SmallPearlBaseVisitor<Void> implements S
         m_symbolTableVisitor = symbolTableVisitor;
         m_expressionTypeVisitor = expressionTypeVisitor;
         m_symboltable = symbolTableVisitor.symbolTable;
-        m_currentSymbolTable = m_symboltable;
 
         if (m_verbose > 0) {
             System.out.println( "    Check ProcedureCalls");
         }
     }
 
-    @Override
-    public Void visitModule(SmallPearlParser.ModuleContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check ProcedureCalls: visitModule");
-        }
-
-        org.smallpearl.compiler.SymbolTable.SymbolTableEntry symbolTableEntry = m_currentSymbolTable.lookupLocal(ctx.ID().getText());
-        m_currentSymbolTable = ((ModuleEntry)symbolTableEntry).scope;
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitProcedureDeclaration(SmallPearlParser.ProcedureDeclarationContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check ProcedureCall: visitProcedureDeclaration");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitTaskDeclaration(SmallPearlParser.TaskDeclarationContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check ProcedureCall: visitTaskDeclaration");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitBlock_statement(SmallPearlParser.Block_statementContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check ProcedureCall: visitBlock_statement");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitLoopStatement(SmallPearlParser.LoopStatementContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check ProcedureCall: visitLoopStatement");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
     @Override
     public Void visitCallStatement(SmallPearlParser.CallStatementContext ctx) {
         if (m_debug) {
             System.out.println( "Semantic: Check ProcedureCall: visitCallStatement");
         }
 
-        SymbolTableEntry entry = m_currentSymbolTable.lookup(ctx.ID().getText());
+        SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.ID());
 
         if (entry instanceof ProcedureEntry) {
             if (m_debug)
@@ -146,17 +83,13 @@ public class CheckProcedureCall extends SmallPearlBaseVisitor<Void> implements S
             }
         }
 
-        if ( ctx.listOfActualParameters() != null ) {
-            visitListOfActualParameters(ctx.listOfActualParameters());
-        }
-
         return null;
     }
 
     @Override
     public Void visitPrimaryExpression(SmallPearlParser.PrimaryExpressionContext ctx) {
         if (ctx.ID() != null) {
-            SymbolTableEntry entry = m_currentSymbolTable.lookup(ctx.ID().getText());
+            SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.ID());
             if (entry instanceof ProcedureEntry) {
                 if (m_debug)
                     System.out.println("Semantic: Check ProcedureCall: found call in expression");
@@ -170,6 +103,7 @@ public class CheckProcedureCall extends SmallPearlBaseVisitor<Void> implements S
             }
         }
 
+        skipSubtree();
         return null;
     }
 
@@ -35,7 +35,7 @@ import org.smallpearl.compiler.SymbolTable.SymbolTable;
 
 import java.util.ArrayList;
 
-public class CheckSwitchCase extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
+public class CheckSwitchCase extends SemanticRule {
 
     private int m_verbose;
     private boolean m_debug;
@@ -43,7 +43,6 @@ public class CheckSwitchCase extends SmallPearlBaseVisitor<Void> implements Smal
     private ExpressionTypeVisitor m_expressionTypeVisitor;
     private SymbolTableVisitor m_symbolTableVisitor;
     private SymbolTable m_symboltable;
-    private SymbolTable m_currentSymbolTable;
     private ModuleEntry m_module;
     private ArrayList<FixedRange> m_listOfAlternatives = null;
 
@@ -59,7 +58,6 @@ public class CheckSwitchCase extends SmallPearlBaseVisitor<Void> implements Smal
         m_symbolTableVisitor = symbolTableVisitor;
         m_expressionTypeVisitor = expressionTypeVisitor;
         m_symboltable = symbolTableVisitor.symbolTable;
-        m_currentSymbolTable = m_symboltable;
         m_listOfAlternatives = new ArrayList<FixedRange>();
 
         if (m_verbose > 0) {
@@ -67,73 +65,6 @@ public class CheckSwitchCase extends SmallPearlBaseVisitor<Void> implements Smal
         }
     }
 
-    @Override
-    public Void visitModule(SmallPearlParser.ModuleContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Case: visitModule");
-        }
-
-        org.smallpearl.compiler.SymbolTable.SymbolTableEntry symbolTableEntry = m_currentSymbolTable.lookupLocal(ctx.ID().getText());
-        m_currentSymbolTable = ((ModuleEntry)symbolTableEntry).scope;
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitProcedureDeclaration(SmallPearlParser.ProcedureDeclarationContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Case: visitProcedureDeclaration");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitTaskDeclaration(SmallPearlParser.TaskDeclarationContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Case: visitTaskDeclaration");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitBlock_statement(SmallPearlParser.Block_statementContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Case: visitBlock_statement");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitLoopStatement(SmallPearlParser.LoopStatementContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Case: visitLoopStatement");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitCase_statement(SmallPearlParser.Case_statementContext ctx) {
-        visitChildren(ctx);
-        return null;
-    }
-
     @Override
     public Void visitCase_statement_selection2_alt(SmallPearlParser.Case_statement_selection2_altContext ctx) {
         for ( int i = 0; i < ctx.case_list().index_section().size(); i++) {
@@ -155,6 +86,7 @@ public class CheckSwitchCase extends SmallPearlBaseVisitor<Void> implements Smal
             System.out.println( "CheckCaseSwitch:visitCase_statement_selection2_alt" + m_listOfAlternatives.get(j));
         }
 
+        skipSubtree();
         return null;
     }
 }
\ No newline at end of file
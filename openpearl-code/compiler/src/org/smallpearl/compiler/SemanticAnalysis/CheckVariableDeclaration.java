@@ -39,7 +39,7 @@ import org.stringtemplate.v4.ST;
 
 import java.util.ArrayList;
 
-public class CheckVariableDeclaration extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
+public class CheckVariableDeclaration extends SemanticRule {
 
     private int m_verbose;
     private boolean m_debug;
@@ -47,7 +47,6 @@ public class CheckVariableDeclaration extends SmallPearlBaseVisitor<Void> implem
     private ExpressionTypeVisitor m_expressionTypeVisitor;
     private SymbolTableVisitor m_symbolTableVisitor;
     private SymbolTable m_symboltable;
-    private SymbolTable m_currentSymbolTable;
     private ModuleEntry m_module;
 
     public CheckVariableDeclaration(String sourceFileName,
@@ -62,47 +61,17 @@ public class CheckVariableDeclaration extends SmallPearlBaseVisitor<Void> implem
         m_symbolTableVisitor = symbolTableVisitor;
         m_expressionTypeVisitor = expressionTypeVisitor;
         m_symboltable = symbolTableVisitor.symbolTable;
-        m_currentSymbolTable = m_symboltable;
 
         if (m_verbose > 0) {
             System.out.println( "    Check Variable Declaration");
         }
     }
 
-    @Override
-    public Void visitModule(SmallPearlParser.ModuleContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Variable Declaration: visitModule");
-        }
-
-        org.smallpearl.compiler.SymbolTable.SymbolTableEntry symbolTableEntry = m_currentSymbolTable.lookupLocal(ctx.ID().getText());
-        m_currentSymbolTable = ((ModuleEntry)symbolTableEntry).scope;
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitProcedureDeclaration(SmallPearlParser.ProcedureDeclarationContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Variable Declaration: visitProcedureDeclaration");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
     @Override
     public Void visitProcedureBody(SmallPearlParser.ProcedureBodyContext ctx) {
         if(ctx != null && ctx.children != null ) {
             for (ParseTree c : ctx.children) {
-                if (c instanceof SmallPearlParser.ScalarVariableDeclarationContext) {
-                    visitScalarVariableDeclaration((SmallPearlParser.ScalarVariableDeclarationContext) c);
-                } else if (c instanceof SmallPearlParser.StatementContext) {
-                    visitStatement((SmallPearlParser.StatementContext) c);
-                } else if (c instanceof SmallPearlParser.DationDeclarationContext) {
+                if (c instanceof SmallPearlParser.DationDeclarationContext) {
                     SmallPearlParser.DationDeclarationContext declctx =  (SmallPearlParser.DationDeclarationContext) c;
                     throw new DationDeclarationNotAllowedHereException(declctx.getText(), declctx.start.getLine(), declctx.start.getCharPositionInLine());
                 }
@@ -112,53 +81,6 @@ public class CheckVariableDeclaration extends SmallPearlBaseVisitor<Void> implem
         return null;
     }
 
-    @Override
-    public Void visitTaskDeclaration(SmallPearlParser.TaskDeclarationContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Variable Declaration: visitTaskDeclaration");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        m_currentSymbolTable = m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitBlock_statement(SmallPearlParser.Block_statementContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Variable Declaration: visitBlock_statement");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitLoopStatement(SmallPearlParser.LoopStatementContext ctx) {
-        if (m_debug) {
-            System.out.println( "Semantic: Check Variable Declaration: visitLoopStatement");
-        }
-
-        this.m_currentSymbolTable = m_symbolTableVisitor.getSymbolTablePerContext(ctx);
-        visitChildren(ctx);
-        this.m_currentSymbolTable = this.m_currentSymbolTable.ascend();
-        return null;
-    }
-
-    @Override
-    public Void visitScalarVariableDeclaration(SmallPearlParser.ScalarVariableDeclarationContext ctx) {
-        if (ctx != null) {
-            for (int i = 0; i < ctx.variableDenotation().size(); i++) {
-                visitVariableDenotation(ctx.variableDenotation().get(i));
-            }
-        }
-
-        return null;
-    }
-
     @Override
     public Void visitVariableDenotation(SmallPearlParser.VariableDenotationContext ctx) {
         boolean hasGlobalAttribute = false;
@@ -173,8 +95,6 @@ public class CheckVariableDeclaration extends SmallPearlBaseVisitor<Void> implem
                     identifierDenotationList = getIdentifierDenotation((SmallPearlParser.IdentifierDenotationContext) c);
                 } else if (c instanceof SmallPearlParser.AllocationProtectionContext) {
                     hasAllocationProtection = true;
-                } else if (c instanceof SmallPearlParser.TypeAttributeContext) {
-                    visitTypeAttribute((SmallPearlParser.TypeAttributeContext) c);
                 } else if (c instanceof SmallPearlParser.GlobalAttributeContext) {
                     hasGlobalAttribute = true;
                 } else if (c instanceof SmallPearlParser.InitialisationAttributeContext) {
@@ -315,21 +235,13 @@ public class CheckVariableDeclaration extends SmallPearlBaseVisitor<Void> implem
             System.out.println( "Semantic: Check Variable Declaration: visitArrayVariableDeclaration");
         }
 
-        if (ctx != null) {
-            for (ParseTree c : ctx.children) {
-                if (c instanceof SmallPearlParser.ArrayDenotationContext) {
-                    visitArrayDenotation((SmallPearlParser.ArrayDenotationContext) c);
-                }
-            }
-        }
-
         return null;
     }
 
     @Override
     public Void visitArrayDenotation(SmallPearlParser.ArrayDenotationContext ctx) {
         for (int i = 0; i < ctx.ID().size(); i++) {
-            SymbolTableEntry entry = m_currentSymbolTable.lookup(ctx.ID().get(i).toString());
+            SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.ID(i));
 
             if ( entry == null || !(entry instanceof VariableEntry)) {
                 throw new InternalCompilerErrorException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
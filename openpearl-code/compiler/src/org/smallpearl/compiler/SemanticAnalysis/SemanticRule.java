@@ -0,0 +1,92 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2017 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler.SemanticAnalysis;
+
+import org.antlr.v4.runtime.tree.RuleNode;
+import org.smallpearl.compiler.*;
+import org.smallpearl.compiler.SymbolTable.SymbolTable;
+
+/**
+ * Base class of a single semantic check.
+ *
+ * A rule does not walk the parse tree itself. The SemanticRuleDispatcher
+ * traverses the tree once, maintains the scope context and passes each node
+ * to the visit method of every enabled rule. Therefore visitChildren does not
+ * descend. A rule, which must not see the nodes below the current node, calls
+ * skipSubtree().
+ */
+public abstract class SemanticRule extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
+
+    private SemanticRuleDispatcher m_dispatcher;
+    private boolean m_skipSubtree;
+
+    /**
+     * @return the name of the check, which is used to disable it
+     */
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    void setDispatcher(SemanticRuleDispatcher dispatcher) {
+        m_dispatcher = dispatcher;
+    }
+
+    /**
+     * @return the scope kind of the node, which is passed to the rule
+     */
+    protected SemanticRuleDispatcher.Scope getCurrentScope() {
+        return m_dispatcher.getCurrentScope();
+    }
+
+    /**
+     * @return the symbol table of the scope of the node, which is passed to the rule
+     */
+    protected SymbolTable getCurrentSymbolTable() {
+        return m_dispatcher.getCurrentSymbolTable();
+    }
+
+    /**
+     * do not pass the nodes below the current node to this rule
+     */
+    protected void skipSubtree() {
+        m_skipSubtree = true;
+    }
+
+    boolean consumeSkipSubtree() {
+        boolean skip = m_skipSubtree;
+        m_skipSubtree = false;
+        return skip;
+    }
+
+    @Override
+    public Void visitChildren(RuleNode node) {
+        return null;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2017 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler.SemanticAnalysis;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.RuleNode;
+import org.smallpearl.compiler.*;
+import org.smallpearl.compiler.SymbolTable.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Perform all registered semantic checks in one traversal of the parse tree.
+ *
+ * The dispatcher keeps track of the scope kind and of the symbol table of the
+ * current node. Each node is passed to the enabled rules before its children
+ * are visited, thus a rule sees the scope, which encloses the node.
+ *
+ * With --timings the calls of each rule are accumulated into a phase
+ * "SemanticCheck: <rule>" of the phase timer.
+ */
+public class SemanticRuleDispatcher extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
+
+    public enum Scope {
+        UNKNOWN,
+        MODULE,
+        TASK,
+        PROCEDURE,
+        BLOCK,
+        LOOP
+    }
+
+    private SymbolTableVisitor m_symbolTableVisitor;
+    private PhaseTimer m_timer;
+    private SymbolTable m_currentSymbolTable;
+    private Scope m_currentScope;
+    private List<SemanticRule> m_rules;
+    private SemanticRule[] m_activeRules;
+    private RuleNode[] m_skippedAt;
+    private PhaseTimer.Accumulator[] m_ruleTimers;
+
+    public SemanticRuleDispatcher(SymbolTableVisitor symbolTableVisitor, PhaseTimer timer) {
+        m_symbolTableVisitor = symbolTableVisitor;
+        m_timer = timer;
+        m_currentSymbolTable = symbolTableVisitor.symbolTable;
+        m_currentScope = Scope.UNKNOWN;
+        m_rules = new ArrayList<SemanticRule>();
+    }
+
+    public void register(SemanticRule rule) {
+        rule.setDispatcher(this);
+        m_rules.add(rule);
+    }
+
+    public List<SemanticRule> getRules() {
+        return m_rules;
+    }
+
+    public Scope getCurrentScope() {
+        return m_currentScope;
+    }
+
+    public SymbolTable getCurrentSymbolTable() {
+        return m_currentSymbolTable;
+    }
+
+    @Override
+    public Void visit(ParseTree tree) {
+        m_activeRules = m_rules.toArray(new SemanticRule[m_rules.size()]);
+        m_skippedAt = new RuleNode[m_activeRules.length];
+        m_ruleTimers = new PhaseTimer.Accumulator[m_activeRules.length];
+
+        for (int i = 0; i < m_activeRules.length; i++) {
+            m_ruleTimers[i] = m_timer.accumulate("SemanticCheck: " + m_activeRules[i].getName());
+        }
+
+        return tree.accept(this);
+    }
+
+    @Override
+    public Void visitChildren(RuleNode node) {
+        for (int i = 0; i < m_activeRules.length; i++) {
+            if (m_skippedAt[i] == null) {
+                m_ruleTimers[i].start();
+                node.accept(m_activeRules[i]);
+                m_ruleTimers[i].stop();
+
+                if (m_activeRules[i].consumeSkipSubtree()) {
+                    m_skippedAt[i] = node;
+                }
+            }
+        }
+
+        Scope scope = getScopeOf(node);
+        SymbolTable symbolTable = m_symbolTableVisitor.getSymbolTablePerContext(node);
+
+        if (scope == null && symbolTable == null) {
+            super.visitChildren(node);
+        } else {
+            Scope enclosingScope = m_currentScope;
+            SymbolTable enclosingSymbolTable = m_currentSymbolTable;
+
+            if (scope != null) {
+                m_currentScope = scope;
+            }
+
+            if (symbolTable != null) {
+                m_currentSymbolTable = symbolTable;
+            }
+
+            super.visitChildren(node);
+
+            m_currentScope = enclosingScope;
+            m_currentSymbolTable = enclosingSymbolTable;
+        }
+
+        for (int i = 0; i < m_activeRules.length; i++) {
+            if (m_skippedAt[i] == node) {
+                m_skippedAt[i] = null;
+            }
+        }
+
+        return null;
+    }
+
+    private static Scope getScopeOf(RuleNode node) {
+        if (node instanceof SmallPearlParser.ModuleContext) {
+            return Scope.MODULE;
+        } else if (node instanceof SmallPearlParser.TaskDeclarationContext) {
+            return Scope.TASK;
+        } else if (node instanceof SmallPearlParser.ProcedureDeclarationContext) {
+            return Scope.PROCEDURE;
+        } else if (node instanceof SmallPearlParser.Block_statementContext) {
+            return Scope.BLOCK;
+        } else if (node instanceof SmallPearlParser.LoopStatementContext) {
+            return Scope.LOOP;
+        }
+
+        return null;
+    }
+}
@@ -34,6 +34,8 @@ import org.smallpearl.compiler.SymbolTable.ModuleEntry;
 import org.smallpearl.compiler.SymbolTable.SymbolTable;
 import org.smallpearl.compiler.SemanticAnalysis.*;
 
+import java.util.Set;
+
 public class SemanticCheck {
 
     private int m_verbose;
@@ -51,7 +53,9 @@ public class SemanticCheck {
                          boolean debug,
                          ParserRuleContext tree,
                          SymbolTableVisitor symbolTableVisitor,
-                         ExpressionTypeVisitor expressionTypeVisitor) {
+                         ExpressionTypeVisitor expressionTypeVisitor,
+                         Set<String> disabledChecks,
+                         PhaseTimer timer) {
         m_debug = debug;
         m_verbose = verbose;
         m_sourceFileName = sourceFileName;
@@ -64,14 +68,27 @@ public class SemanticCheck {
             System.out.println( "Performing semantic check");
         }
 
-        new CheckVariableDeclaration(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor).visit(m_parseTree);
-        new CheckAssignment(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor).visit(m_parseTree);
-        new CheckProcedureCall(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor).visit(m_parseTree);
-        new CheckCondition(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor).visit(m_parseTree);
-        new CheckSwitchCase(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor).visit(m_parseTree);
-        new CheckInterrupt(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor).visit(m_parseTree);
-        new CheckDeclarationScope(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor).visit(m_parseTree);
+        SemanticRuleDispatcher dispatcher = new SemanticRuleDispatcher(m_symbolTableVisitor, timer);
+        register(dispatcher, new CheckVariableDeclaration(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor), disabledChecks);
+        register(dispatcher, new CheckAssignment(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor), disabledChecks);
+        register(dispatcher, new CheckProcedureCall(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor), disabledChecks);
+        register(dispatcher, new CheckCondition(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor), disabledChecks);
+        register(dispatcher, new CheckSwitchCase(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor), disabledChecks);
+        register(dispatcher, new CheckInterrupt(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor), disabledChecks);
+        register(dispatcher, new CheckDeclarationScope(m_sourceFileName, m_verbose, m_debug, m_symbolTableVisitor, m_expressionTypeVisitor), disabledChecks);
 
+        timer.start("SemanticCheck");
+        dispatcher.visit(m_parseTree);
+        timer.stop();
     }
 
+    private void register(SemanticRuleDispatcher dispatcher, SemanticRule rule, Set<String> disabledChecks) {
+        if (disabledChecks.contains(rule.getName())) {
+            if (m_verbose > 0) {
+                System.out.println( "    " + rule.getName() + " disabled");
+            }
+        } else {
+            dispatcher.register(rule);
+        }
+    }
 }
\ No newline at end of file
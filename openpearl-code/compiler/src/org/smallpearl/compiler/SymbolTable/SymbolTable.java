@@ -35,9 +35,15 @@ import org.smallpearl.compiler.TypeFixed;
 import org.smallpearl.compiler.TypeFloat;
 import org.smallpearl.compiler.TypeBit;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 
 public class SymbolTable {
@@ -50,7 +56,9 @@ public class SymbolTable {
      * with the newLevel method.
      */
     public SymbolTable() {
-        m_entries = new HashMap();
+        m_entries = new LinkedHashMap<String, SymbolTableEntry>();
+        m_entriesByKind = new HashMap<Class<?>, Map<String, SymbolTableEntry>>();
+        m_viewsByKind = new HashMap<Class<?>, List<? extends SymbolTableEntry>>();
         m_level = 0;
         m_usesSystemElements = false;
     }
@@ -137,7 +145,7 @@ public class SymbolTable {
         SymbolTableEntry se;
 
        for (st = this; st != null; st = st.parent) {
-            if ((se = (SymbolTableEntry) st.m_entries.get(name)) != null) {
+            if ((se = st.m_entries.get(name)) != null) {
                 return se;
             }
         }
@@ -146,7 +154,26 @@ public class SymbolTable {
     }
 
     public SymbolTableEntry lookupLocal(String name) {
-        return (SymbolTableEntry) m_entries.get(name);
+        return m_entries.get(name);
+    }
+
+    /**
+     * lookup the name in this and all enclosing scopes and return the
+     * entry, if it is of the given kind
+     *
+     * @param name the name of the symbol
+     * @param kind the class of the expected symbol table entry
+     * @return the entry, or null if the name is not defined or denotes
+     *         another kind of symbol
+     */
+    public <T extends SymbolTableEntry> T lookup(String name, Class<T> kind) {
+        SymbolTableEntry se = lookup(name);
+
+        if (kind.isInstance(se)) {
+            return kind.cast(se);
+        }
+
+        return null;
     }
 
     public boolean enter(SymbolTableEntry se) {
@@ -154,52 +181,133 @@ public class SymbolTable {
             return false;
         }
         m_entries.put(se.getName(), se);
+        addToKindIndex(se);
         return true;
     }
 
     public boolean enterOrReplace(SymbolTableEntry se) {
-        if (lookupLocal(se.getName()) != null) {
+        SymbolTableEntry old = lookupLocal(se.getName());
+
+        if (old != null) {
             m_entries.remove(se.getName());
+            removeFromKindIndex(old);
         }
         m_entries.put(se.getName(), se);
+        addToKindIndex(se);
         return true;
     }
 
-    public SymbolTable ascend() {
-        return parent != null ? parent : this;
+    private void addToKindIndex(SymbolTableEntry se) {
+        Map<String, SymbolTableEntry> entries = m_entriesByKind.get(se.getClass());
+
+        if (entries == null) {
+            entries = new LinkedHashMap<String, SymbolTableEntry>();
+            m_entriesByKind.put(se.getClass(), entries);
+        }
+
+        entries.put(se.getName(), se);
+        removeViews(se.getClass());
     }
 
-    public SymbolTable descend(String name) {
-        SymbolTableEntry se = lookupLocal(name);
+    private void removeFromKindIndex(SymbolTableEntry se) {
+        Map<String, SymbolTableEntry> entries = m_entriesByKind.get(se.getClass());
 
-        try {
-            if ( se == null) {
-                return this;
-            }
+        if (entries != null) {
+            entries.remove(se.getName());
+            removeViews(se.getClass());
+        }
+    }
 
-            if ( se.getClass() != Class.forName("ModuleEntry")) {
-                return ((ModuleEntry) se).scope;
+    /**
+     * drop the cached lists of all kinds, which include entries of the
+     * given class
+     */
+    private void removeViews(Class<?> entryClass) {
+        for (Iterator<Class<?>> it = m_viewsByKind.keySet().iterator(); it.hasNext(); ) {
+            if (it.next().isAssignableFrom(entryClass)) {
+                it.remove();
             }
+        }
+    }
 
-            if ( se.getClass() != Class.forName("ProcedureEntry")) {
-                return ((ProcedureEntry) se).scope;
-            }
+    /**
+     * get all entries of the given kind in this scope in the order of
+     * their declaration
+     *
+     * An entry belongs to a kind, if it is an instance of the given class;
+     * a superclass like SymbolTableEntry yields the entries of all its
+     * subclasses.
+     * The returned list is immutable and is kept until an entry of this
+     * kind is entered or replaced.
+     *
+     * @param kind the class of the symbol table entries
+     * @return the list of entries of this kind
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends SymbolTableEntry> List<T> getEntries(Class<T> kind) {
+        List<T> view = (List<T>) m_viewsByKind.get(kind);
+
+        if (view == null) {
+            if (hasEntriesOfSubclass(kind)) {
+                List<T> entries = new ArrayList<T>();
+
+                for (SymbolTableEntry se : m_entries.values()) {
+                    if (kind.isInstance(se)) {
+                        entries.add(kind.cast(se));
+                    }
+                }
 
-            if ( se.getClass() != Class.forName("TaskEntry")) {
-                return ((TaskEntry) se).scope;
+                view = Collections.unmodifiableList(entries);
+            } else {
+                Map<String, SymbolTableEntry> entries = m_entriesByKind.get(kind);
+
+                if (entries == null) {
+                    view = Collections.emptyList();
+                } else {
+                    view = Collections.unmodifiableList(new ArrayList<T>((Collection<T>) entries.values()));
+                }
             }
 
-            if ( se.getClass() != Class.forName("BlockEntry")) {
-                return ((BlockEntry) se).scope;
+            m_viewsByKind.put(kind, view);
+        }
+
+        return view;
+    }
+
+    private boolean hasEntriesOfSubclass(Class<?> kind) {
+        for (Map.Entry<Class<?>, Map<String, SymbolTableEntry>> entries : m_entriesByKind.entrySet()) {
+            if (entries.getKey() != kind && kind.isAssignableFrom(entries.getKey()) && !entries.getValue().isEmpty()) {
+                return true;
             }
+        }
+
+        return false;
+    }
 
-            return this;
+    public SymbolTable ascend() {
+        return parent != null ? parent : this;
+    }
+
+    public SymbolTable descend(String name) {
+        SymbolTableEntry se = lookupLocal(name);
+
+        if (se instanceof ModuleEntry) {
+            return ((ModuleEntry) se).scope;
         }
-        catch (Exception e) {	// ClassNotFound exceptin; this is a pain
-            System.out.println(e);
-            e.printStackTrace();
-            return null;
+
+        if (se instanceof ProcedureEntry) {
+            return ((ProcedureEntry) se).scope;
+        }
+
+        if (se instanceof TaskEntry) {
+            return ((TaskEntry) se).scope;
         }
+
+        if (se instanceof BlockEntry) {
+            return ((BlockEntry) se).scope;
+        }
+
+        return this;
     }
 
     public void dump() {
@@ -221,8 +329,8 @@ public class SymbolTable {
             indent += "  ";
         }
 
-        for (Iterator it = m_entries.values().iterator(); it.hasNext(); ) {
-            output += ((SymbolTableEntry)it.next()).toString(nextLevel) +
+        for (Iterator<SymbolTableEntry> it = m_entries.values().iterator(); it.hasNext(); ) {
+            output += it.next().toString(nextLevel) +
                     (it.hasNext() ? "\n" : "");
         }
 
@@ -230,89 +338,35 @@ public class SymbolTable {
     }
 
 
-    public LinkedList<TaskEntry> getTaskDeclarations() {
-        LinkedList<TaskEntry>  listOfTaskEntries = new  LinkedList<TaskEntry>();
-        SymbolTableEntry e;
-
-        for (Iterator it = m_entries.values().iterator(); it.hasNext(); ) {
-            SymbolTableEntry symbolTableEntry = (SymbolTableEntry) it.next();
-            if ( symbolTableEntry instanceof TaskEntry ) {
-                TaskEntry taskEntry = (TaskEntry)symbolTableEntry;
-                listOfTaskEntries.add(taskEntry);
-            }
-        }
-
-        return listOfTaskEntries;
+    public List<TaskEntry> getTaskDeclarations() {
+        return getEntries(TaskEntry.class);
     }
 
-    public LinkedList<VariableEntry> getVariableDeclarations() {
-        LinkedList<VariableEntry>  listOfVariableDeclarationsEntries = new  LinkedList<VariableEntry>();
-        SymbolTableEntry e;
-
-        for (Iterator it = m_entries.values().iterator(); it.hasNext(); ) {
-            SymbolTableEntry symbolTableEntry = (SymbolTableEntry) it.next();
-            if ( symbolTableEntry instanceof VariableEntry ) {
-                VariableEntry variableEntry = (VariableEntry)symbolTableEntry;
-                listOfVariableDeclarationsEntries.add(variableEntry);
-            }
-        }
-
-        return listOfVariableDeclarationsEntries;
+    public List<VariableEntry> getVariableDeclarations() {
+        return getEntries(VariableEntry.class);
     }
 
 
     public LinkedList<VariableEntry> getAllArrayDeclarations(SymbolTable symbolTable) {
         LinkedList<VariableEntry> listOfArrayDeclarations = new LinkedList<VariableEntry>();
 
-        for (Iterator it = m_entries.values().iterator(); it.hasNext(); ) {
-            SymbolTableEntry entry = (SymbolTableEntry)it.next();
+        for (Iterator<SymbolTableEntry> it = m_entries.values().iterator(); it.hasNext(); ) {
+            SymbolTableEntry entry = it.next();
        }
 
         return listOfArrayDeclarations;
     }
 
-    public LinkedList<SemaphoreEntry> getSemaphoreDeclarations() {
-        LinkedList<SemaphoreEntry>  listOfSemaEntries = new  LinkedList<SemaphoreEntry>();
-        SymbolTableEntry e;
-
-        for (Iterator it = m_entries.values().iterator(); it.hasNext(); ) {
-            SymbolTableEntry symbolTableEntry = (SymbolTableEntry) it.next();
-            if (symbolTableEntry instanceof SemaphoreEntry) {
-                SemaphoreEntry semaEntry = (SemaphoreEntry) symbolTableEntry;
-                listOfSemaEntries.add(semaEntry);
-            }
-        }
-
-        return listOfSemaEntries;
+    public List<SemaphoreEntry> getSemaphoreDeclarations() {
+        return getEntries(SemaphoreEntry.class);
     }
 
-    public LinkedList<BoltEntry> getBoltDeclarations() {
-        LinkedList<BoltEntry>  listOfBoltEntries = new  LinkedList<BoltEntry>();
-        SymbolTableEntry e;
-
-        for (Iterator it = m_entries.values().iterator(); it.hasNext(); ) {
-            SymbolTableEntry symbolTableEntry = (SymbolTableEntry) it.next();
-            if (symbolTableEntry instanceof BoltEntry) {
-                BoltEntry boltEntry = (BoltEntry) symbolTableEntry;
-                listOfBoltEntries.add(boltEntry);
-            }
-        }
-
-        return listOfBoltEntries;
+    public List<BoltEntry> getBoltDeclarations() {
+        return getEntries(BoltEntry.class);
     }
 
-    public LinkedList<ModuleEntry> getModules() {
-        LinkedList<ModuleEntry>  listOfModules = new  LinkedList<ModuleEntry>();
-
-        for (Iterator it = m_entries.values().iterator(); it.hasNext(); ) {
-            SymbolTableEntry symbolTableEntry = (SymbolTableEntry) it.next();
-            if (symbolTableEntry instanceof ModuleEntry) {
-                ModuleEntry moduleEntry = (ModuleEntry) symbolTableEntry;
-                listOfModules.add(moduleEntry);
-            }
-        }
-
-        return listOfModules;
+    public List<ModuleEntry> getModules() {
+        return getEntries(ModuleEntry.class);
     }
 
     public int lookupDefaultFixedLength() {
@@ -391,7 +445,9 @@ public class SymbolTable {
     public boolean usesSystemElements() { return m_usesSystemElements;}
 
     public SymbolTable parent;
-    protected HashMap m_entries;
+    protected Map<String, SymbolTableEntry> m_entries;
+    private Map<Class<?>, Map<String, SymbolTableEntry>> m_entriesByKind;
+    private Map<Class<?>, List<? extends SymbolTableEntry>> m_viewsByKind;
     public int m_level;
     private boolean m_usesSystemElements;
 }
\ No newline at end of file
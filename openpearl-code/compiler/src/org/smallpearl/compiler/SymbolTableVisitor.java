@@ -32,9 +32,13 @@ package org.smallpearl.compiler;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeProperty;
+import org.antlr.v4.runtime.tree.TerminalNode;
 import org.smallpearl.compiler.SymbolTable.*;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Collections;
 
 
@@ -52,6 +56,8 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
 
     private TypeDefinition m_type;
     private ParseTreeProperty<SymbolTable> m_symboltablePerContext = null;
+    private ParseTreeProperty<SymbolTableEntry> m_entryPerIdentifier = null;
+    private Map<SymbolTableEntry, List<TerminalNode>> m_identifiersPerEntry = null;
     private ConstantPool m_constantPool = null;
 
     public SymbolTableVisitor(int verbose, ConstantPool constantPool) {
@@ -70,6 +76,8 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
         this.m_listOfTemporaryBoltArrays = new LinkedList<LinkedList<BoltEntry>>();
         this.m_listOfArrayDescriptors = new LinkedList<ArrayDescriptor>();
         this.m_symboltablePerContext = new ParseTreeProperty<SymbolTable>();
+        this.m_entryPerIdentifier = new ParseTreeProperty<SymbolTableEntry>();
+        this.m_identifiersPerEntry = new IdentityHashMap<SymbolTableEntry, List<TerminalNode>>();
         this.m_constantPool = constantPool;
     }
 
@@ -372,7 +380,7 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
 
             if ( initializer.getConstant() instanceof ConstantFixedValue) {
                 ConstantFixedValue value = (ConstantFixedValue) initializer.getConstant();
-                value.setPrecision(typ.getPrecision());
+                m_constantPool.changePrecision(value, typ.getPrecision());
             }
             else {
                 throw new TypeMismatchException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -384,7 +392,7 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
 
             if ( initializer.getConstant() instanceof ConstantFloatValue) {
                 ConstantFloatValue value = (ConstantFloatValue) initializer.getConstant();
-                value.setPrecision(typ.getPrecision());
+                m_constantPool.changePrecision(value, typ.getPrecision());
             }
             else if ( initializer.getConstant() instanceof ConstantFixedValue) {
                 ConstantFixedValue fixedValue = (ConstantFixedValue) initializer.getConstant();
@@ -803,7 +811,7 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
     public Void visitSemaTry(SmallPearlParser.SemaTryContext ctx) {
         LinkedList<SemaphoreEntry> listOfSemaphores = new LinkedList<SemaphoreEntry>();
 
-        LinkedList<ModuleEntry> listOfModules = this.symbolTable.getModules();
+        List<ModuleEntry> listOfModules = this.symbolTable.getModules();
 
         if ( listOfModules.size() > 1 ) {
             throw new NotYetImplementedException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -833,7 +841,7 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
     public Void visitSemaRequest(SmallPearlParser.SemaRequestContext ctx) {
         LinkedList<SemaphoreEntry> listOfSemaphores = new LinkedList<SemaphoreEntry>();
 
-        LinkedList<ModuleEntry> listOfModules = this.symbolTable.getModules();
+        List<ModuleEntry> listOfModules = this.symbolTable.getModules();
 
         if ( listOfModules.size() > 1 ) {
             throw new NotYetImplementedException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -863,7 +871,7 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
     public Void visitSemaRelease(SmallPearlParser.SemaReleaseContext ctx) {
         LinkedList<SemaphoreEntry> listOfSemaphores = new LinkedList<SemaphoreEntry>();
 
-        LinkedList<ModuleEntry> listOfModules = this.symbolTable.getModules();
+        List<ModuleEntry> listOfModules = this.symbolTable.getModules();
 
         if ( listOfModules.size() > 1 ) {
             throw new NotYetImplementedException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -1029,7 +1037,7 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
     public Void visitBoltReserve(SmallPearlParser.BoltReserveContext ctx) {
         LinkedList<BoltEntry> listOfBolts = new LinkedList<BoltEntry>();
 
-        LinkedList<ModuleEntry> listOfModules = this.symbolTable.getModules();
+        List<ModuleEntry> listOfModules = this.symbolTable.getModules();
 
         if ( listOfModules.size() > 1 ) {
             throw new NotYetImplementedException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -1059,7 +1067,7 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
     public Void visitBoltFree(SmallPearlParser.BoltFreeContext ctx) {
         LinkedList<BoltEntry> listOfBolts = new LinkedList<BoltEntry>();
 
-        LinkedList<ModuleEntry> listOfModules = this.symbolTable.getModules();
+        List<ModuleEntry> listOfModules = this.symbolTable.getModules();
 
         if ( listOfModules.size() > 1 ) {
             throw new NotYetImplementedException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -1089,7 +1097,7 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
     public Void visitBoltEnter(SmallPearlParser.BoltEnterContext ctx) {
         LinkedList<BoltEntry> listOfBolts = new LinkedList<BoltEntry>();
 
-        LinkedList<ModuleEntry> listOfModules = this.symbolTable.getModules();
+        List<ModuleEntry> listOfModules = this.symbolTable.getModules();
 
         if ( listOfModules.size() > 1 ) {
             throw new NotYetImplementedException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -1119,7 +1127,7 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
     public Void visitBoltLeave(SmallPearlParser.BoltLeaveContext ctx) {
         LinkedList<BoltEntry> listOfBolts = new LinkedList<BoltEntry>();
 
-        LinkedList<ModuleEntry> listOfModules = this.symbolTable.getModules();
+        List<ModuleEntry> listOfModules = this.symbolTable.getModules();
 
         if ( listOfModules.size() > 1 ) {
             throw new NotYetImplementedException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
@@ -1149,6 +1157,61 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
         return m_symboltablePerContext.get(ctx);
     }
 
+    /**
+     * get the innermost scope, which contains the given node
+     *
+     * @param ctx the node of the parse tree
+     * @return the scope of the nearest node on the path to the root, which
+     *         opens a scope; the outermost symbol table, if there is none
+     */
+    public SymbolTable getEnclosingSymbolTable(ParseTree ctx) {
+        for (ParseTree p = ctx; p != null; p = p.getParent()) {
+            SymbolTable scope = m_symboltablePerContext.get(p);
+
+            if (scope != null) {
+                return scope;
+            }
+        }
+
+        return symbolTable;
+    }
+
+    /**
+     * resolve all identifiers of the parse tree against the completed
+     * symbol table
+     *
+     * @param tree the parse tree which was visited by this visitor
+     */
+    public void resolveIdentifiers(ParseTree tree) {
+        new IdentifierResolverVisitor(this, m_entryPerIdentifier, m_identifiersPerEntry).visit(tree);
+    }
+
+    /**
+     * get the symbol table entry of an identifier
+     *
+     * @param id the ID token of the parse tree
+     * @return the entry which is visible at the position of the token, or null
+     */
+    public SymbolTableEntry getEntryPerIdentifier(ParseTree id) {
+        return m_entryPerIdentifier.get(id);
+    }
+
+    /**
+     * get all ID tokens of the parse tree which denote the given entry
+     *
+     * @param entry the symbol table entry
+     * @return the ID tokens in the order of the parse tree
+     */
+    public List<TerminalNode> getIdentifiersPerEntry(SymbolTableEntry entry) {
+        List<TerminalNode> identifiers = m_identifiersPerEntry.get(entry);
+
+        if (identifiers == null) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(identifiers);
+    }
+
     @Override
     public Void visitDationDeclaration(SmallPearlParser.DationDeclarationContext ctx) {
         if (m_verbose > 0) {
@@ -1365,7 +1428,7 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
 
 
     private ConstantValue getConstantExpression(SmallPearlParser.ConstantExpressionContext ctx) {
-        ConstantFixedExpressionEvaluator evaluator = new ConstantFixedExpressionEvaluator(m_verbose, m_debug, m_currentSymbolTable,null, null);
+        ConstantFixedExpressionEvaluator evaluator = new ConstantFixedExpressionEvaluator(m_verbose, m_debug, m_currentSymbolTable, null, null, null);
         ConstantValue constant = evaluator.visit(ctx.constantFixedExpression());
 
         return constant;
@@ -1373,7 +1436,7 @@ public class SymbolTableVisitor extends SmallPearlBaseVisitor<Void> implements S
 
     @Override
     public Void visitDationSpecification(SmallPearlParser.DationSpecificationContext ctx) {
-        LinkedList<ModuleEntry> listOfModules = this.symbolTable.getModules();
+        List<ModuleEntry> listOfModules = this.symbolTable.getModules();
 
         if ( listOfModules.size() > 1 ) {
             throw new NotYetImplementedException(ctx.getText(), ctx.start.getLine(), ctx.start.getCharPositionInLine());
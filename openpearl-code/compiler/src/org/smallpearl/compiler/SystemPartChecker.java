@@ -0,0 +1,327 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2018 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.stringtemplate.v4.ST;
+
+/**
+ * Runs the inter module checker (imc) in the process of the compiler
+ * (--imcTarget). The system parts of the translated modules are passed
+ * directly, so that neither the xml files nor a separate java process are
+ * needed.
+ *
+ * The imc is a separate program in the default package. It is taken from
+ * the class path, or else from imc.jar in the directory of the compiler
+ * jar, where both are installed. Since the compiler cannot use the classes
+ * of the imc, a system part is passed as a tree of maps, lists and strings,
+ * which mirrors the elements of the xml file (see ModuleXml of the imc).
+ */
+public class SystemPartChecker {
+    private static final String IMC_CLASS = "InterModuleChecker";
+    private static final String IMC_JAR = "imc.jar";
+
+    private static Method s_check = null;
+
+    /**
+     * check the system parts of the modules and create the C++ system part
+     *
+     * @param options the options of this invocation
+     * @param moduleNames the names of the modules without extension
+     * @param systemParts the system parts of the modules as created by
+     *        describe()
+     * @return 0 if the system part was created, 1 if the imc detected errors,
+     *         a negative value if the imc could not be run
+     */
+    static int check(Options options, List<String> moduleNames, List<Map<String, Object>> systemParts) {
+        Method check = getCheckMethod();
+
+        if (check == null) {
+            System.err.println("inter module checker (" + IMC_JAR + ") not found");
+            return -1;
+        }
+
+        String target = options.resolve(options.imcTarget).getPath();
+        String output = options.resolve(options.imcOutput).getPath();
+
+        try {
+            Object result = check.invoke(null, target, output, moduleNames, systemParts);
+            return ((Integer) result).intValue();
+        } catch (InvocationTargetException ex) {
+            System.err.println(ex.getCause());
+            System.err.println("Inter module check aborted.");
+
+            if (options.stacktrace) {
+                System.err.println(Compiler.getStackTrace(ex.getCause()));
+            }
+        } catch (IllegalAccessException ex) {
+            System.err.println(ex.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * describe the system part of a module for the imc
+     *
+     * The description is taken from the templates, which the
+     * SystemPartExporter collected, without rendering them.
+     *
+     * @param module the Module template of the SystemPartExporter
+     * @return the definition of the module
+     */
+    static Map<String, Object> describe(ST module) {
+        Map<String, Object> definition = new HashMap<String, Object>();
+        definition.put("file", getString(module, "sourcefile"));
+
+        ST systemPart = (ST) module.getAttribute("SystemPart");
+
+        if (systemPart != null) {
+            List<Map<String, Object>> system = new ArrayList<Map<String, Object>>();
+
+            for (Object decl : getList(systemPart, "decls")) {
+                system.add(describeSystemElement((ST) decl));
+            }
+
+            definition.put("system", system);
+        }
+
+        ST problemPart = (ST) module.getAttribute("ProblemPart");
+
+        if (problemPart != null) {
+            List<Map<String, Object>> problem = new ArrayList<Map<String, Object>>();
+
+            for (Object decl : getList(problemPart, "decls")) {
+                problem.add(describeSpecification((ST) decl));
+            }
+
+            definition.put("problem", problem);
+        }
+
+        return definition;
+    }
+
+    /**
+     * describe a username, configuration, sysname or association
+     */
+    private static Map<String, Object> describeSystemElement(ST st) {
+        Map<String, Object> element = new HashMap<String, Object>();
+        String template = st.getName();
+
+        if (template.equals("/Username_Declaration")) {
+            element.put("element", "username");
+            element.put("name", getString(st, "username"));
+            element.put("line", getString(st, "lineno"));
+            element.put("sysname", describeSystemElement((ST) st.getAttribute("decl")));
+        } else if (template.equals("/User_Configuration")) {
+            Map<String, Object> sysname = new HashMap<String, Object>();
+            sysname.put("element", "sysname");
+            sysname.put("name", getString(st, "sysname"));
+            sysname.put("parameters", describeParameters((ST) st.getAttribute("parameters")));
+            sysname.put("association", describeAssociation((ST) st.getAttribute("association")));
+
+            element.put("element", "configuration");
+            element.put("line", getString(st, "lineno"));
+            element.put("sysname", sysname);
+        } else {
+            // the sysname of a username declaration
+            element.put("element", "sysname");
+            element.put("name", getString(st, "sysname"));
+            element.put("parameters", describeParameters((ST) st.getAttribute("parameters")));
+            element.put("association", describeAssociation((ST) st.getAttribute("association")));
+        }
+
+        return element;
+    }
+
+    private static Map<String, Object> describeAssociation(ST st) {
+        if (st == null) {
+            return null;
+        }
+
+        Map<String, Object> association = new HashMap<String, Object>();
+        association.put("element", "association");
+        association.put("name", getString(st, "name"));
+        association.put("parameters", describeParameters((ST) st.getAttribute("parameters")));
+
+        return association;
+    }
+
+    /**
+     * describe the parameters as pairs of type and value
+     */
+    private static List<String[]> describeParameters(ST st) {
+        if (st == null) {
+            return null;
+        }
+
+        List<String[]> parameters = new ArrayList<String[]>();
+
+        for (Object param : getList(st, "params")) {
+            ST type = (ST) ((ST) param).getAttribute("type");
+
+            if (type != null) {
+                // Type_Char --> CHAR
+                String name = type.getName().substring("/Type_".length()).toUpperCase();
+                parameters.add(new String[] { name, getString(type, "name") });
+            }
+        }
+
+        return parameters;
+    }
+
+    /**
+     * describe a specification in the problem part
+     */
+    private static Map<String, Object> describeSpecification(ST st) {
+        Map<String, Object> specification = new HashMap<String, Object>();
+        specification.put("element", "spc");
+        specification.put("line", getString(st, "lineno"));
+
+        if (st.getName().equals("/DationSpecification")) {
+            specification.put("type", "dation");
+            specification.put("name", join(getList(st, "name"), ""));
+
+            ST attributes = (ST) st.getAttribute("attributes");
+
+            if (attributes != null) {
+                specification.put("attributes", join(getList(attributes, "attributes"), ","));
+            }
+
+            ST datalist = (ST) st.getAttribute("datalist");
+
+            if (datalist != null) {
+                specification.put("data", join(getList(datalist, "data"), ","));
+            }
+        } else {
+            ST type = (ST) st.getAttribute("type");
+            specification.put("type", type != null ? getString(type, "name") : "");
+            specification.put("name", getString(st, "name"));
+        }
+
+        return specification;
+    }
+
+    /**
+     * get the values of an attribute of a template, which may be absent,
+     * a single value or a list of values
+     */
+    private static List<?> getList(ST st, String attribute) {
+        Object value = st.getAttribute(attribute);
+
+        if (value == null) {
+            return new ArrayList<Object>();
+        } else if (value instanceof List) {
+            return (List<?>) value;
+        }
+
+        List<Object> list = new ArrayList<Object>();
+        list.add(value);
+        return list;
+    }
+
+    private static String getString(ST st, String attribute) {
+        Object value = st.getAttribute(attribute);
+
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * join the values like the templates do; Attribute, Data and names of
+     * dations are templates or strings with a name
+     */
+    private static String join(List<?> values, String separator) {
+        StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+
+            if (i > 0) {
+                result.append(separator);
+            }
+
+            if (value instanceof ST) {
+                result.append(getString((ST) value, "name"));
+            } else {
+                result.append(value);
+            }
+        }
+
+        return result.toString();
+    }
+
+    private static synchronized Method getCheckMethod() {
+        if (s_check == null) {
+            Class<?> imc = findClass();
+
+            if (imc != null) {
+                try {
+                    s_check = imc.getMethod("check", String.class, String.class, List.class, List.class);
+                } catch (NoSuchMethodException ex) {
+                    return null;
+                }
+            }
+        }
+
+        return s_check;
+    }
+
+    private static Class<?> findClass() {
+        try {
+            return Class.forName(IMC_CLASS);
+        } catch (ClassNotFoundException ex) {
+            // not on the class path
+        }
+
+        try {
+            URL location = Compiler.class.getProtectionDomain().getCodeSource().getLocation();
+            File jar = new File(new File(location.toURI()).getParentFile(), IMC_JAR);
+
+            if (!jar.isFile()) {
+                return null;
+            }
+
+            URLClassLoader loader = new URLClassLoader(new URL[] { jar.toURI().toURL() },
+                                                       Compiler.class.getClassLoader());
+            return loader.loadClass(IMC_CLASS);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+}
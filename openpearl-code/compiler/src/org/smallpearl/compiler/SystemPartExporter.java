@@ -44,7 +44,7 @@ import org.w3c.dom.*;
 
 public class SystemPartExporter extends SmallPearlBaseVisitor<ST> implements SmallPearlVisitor<ST> {
 
-    private static final String IMC_EXPORT_STG = "IMC.stg";
+    static final String IMC_EXPORT_STG = "IMC.stg";
 
     private STGroup group;
     private int m_verbose;
@@ -69,7 +69,7 @@ public class SystemPartExporter extends SmallPearlBaseVisitor<ST> implements Sma
             System.out.println("Read StringTemplate Group File: " + filename);
         }
 
-        this.group = new STGroupFile(filename);
+        this.group = TemplateGroups.get(filename);
 
         return null;
     }
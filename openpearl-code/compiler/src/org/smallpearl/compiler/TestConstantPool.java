@@ -0,0 +1,138 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2017 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Benchmark of the constant pool for modules with many literals.
+ *
+ * Each run enters n FIXED, n FLOAT and n BIT literals, enters all of them
+ * a second time (a literal which is used twice) and looks each one up
+ * again, as the code generator does. The pool is indexed, so the time
+ * grows linearly with n. A pool, which scans its entries for each
+ * literal, grows quadratically and needs several seconds for 50000
+ * literals.
+ *
+ * The times depend on the machine and on the garbage collector, so they
+ * are only printed by the benchmark. The test checks the looked up
+ * constants.
+ *
+ * Run as benchmark:
+ * <pre>
+ *   java -cp &lt;classpath&gt; org.smallpearl.compiler.TestConstantPool [n ...]
+ * </pre>
+ */
+@Test
+public class TestConstantPool {
+    @Test
+    public void testLookup() {
+        int n = 1000;
+        ConstantPool pool = new ConstantPool();
+        ConstantValue[][] found = new ConstantValue[3][n];
+
+        run(n, pool, found);
+
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(((ConstantFixedValue) found[0][i]).getValue(), (long) i);
+            Assert.assertEquals(((ConstantFloatValue) found[1][i]).getValue(), i + 0.5);
+            Assert.assertEquals(((ConstantBitValue) found[2][i]).getNo(), i + 1);
+        }
+
+        Assert.assertEquals(pool.getFixedConstants().size(), n);
+        Assert.assertEquals(pool.getFloatConstants().size(), n);
+        Assert.assertEquals(pool.getBitConstants().size(), n);
+    }
+
+    /**
+     * fill a new pool with n literals of each type
+     *
+     * @param n the number of different literals per type
+     * @return the elapsed time of add and lookup in ns
+     */
+    static long run(int n) {
+        return run(n, new ConstantPool(), new ConstantValue[3][n]);
+    }
+
+    /**
+     * enter n literals of each type twice and look them up
+     *
+     * @param found receives the looked up FIXED, FLOAT and BIT constants
+     * @return the elapsed time of add and lookup in ns
+     */
+    private static long run(int n, ConstantPool pool, ConstantValue[][] found) {
+        long start = System.nanoTime();
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < n; i++) {
+                pool.add(new ConstantFixedValue(i, 31));
+                pool.add(new ConstantFloatValue(i + 0.5, 53));
+                pool.add(new ConstantBitValue(i, 31));
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            found[0][i] = pool.lookupFixedValue(i, 31);
+            found[1][i] = pool.lookupFloatValue(i + 0.5, 53);
+            found[2][i] = pool.lookupBitValue(i, 31);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = {25000, 50000, 100000};
+
+        if (args.length > 0) {
+            sizes = new int[args.length];
+
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        // warm up the JIT compiler
+        run(sizes[0]);
+
+        long first = 0;
+
+        for (int n : sizes) {
+            long time = run(n);
+
+            if (first == 0) {
+                first = time;
+            }
+
+            System.out.println(String.format("%8d literals per type: %6d ms  (%.1f x)",
+                    n, time / 1000000, (double) time / first));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2017 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler;
+
+/**
+ * Closed interval [lower, upper] of the values a FIXED expression may take
+ * at runtime.
+ *
+ * The operations return null if a boundary of the result does not fit
+ * into a long; null is treated as unknown range by ValueRangeVisitor.
+ */
+public class ValueRange {
+    private final long m_lowerBoundary;
+    private final long m_upperBoundary;
+
+    public ValueRange(long lowerBoundary, long upperBoundary) {
+        this.m_lowerBoundary = lowerBoundary;
+        this.m_upperBoundary = upperBoundary;
+    }
+
+    /**
+     * the range of the runtime type pearlrt::Fixed<precision>
+     *
+     * @param precision the precision of the FIXED type
+     * @return the range -2^precision .. 2^precision-1
+     */
+    public static ValueRange ofFixed(int precision) {
+        return new ValueRange(-(1L << precision), (1L << precision) - 1);
+    }
+
+    public long getLowerBoundary() { return this.m_lowerBoundary; }
+    public long getUpperBoundary() { return this.m_upperBoundary; }
+
+    public boolean isContainedIn(ValueRange other) {
+        return other.m_lowerBoundary <= this.m_lowerBoundary && this.m_upperBoundary <= other.m_upperBoundary;
+    }
+
+    public boolean contains(long value) {
+        return this.m_lowerBoundary <= value && value <= this.m_upperBoundary;
+    }
+
+    public ValueRange intersect(ValueRange other) {
+        return new ValueRange(Math.max(this.m_lowerBoundary, other.m_lowerBoundary),
+                              Math.min(this.m_upperBoundary, other.m_upperBoundary));
+    }
+
+    public ValueRange union(ValueRange other) {
+        return new ValueRange(Math.min(this.m_lowerBoundary, other.m_lowerBoundary),
+                              Math.max(this.m_upperBoundary, other.m_upperBoundary));
+    }
+
+    public ValueRange add(ValueRange other) {
+        try {
+            return new ValueRange(Math.addExact(this.m_lowerBoundary, other.m_lowerBoundary),
+                                  Math.addExact(this.m_upperBoundary, other.m_upperBoundary));
+        } catch (ArithmeticException ex) {
+            return null;
+        }
+    }
+
+    public ValueRange subtract(ValueRange other) {
+        try {
+            return new ValueRange(Math.subtractExact(this.m_lowerBoundary, other.m_upperBoundary),
+                                  Math.subtractExact(this.m_upperBoundary, other.m_lowerBoundary));
+        } catch (ArithmeticException ex) {
+            return null;
+        }
+    }
+
+    public ValueRange multiply(ValueRange other) {
+        try {
+            long p1 = Math.multiplyExact(this.m_lowerBoundary, other.m_lowerBoundary);
+            long p2 = Math.multiplyExact(this.m_lowerBoundary, other.m_upperBoundary);
+            long p3 = Math.multiplyExact(this.m_upperBoundary, other.m_lowerBoundary);
+            long p4 = Math.multiplyExact(this.m_upperBoundary, other.m_upperBoundary);
+
+            return new ValueRange(Math.min(Math.min(p1, p2), Math.min(p3, p4)),
+                                  Math.max(Math.max(p1, p2), Math.max(p3, p4)));
+        } catch (ArithmeticException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * integer division, which truncates towards zero
+     *
+     * @param other the range of the divisor
+     * @return the range of the quotient; null if the divisor may be 0
+     */
+    public ValueRange divide(ValueRange other) {
+        if (other.contains(0)) {
+            return null;
+        }
+
+        // |quotient| <= |dividend|
+        try {
+            long max = Math.max(Math.negateExact(this.m_lowerBoundary), this.m_upperBoundary);
+            return new ValueRange(-max, max);
+        } catch (ArithmeticException ex) {
+            return null;
+        }
+    }
+
+    public ValueRange negate() {
+        try {
+            return new ValueRange(Math.negateExact(this.m_upperBoundary), Math.negateExact(this.m_lowerBoundary));
+        } catch (ArithmeticException ex) {
+            return null;
+        }
+    }
+
+    public String toString() {
+        return Long.toString(this.m_lowerBoundary) + ":" + Long.toString(this.m_upperBoundary);
+    }
+}
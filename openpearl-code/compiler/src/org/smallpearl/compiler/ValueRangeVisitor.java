@@ -0,0 +1,419 @@
+/*
+ * [The "BSD license"]
+ *  Copyright (c) 2012-2017 Marcel Schaible
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions
+ *  are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ *  IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ *  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *  INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *  NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *  DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *  THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.smallpearl.compiler;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeProperty;
+import org.smallpearl.compiler.SymbolTable.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Value-range analysis of the FIXED expressions
+ *
+ * Each FIXED arithmetic node is annotated with the range of the values it
+ * may take. The ranges are derived from literals, constants (INV with
+ * initializer), the control variables of FOR loops with known FROM and TO
+ * and FIT expressions. All other operands are bound by their type.
+ *
+ * A node is overflow free, if its range lies within the range of its type.
+ * The checked runtime operation can not raise FIXEDRANGE/FIXEDDIVIDEBYZERO
+ * for such a node.
+ *
+ * The type is the pearlrt::Fixed type of the generated code. It differs
+ * from the type of ExpressionTypeVisitor for literals in assignments, which
+ * keep their own precision in the generated code.
+ */
+public class ValueRangeVisitor extends SmallPearlBaseVisitor<Void> implements SmallPearlVisitor<Void> {
+
+    private static final int UNKNOWN_PRECISION = 0;
+
+    private int m_verbose;
+    private boolean m_debug;
+    private SymbolTableVisitor m_symbolTableVisitor;
+    private ExpressionTypeVisitor m_expressionTypeVisitor;
+    private ParseTreeProperty<ValueRange> m_ranges;
+    private ParseTreeProperty<Integer> m_precisions;
+    private boolean m_inAssignment;
+    private Map<VariableEntry, ValueRange> m_loopControlVariables;
+
+    public ValueRangeVisitor(int verbose,
+                             boolean debug,
+                             SymbolTableVisitor symbolTableVisitor,
+                             ExpressionTypeVisitor expressionTypeVisitor) {
+
+        m_debug = debug;
+        m_verbose = verbose;
+        m_symbolTableVisitor = symbolTableVisitor;
+        m_expressionTypeVisitor = expressionTypeVisitor;
+        m_ranges = new ParseTreeProperty<ValueRange>();
+        m_precisions = new ParseTreeProperty<Integer>();
+        m_inAssignment = false;
+        m_loopControlVariables = new HashMap<VariableEntry, ValueRange>();
+
+        if (m_verbose > 0) {
+            System.out.println("Value range analysis: Attributing parse tree with value range information");
+        }
+    }
+
+    /**
+     * get the range of a FIXED expression
+     *
+     * @param ctx the expression
+     * @return the range of the expression, bound by its type; null if the
+     *         expression is not of type FIXED
+     */
+    public ValueRange lookup(ParserRuleContext ctx) {
+        ValueRange typeRange = getTypeRange(ctx);
+
+        if (typeRange == null) {
+            return null;
+        }
+
+        ValueRange range = m_ranges.get(ctx);
+
+        if (range == null) {
+            return typeRange;
+        }
+
+        // a value outside of the type range raises a signal in the
+        // checked operation and never reaches the enclosing expression
+        range = range.intersect(typeRange);
+
+        if (range.getLowerBoundary() > range.getUpperBoundary()) {
+            return typeRange;
+        }
+
+        return range;
+    }
+
+    /**
+     * check if the operation of a FIXED expression can not overflow
+     *
+     * @param ctx the expression
+     * @return true, if the result is always in the range of the type
+     */
+    public boolean isOverflowFree(ParserRuleContext ctx) {
+        ValueRange typeRange = getTypeRange(ctx);
+        ValueRange range = m_ranges.get(ctx);
+
+        return typeRange != null && range != null && range.isContainedIn(typeRange);
+    }
+
+    /**
+     * get the precision of the pearlrt::Fixed type of an expression in the
+     * generated code
+     *
+     * @param ctx the expression
+     * @return the precision; null if the expression is not of type FIXED
+     *         or the precision is not known
+     */
+    public Integer getPrecision(ParserRuleContext ctx) {
+        ExpressionResult res = m_expressionTypeVisitor.lookup(ctx);
+
+        if (res == null || !(res.getType() instanceof TypeFixed)) {
+            return null;
+        }
+
+        Integer precision = m_precisions.get(ctx);
+
+        if (precision == null) {
+            return ((TypeFixed) res.getType()).getPrecision();
+        }
+
+        if (precision == UNKNOWN_PRECISION) {
+            return null;
+        }
+
+        return precision;
+    }
+
+    private ValueRange getTypeRange(ParserRuleContext ctx) {
+        Integer precision = getPrecision(ctx);
+
+        if (precision != null) {
+            return ValueRange.ofFixed(precision);
+        }
+
+        return null;
+    }
+
+    private void setPrecision(ParserRuleContext ctx, Integer precision) {
+        m_precisions.put(ctx, precision != null ? precision : UNKNOWN_PRECISION);
+    }
+
+    private void setPrecision(ParserRuleContext ctx, ParserRuleContext op1, ParserRuleContext op2) {
+        Integer p1 = getPrecision(op1);
+        Integer p2 = getPrecision(op2);
+
+        if (p1 != null && p2 != null) {
+            setPrecision(ctx, Math.max(p1, p2));
+        } else {
+            setPrecision(ctx, null);
+        }
+    }
+
+    private void put(ParserRuleContext ctx, ValueRange range) {
+        if (range != null && getTypeRange(ctx) != null) {
+            m_ranges.put(ctx, range);
+
+            if (m_debug) {
+                System.out.println("ValueRangeVisitor: " + ctx.getText() + " -> " + range);
+            }
+        }
+    }
+
+    @Override
+    public Void visitLoopStatement(SmallPearlParser.LoopStatementContext ctx) {
+        if (m_debug) {
+            System.out.println("ValueRangeVisitor: visitLoopStatement");
+        }
+
+        if (ctx.loopStatement_from() != null) {
+            visit(ctx.loopStatement_from());
+        }
+
+        if (ctx.loopStatement_to() != null) {
+            visit(ctx.loopStatement_to());
+        }
+
+        // the control variable is assignment protected; in each pass it
+        // lies between FROM and TO regardless of the sign of BY
+        if (ctx.loopStatement_for() != null && ctx.loopStatement_to() != null) {
+            ValueRange from = new ValueRange(1, 1);
+            ValueRange to = lookup(ctx.loopStatement_to().expression());
+
+            if (ctx.loopStatement_from() != null) {
+                from = lookup(ctx.loopStatement_from().expression());
+            }
+
+            SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.loopStatement_for().ID());
+
+            if (entry instanceof VariableEntry && from != null && to != null) {
+                m_loopControlVariables.put((VariableEntry) entry, from.union(to));
+            }
+        }
+
+        for (ParseTree child : ctx.children) {
+            if (child != ctx.loopStatement_from() && child != ctx.loopStatement_to()) {
+                visit(child);
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitAssignment_statement(SmallPearlParser.Assignment_statementContext ctx) {
+        m_inAssignment = true;
+        visitChildren(ctx);
+        m_inAssignment = false;
+
+        return null;
+    }
+
+    @Override
+    public Void visitBaseExpression(SmallPearlParser.BaseExpressionContext ctx) {
+        visitChildren(ctx);
+
+        if (ctx.primaryExpression() != null) {
+            setPrecision(ctx, getPrecision(ctx.primaryExpression()));
+            put(ctx, m_ranges.get(ctx.primaryExpression()));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitPrimaryExpression(SmallPearlParser.PrimaryExpressionContext ctx) {
+        visitChildren(ctx);
+
+        if (ctx.literal() != null) {
+            if (ctx.literal().fixedConstant() != null) {
+                SmallPearlParser.FixedNumberPrecisionContext precision = ctx.literal().fixedConstant().fixedNumberPrecision();
+
+                if (precision != null) {
+                    setPrecision(ctx, Integer.parseInt(precision.IntegerConstant().getText()));
+                }
+
+                try {
+                    long value = Long.parseLong(ctx.literal().fixedConstant().IntegerConstant().getText());
+                    put(ctx, new ValueRange(value, value));
+                } catch (NumberFormatException ex) {
+                    // left to the type range
+                }
+            }
+        } else if (ctx.ID() != null && ctx.expression().isEmpty()) {
+            SymbolTableEntry entry = m_symbolTableVisitor.getEntryPerIdentifier(ctx.ID());
+
+            if (entry instanceof VariableEntry) {
+                VariableEntry variable = (VariableEntry) entry;
+
+                if (m_loopControlVariables.containsKey(variable)) {
+                    put(ctx, m_loopControlVariables.get(variable));
+                } else if (variable.getAssigmentProtection() && variable.getInitializer() != null &&
+                           variable.getInitializer().getConstant() instanceof ConstantFixedValue) {
+                    long value = ((ConstantFixedValue) variable.getInitializer().getConstant()).getValue();
+                    put(ctx, new ValueRange(value, value));
+                }
+            }
+        } else if (ctx.ID() == null && ctx.expression().size() == 1) {
+            setPrecision(ctx, getPrecision(ctx.expression(0)));
+            put(ctx, m_ranges.get(ctx.expression(0)));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitAdditiveExpression(SmallPearlParser.AdditiveExpressionContext ctx) {
+        visitChildren(ctx);
+
+        setPrecision(ctx, ctx.expression(0), ctx.expression(1));
+
+        ValueRange op1 = lookup(ctx.expression(0));
+        ValueRange op2 = lookup(ctx.expression(1));
+
+        if (op1 != null && op2 != null) {
+            put(ctx, op1.add(op2));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitSubtractiveExpression(SmallPearlParser.SubtractiveExpressionContext ctx) {
+        visitChildren(ctx);
+
+        setPrecision(ctx, ctx.expression(0), ctx.expression(1));
+
+        ValueRange op1 = lookup(ctx.expression(0));
+        ValueRange op2 = lookup(ctx.expression(1));
+
+        if (op1 != null && op2 != null) {
+            put(ctx, op1.subtract(op2));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitMultiplicativeExpression(SmallPearlParser.MultiplicativeExpressionContext ctx) {
+        visitChildren(ctx);
+
+        setPrecision(ctx, ctx.expression(0), ctx.expression(1));
+
+        ValueRange op1 = lookup(ctx.expression(0));
+        ValueRange op2 = lookup(ctx.expression(1));
+
+        if (op1 != null && op2 != null) {
+            put(ctx, op1.multiply(op2));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitDivideIntegerExpression(SmallPearlParser.DivideIntegerExpressionContext ctx) {
+        visitChildren(ctx);
+
+        setPrecision(ctx, ctx.expression(0), ctx.expression(1));
+
+        ValueRange op1 = lookup(ctx.expression(0));
+        ValueRange op2 = lookup(ctx.expression(1));
+
+        if (op1 != null && op2 != null) {
+            put(ctx, op1.divide(op2));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitUnarySubtractiveExpression(SmallPearlParser.UnarySubtractiveExpressionContext ctx) {
+        visitChildren(ctx);
+
+        if (isFixedLiteral(ctx.expression())) {
+            // the negative literal gets the default precision in the
+            // generated code; in an assignment the type of the literal
+            // is the precision of the target
+            SmallPearlParser.FixedConstantContext literal = ((SmallPearlParser.BaseExpressionContext) ctx.expression()).primaryExpression().literal().fixedConstant();
+
+            if (literal.fixedNumberPrecision() != null) {
+                setPrecision(ctx, getPrecision(ctx.expression()));
+            } else if (m_inAssignment) {
+                setPrecision(ctx, null);
+            }
+        } else {
+            setPrecision(ctx, getPrecision(ctx.expression()));
+        }
+
+        ValueRange op = lookup(ctx.expression());
+
+        if (op != null) {
+            put(ctx, op.negate());
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryAdditiveExpression(SmallPearlParser.UnaryAdditiveExpressionContext ctx) {
+        visitChildren(ctx);
+
+        setPrecision(ctx, getPrecision(ctx.expression()));
+        put(ctx, m_ranges.get(ctx.expression()));
+
+        return null;
+    }
+
+    @Override
+    public Void visitFitExpression(SmallPearlParser.FitExpressionContext ctx) {
+        visitChildren(ctx);
+
+        // FIT signals, if the value does not fit into the new precision
+        setPrecision(ctx, getPrecision(ctx.expression(1)));
+        put(ctx, m_ranges.get(ctx.expression(0)));
+
+        return null;
+    }
+
+    private boolean isFixedLiteral(SmallPearlParser.ExpressionContext ctx) {
+        if (ctx instanceof SmallPearlParser.BaseExpressionContext) {
+            SmallPearlParser.PrimaryExpressionContext primary = ((SmallPearlParser.BaseExpressionContext) ctx).primaryExpression();
+
+            return primary != null && primary.literal() != null && primary.literal().fixedConstant() != null;
+        }
+
+        return false;
+    }
+}
@@ -30,9 +30,17 @@
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * create C++ code for the detected elements
@@ -73,10 +81,38 @@ public class CodeGenerator {
 	 * create to output file with to complete content
 	 * 
 	 * if errors like loops in definition are detected, an error message occurs
+	 * 
+	 * An existing output file is only replaced, if the generated code differs
+	 * apart from the time stamp. Thus make does not compile the system part
+	 * again, if a relink did not change it.
 	 */
 	public static void create(String outputFile) {
 		
-		PrintWriter file;
+		StringWriter text = new StringWriter();
+		PrintWriter file = new PrintWriter(text);
+
+		file.println("#include \"PearlIncludes.h\" \n");
+
+
+		createCodeInDependencyOrder();
+
+		file.println("\n\nnamespace pearlrt {\n   int createSystemElements();");
+		file.println("}\n");
+		file.println("// enshure that the static (parametrized) objects are instanciated first");
+		file.println("static int dummy = pearlrt::createSystemElements();");
+		file.println();
+		file.println(simpleElements);
+		file.println("\n\nnamespace pearlrt {\n   int createSystemElements() {");
+		file.println(functionBody);
+		file.println("   return 0;");
+		file.println("   }\n}");
+		file.close();
+
+		String header = "// [automatic generated by intermodule checker (imc) -- do not change ]";
+		String code = text.toString();
+		if (isUnchanged(outputFile, header, code)) {
+			return;
+		}
 
 		try {
 			file = new PrintWriter(new FileWriter(outputFile));
@@ -86,80 +122,213 @@ public class CodeGenerator {
 			e.printStackTrace();
 			return;
 		}
-		file.println("// [automatic generated by intermodule checker (imc) -- do not change ]");
+		file.println(header);
 		DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
 		Date date = new Date();
 		file.println("// "+dateFormat.format(date)+"\n");
-		file.println("#include \"PearlIncludes.h\" \n");
+		file.print(code);
+		file.close();
+
+	}
+
+	/*
+	 * remove the code of a previous check
+	 */
+	static void clear() {
+		simpleElements.setLength(0);
+		functionBody.setLength(0);
+	}
+
+	/*
+	 * check whether the output file exists with the given code
+	 * 
+	 * The file must consist of the header line, a time stamp line, an empty
+	 * line and the code.
+	 */
+	private static boolean isUnchanged(String outputFile, String header, String code) {
+		String old;
+		try {
+			old = new String(Files.readAllBytes(Paths.get(outputFile)));
+		} catch (IOException e) {
+			return false;
+		}
+		String nl = System.lineSeparator();
+		if (!old.startsWith(header + nl + "// ")) {
+			return false;
+		}
+		// the time stamp line ends with an additional newline
+		int endOfTimeStamp = old.indexOf("\n" + nl, header.length() + nl.length());
+		if (endOfTimeStamp < 0) {
+			return false;
+		}
+		return old.substring(endOfTimeStamp + 1 + nl.length()).equals(code);
+	}
+
+	/*
+	 * emit the code of all system entries; each provider of an association
+	 * is emitted before its clients
+	 * 
+	 * The associations form a graph, in which each entry refers to at most
+	 * one named provider. Thus each strongly connected component with more
+	 * than one entry is a simple cycle, which is found by following the
+	 * provider chain of each entry once.
+	 * 
+	 * Log devices and their providers are emitted first. The other entries
+	 * are emitted in the sequence of their definition, unless a provider is
+	 * defined later. Such a client is delayed until the provider is emitted,
+	 * together with all other entries, which are delayed by the same number
+	 * of forward references.
+	 */
+	private static void createCodeInDependencyOrder() {
+		int n = SystemEntries.size();
+		Map<SystemEntry, Integer> index = new HashMap<SystemEntry, Integer>();
+		for (int i = 0; i < n; i++) {
+			index.put(SystemEntries.get(i), i);
+		}
+
+		int[] provider = new int[n];
+		for (int i = 0; i < n; i++) {
+			SystemEntry p = SystemEntries.get(i).getProvider();
+			provider[i] = -1;
+			if (p != null && p.getName() != null && index.containsKey(p)) {
+				provider[i] = index.get(p);
+			}
+		}
+
+		boolean[] blocked = findBlockedEntries(provider);
 
+		// pass number of each entry: 0 = emitted as prerequisite of Log
+		final int NOT_YET = -1;
+		int[] pass = new int[n];
+		Arrays.fill(pass, NOT_YET);
 
 		// instanciate Log first
-		for (int i = 0; i < SystemEntries.size(); i++) {
+		for (int i = 0; i < n; i++) {
 			SystemEntry un = SystemEntries.get(i);
-			if (un.getSystemName().equals("Log")) {
+			if ("Log".equals(un.getSystemName()) && !blocked[i]) {
 				Error.setLocation(un.getFileName(), un.getLine());
-				doAllPrerequistes(un,10);
-			}	
+				List<Integer> chain = new ArrayList<Integer>();
+				for (int k = i; k >= 0 && pass[k] == NOT_YET; k = provider[k]) {
+					chain.add(k);
+				}
+				for (int c = chain.size() - 1; c >= 0; c--) {
+					int k = chain.get(c);
+					SystemEntries.get(k).getCompleteCode(simpleElements, functionBody);
+					pass[k] = 0;
+				}
+			}
 		}
 
-		boolean otherNamesNeeded;
-		boolean newCodeCreated;
-		do {
-			otherNamesNeeded = false;
-			newCodeCreated = false;
-			for (int i = 0; i < SystemEntries.size(); i++) {
-				SystemEntry un = SystemEntries.get(i);
-				if (!un.codeIsCompleted()) {
-					SystemEntry req = un.requiresOtherSystemEntry();
-					if (req == null) {
-						un.getCompleteCode(simpleElements, functionBody);
-						newCodeCreated = true;
-					} else {
-						// System.out.println("need "+req.getName()+" first");
-						otherNamesNeeded = true;
-					}
-				}
-				// }
+		// an entry is emitted in the same pass as its provider, if the
+		// provider is defined before; else in the following pass
+		int maxPass = 0;
+		List<Integer> path = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++) {
+			if (blocked[i]) {
+				continue;
 			}
-		} while (otherNamesNeeded == true && newCodeCreated == true);
-		if (otherNamesNeeded == true && newCodeCreated == false) {
-			for (int i = 0; i < SystemEntries.size(); i++) {
-				SystemEntry un = SystemEntries.get(i);
-				if (un.getType() != null) {
-					if (!un.codeIsCompleted()) {
-						Error.setLocation(un.getFileName(), un.getLine());
-						Error.error("circular dependency detected at the definition of "
-								+ un.getName());
-						Error.append("needs "
-								+ un.requiresOtherSystemEntry().getName());
-					}
+			path.clear();
+			for (int k = i; k >= 0 && pass[k] == NOT_YET; k = provider[k]) {
+				path.add(k);
+			}
+			for (int c = path.size() - 1; c >= 0; c--) {
+				int k = path.get(c);
+				int p = provider[k];
+				if (p < 0 || pass[p] == 0) {
+					pass[k] = 1;
+				} else if (p < k) {
+					pass[k] = pass[p];
+				} else {
+					pass[k] = pass[p] + 1;
 				}
+				maxPass = Math.max(maxPass, pass[k]);
 			}
-
 		}
-		file.println("\n\nnamespace pearlrt {\n   int createSystemElements();");
-		file.println("}\n");
-		file.println("// enshure that the static (parametrized) objects are instanciated first");
-		file.println("static int dummy = pearlrt::createSystemElements();");
-		file.println();
-		file.println(simpleElements);
-		file.println("\n\nnamespace pearlrt {\n   int createSystemElements() {");
-		file.println(functionBody);
-		file.println("   return 0;");
-		file.println("   }\n}");
-		file.close();
 
+		List<List<Integer>> entriesPerPass = new ArrayList<List<Integer>>();
+		for (int p = 0; p <= maxPass; p++) {
+			entriesPerPass.add(new ArrayList<Integer>());
+		}
+		for (int i = 0; i < n; i++) {
+			if (pass[i] > 0) {
+				entriesPerPass.get(pass[i]).add(i);
+			}
+		}
+		for (int p = 1; p <= maxPass; p++) {
+			for (int i : entriesPerPass.get(p)) {
+				SystemEntries.get(i).getCompleteCode(simpleElements, functionBody);
+			}
+		}
 	}
 
-	private static void doAllPrerequistes(SystemEntry un, int remainingDepth) {
-	   if (remainingDepth >= 0) {
-	      SystemEntry req = un.requiresOtherSystemEntry();
-	      if (req != null) {
-		     doAllPrerequistes(req,remainingDepth-1);
-	      }
-		  un.getCompleteCode(simpleElements, functionBody);
-	   } else {
-		   Error.error("too long chain of associations");
-	   }
+	/*
+	 * detect the entries, which are part of a circular dependency or which
+	 * need such an entry or an entry without code as provider
+	 * 
+	 * Each cycle is reported once with the complete path.
+	 * 
+	 * @param provider the index of the provider of each entry; -1 if none
+	 * @return true for each entry, which can not be created
+	 */
+	private static boolean[] findBlockedEntries(int[] provider) {
+		final int UNVISITED = 0;
+		final int ON_PATH = 1;
+		final int DONE = 2;
+		int n = provider.length;
+		int[] state = new int[n];
+		boolean[] blocked = new boolean[n];
+		List<Integer> path = new ArrayList<Integer>();
+
+		for (int i = 0; i < n; i++) {
+			if (state[i] != UNVISITED) {
+				continue;
+			}
+			path.clear();
+			int k = i;
+			while (k >= 0 && state[k] == UNVISITED) {
+				state[k] = ON_PATH;
+				path.add(k);
+				k = provider[k];
+			}
+
+			if (k >= 0 && state[k] == ON_PATH) {
+				// the path ends in a cycle starting at k
+				SystemEntry un = SystemEntries.get(k);
+				Error.setLocation(un.getFileName(), un.getLine());
+				Error.error("circular dependency detected at the definition of "
+						+ un.getName());
+				for (int c = path.indexOf(k); c < path.size(); c++) {
+					Error.append("needs "
+							+ SystemEntries.get(provider[path.get(c)]).getName());
+				}
+				for (int c = path.indexOf(k); c < path.size(); c++) {
+					blocked[path.get(c)] = true;
+					state[path.get(c)] = DONE;
+				}
+			}
+
+			// the remaining entries of the path are blocked, if their
+			// provider is blocked or does not create code
+			for (int c = path.size() - 1; c >= 0; c--) {
+				int e = path.get(c);
+				if (state[e] == DONE) {
+					continue;
+				}
+				state[e] = DONE;
+				int p = provider[e];
+				if (p >= 0
+						&& (blocked[p] || SystemEntries.get(p).getType() == null)) {
+					blocked[e] = true;
+					SystemEntry un = SystemEntries.get(e);
+					if (un.getType() != null) {
+						Error.setLocation(un.getFileName(), un.getLine());
+						Error.error("definition of " + un.getName()
+								+ " can not be created");
+						Error.append("needs " + SystemEntries.get(p).getName());
+					}
+				}
+			}
+		}
+		return blocked;
 	}
 }
@@ -32,6 +32,10 @@
  * messages. The error message coungter is used to stop compilation after each
  * step of check.
  * 
+ * Threads, which check modules in parallel, collect their messages in an
+ * ErrorLog. The main thread prints these logs in a deterministic order with
+ * flush(). Messages of all other threads are printed immediately.
+ * 
  * @author mueller
  * 
  */
@@ -40,6 +44,7 @@ public class Error {
 	private static String file;
 	private static int lineNbr;
 	private static boolean showInfo = true;
+	private static ThreadLocal<ErrorLog> collector = new ThreadLocal<ErrorLog>();
 
 	/**
 	 * set the location of the error (sourceFile:line)
@@ -50,6 +55,11 @@ public class Error {
 	 *            the line number of the error producing element
 	 */
 	static void setLocation(String fileName, int line) {
+		ErrorLog log = collector.get();
+		if (log != null) {
+			log.setLocation(fileName, line);
+			return;
+		}
 		file = fileName;
 		lineNbr = line;
 	}
@@ -63,6 +73,12 @@ public class Error {
 	 *            the error message
 	 */
 	static void error(String message) {
+		ErrorLog log = collector.get();
+		if (log != null) {
+			log.countError();
+			log.println(log.getLocation() + ": error: " + message);
+			return;
+		}
 		numberOfErrors++;
 		System.err.println(file + ":" + lineNbr + ": error: " + message);
 	}
@@ -76,20 +92,79 @@ public class Error {
 	 */
 	static void info(String message) {
 		if (showInfo) {
+			ErrorLog log = collector.get();
+			if (log != null) {
+				log.println(log.getLocation() + ": info: " + message);
+				return;
+			}
 			System.err.println(file + ":" + lineNbr + ": info: " + message);
 		}
 	}
 
 	/**
-	 * test if the error counter is non zero and exit in this case
+	 * print a message line without location, e.g. for problems with the
+	 * input files
+	 * 
+	 * @param message
+	 *            the complete message line
+	 */
+	static void print(String message) {
+		ErrorLog log = collector.get();
+		if (log != null) {
+			log.println(message);
+			return;
+		}
+		System.err.println(message);
+	}
+
+	/**
+	 * collect all further messages of the current thread in the given log
+	 * 
+	 * @param log
+	 *            the log of the current job; null to print the messages of
+	 *            the current thread immediately again
+	 */
+	static void collectIn(ErrorLog log) {
+		if (log == null) {
+			collector.remove();
+		} else {
+			collector.set(log);
+		}
+	}
+
+	/**
+	 * print the messages of a log and add its errors to the error counter
+	 * 
+	 * @param log
+	 *            the log of a finished job
+	 */
+	static void flush(ErrorLog log) {
+		System.err.print(log.getMessages());
+		numberOfErrors += log.getNumberOfErrors();
+	}
+
+	/**
+	 * test if the error counter is non zero and stop the check in this case
+	 * 
+	 * @throws CheckAborted
+	 *             if errors were detected
 	 */
 	static void exitIfErrors() {
 		if (numberOfErrors > 0) {
 			System.err.println("*** check aborted due to errors");
-			System.exit(1);
+			throw new CheckAborted();
 		}
 	}
 
+	/**
+	 * reset the error counter and the location for a new check
+	 */
+	static void reset() {
+		numberOfErrors = 0;
+		file = null;
+		lineNbr = 0;
+	}
+
 	/**
 	 * set verbose mode to enbale the info-messages
 	 * 
@@ -110,6 +185,11 @@ public class Error {
 	 * @param message
 	 */
 	public static void warn(String message) {
+		ErrorLog log = collector.get();
+		if (log != null) {
+			log.println(log.getLocation() + ": warning: " + message);
+			return;
+		}
 		System.err.println(file + ":" + lineNbr + ": warning: " + message);
 
 	}
@@ -121,7 +201,7 @@ public class Error {
 	 *            the next line
 	 */
 	public static void append(String string) {
-		System.err.println("\t" + string);
+		print("\t" + string);
 
 	}
 
@@ -0,0 +1,79 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * collect the messages of one thread of the checker
+ * 
+ * The modules are checked in parallel. Each module job collects its messages
+ * in its own log. The logs are printed by Error.flush() in the order of the
+ * modules, so the output does not depend on the scheduling of the jobs.
+ * 
+ * @author mueller
+ * 
+ */
+public class ErrorLog {
+	private String file;
+	private int lineNbr;
+	private int numberOfErrors = 0;
+	private StringBuilder messages = new StringBuilder();
+
+	void setLocation(String fileName, int line) {
+		file = fileName;
+		lineNbr = line;
+	}
+
+	/**
+	 * @return the location of the current message in the form sourceFile:line
+	 */
+	String getLocation() {
+		return file + ":" + lineNbr;
+	}
+
+	void countError() {
+		numberOfErrors++;
+	}
+
+	int getNumberOfErrors() {
+		return numberOfErrors;
+	}
+
+	/**
+	 * append a line to the collected messages
+	 * 
+	 * @param line
+	 *            the complete message line
+	 */
+	void println(String line) {
+		messages.append(line).append('\n');
+	}
+
+	String getMessages() {
+		return messages.toString();
+	}
+}
@@ -0,0 +1,356 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * compiled form of a text from the target plattform definition, which may
+ * contain nicknames and integer expressions, e.g. 'BIT($width)' or
+ * '[1+$start]'
+ * 
+ * The nicknames are prefixed with '$' and may consist only of upper and
+ * lower case letters. Expressions must be braced with square brackets. They
+ * may contain integer constants, nicknames, the operators + - * / % and
+ * parentheses. The arithmetic is done in double precision like in the
+ * former JavaScript evaluation; the result is truncated to an integer.
+ * 
+ * Each text is parsed only once. The compiled form is kept in a cache and
+ * evaluated with the nickname values of the system entry.
+ * 
+ * @author mueller
+ * 
+ */
+public class IntegerExpression {
+	private static final int TEXT = 0;
+	private static final int NICKNAME = 1;
+	private static final int EXPRESSION = 2;
+
+	private static Map<String, IntegerExpression> cache = new HashMap<String, IntegerExpression>();
+
+	private boolean bracketMissing = false;
+	private List<Integer> kinds = new ArrayList<Integer>();
+	private List<String> texts = new ArrayList<String>();
+
+	// the program of each expression in postfix notation:
+	// Double: push constant; String: push value of nickname;
+	// Character: apply operator ('~' is the unary minus)
+	// the program is null, if the expression contains a syntax error
+	private List<Object[]> programs = new ArrayList<Object[]>();
+
+	// state of the expression parser
+	private String expr;
+	private int pos;
+	private List<Object> program;
+
+	/**
+	 * deliver the compiled form of the given text
+	 * 
+	 * @param text
+	 *            the text with nicknames and expressions
+	 * @return the compiled text; the result is shared by all callers
+	 */
+	static synchronized IntegerExpression compile(String text) {
+		IntegerExpression compiled = cache.get(text);
+		if (compiled == null) {
+			compiled = new IntegerExpression(text);
+			cache.put(text, compiled);
+		}
+		return compiled;
+	}
+
+	private IntegerExpression(String text) {
+		int start = 0;
+		int i = 0;
+		while (i < text.length()) {
+			char c = text.charAt(i);
+			if (c == '$') {
+				addSegment(TEXT, text.substring(start, i), null);
+				int end = endOfNickName(text, i + 1);
+				addSegment(NICKNAME, text.substring(i + 1, end), null);
+				start = i = end;
+			} else if (c == '[') {
+				int end = text.indexOf(']', i);
+				if (end < 0) {
+					bracketMissing = true;
+					return;
+				}
+				addSegment(TEXT, text.substring(start, i), null);
+				String naked = text.substring(i + 1, end);
+				addSegment(EXPRESSION, naked, parse(naked));
+				start = i = end + 1;
+			} else {
+				i++;
+			}
+		}
+		addSegment(TEXT, text.substring(start), null);
+	}
+
+	private void addSegment(int kind, String text, Object[] code) {
+		if (kind == TEXT && text.isEmpty()) {
+			return;
+		}
+		kinds.add(kind);
+		texts.add(text);
+		programs.add(code);
+	}
+
+	private static int endOfNickName(String text, int start) {
+		int end = start;
+		while (end < text.length()) {
+			char c = text.charAt(end);
+			if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+				end++;
+			} else {
+				break;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * @return true, if the value of the text depends on nicknames or the
+	 *         text contains an error, which is reported on each evaluation
+	 */
+	boolean needsNickNames() {
+		if (bracketMissing) {
+			return true;
+		}
+		for (int i = 0; i < kinds.size(); i++) {
+			if (kinds.get(i) == NICKNAME) {
+				return true;
+			}
+			Object[] code = programs.get(i);
+			if (kinds.get(i) == EXPRESSION) {
+				if (code == null) {
+					return true;
+				}
+				for (int j = 0; j < code.length; j++) {
+					if (code[j] instanceof String) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * substitute the nicknames by their values and evaluate the expressions
+	 * 
+	 * @param nickNameValues
+	 *            the values of the nicknames
+	 * @return the expanded text, or null if an expression could not be
+	 *         evaluated
+	 */
+	String evaluate(Map<String, String> nickNameValues) {
+		if (bracketMissing) {
+			Error.info("missing ']' in expression in target plattform definition file");
+			return null;
+		}
+
+		StringBuilder expanded = new StringBuilder();
+		for (int i = 0; i < kinds.size(); i++) {
+			int kind = kinds.get(i);
+			if (kind == TEXT) {
+				expanded.append(texts.get(i));
+			} else if (kind == NICKNAME) {
+				expanded.append(nickNameValues.get(texts.get(i)));
+			} else {
+				Double result = execute(programs.get(i), nickNameValues);
+				if (result == null) {
+					Error.info("wrong expression in target plattform definition file ("
+							+ texts.get(i) + ")");
+					return null;
+				}
+				expanded.append(result.intValue());
+			}
+		}
+		return expanded.toString();
+	}
+
+	private static Double execute(Object[] code, Map<String, String> nickNameValues) {
+		if (code == null) {
+			return null;
+		}
+
+		double[] stack = new double[code.length];
+		int top = 0;
+		for (int i = 0; i < code.length; i++) {
+			Object op = code[i];
+			if (op instanceof Double) {
+				stack[top++] = (Double) op;
+			} else if (op instanceof String) {
+				String value = nickNameValues.get(op);
+				if (value == null) {
+					return null;
+				}
+				try {
+					// like constants, nickname values may be given in hex
+					stack[top++] = Long.decode(value.trim());
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			} else {
+				char operator = (Character) op;
+				if (operator == '~') {
+					stack[top - 1] = -stack[top - 1];
+					continue;
+				}
+				double right = stack[--top];
+				double left = stack[top - 1];
+				switch (operator) {
+				case '+':
+					stack[top - 1] = left + right;
+					break;
+				case '-':
+					stack[top - 1] = left - right;
+					break;
+				case '*':
+					stack[top - 1] = left * right;
+					break;
+				case '/':
+					stack[top - 1] = left / right;
+					break;
+				default:
+					stack[top - 1] = left % right;
+					break;
+				}
+			}
+		}
+		return stack[0];
+	}
+
+	/*
+	 * expression ::= term { ('+' | '-') term } 
+	 * term ::= factor { ('*' | '/' | '%') factor } 
+	 * factor ::= ('+' | '-') factor | '(' expression ')' | constant | '$'nickname
+	 */
+	private Object[] parse(String naked) {
+		expr = naked;
+		pos = 0;
+		program = new ArrayList<Object>();
+
+		boolean ok = parseExpression() && peek() == 0;
+		Object[] code = ok ? program.toArray() : null;
+		expr = null;
+		program = null;
+		return code;
+	}
+
+	private char peek() {
+		while (pos < expr.length() && Character.isWhitespace(expr.charAt(pos))) {
+			pos++;
+		}
+		return pos < expr.length() ? expr.charAt(pos) : 0;
+	}
+
+	private boolean parseExpression() {
+		if (!parseTerm()) {
+			return false;
+		}
+		char c = peek();
+		while (c == '+' || c == '-') {
+			pos++;
+			if (!parseTerm()) {
+				return false;
+			}
+			program.add(c);
+			c = peek();
+		}
+		return true;
+	}
+
+	private boolean parseTerm() {
+		if (!parseFactor()) {
+			return false;
+		}
+		char c = peek();
+		while (c == '*' || c == '/' || c == '%') {
+			pos++;
+			if (!parseFactor()) {
+				return false;
+			}
+			program.add(c);
+			c = peek();
+		}
+		return true;
+	}
+
+	private boolean parseFactor() {
+		char c = peek();
+		if (c == '+' || c == '-') {
+			pos++;
+			if (!parseFactor()) {
+				return false;
+			}
+			if (c == '-') {
+				program.add('~');
+			}
+			return true;
+		} else if (c == '(') {
+			pos++;
+			if (!parseExpression() || peek() != ')') {
+				return false;
+			}
+			pos++;
+			return true;
+		} else if (c == '$') {
+			int end = endOfNickName(expr, pos + 1);
+			program.add(expr.substring(pos + 1, end));
+			pos = end;
+			return true;
+		} else if (c >= '0' && c <= '9') {
+			int radix = 10;
+			int start = pos;
+			if (c == '0' && pos + 1 < expr.length()
+					&& (expr.charAt(pos + 1) == 'x' || expr.charAt(pos + 1) == 'X')) {
+				radix = 16;
+				start = pos = pos + 2;
+			}
+			while (pos < expr.length()
+					&& Character.digit(expr.charAt(pos), radix) >= 0) {
+				pos++;
+			}
+			if (pos == start) {
+				return false;
+			}
+			try {
+				program.add((double) Long.parseLong(expr.substring(start, pos), radix));
+			} catch (NumberFormatException e) {
+				return false;
+			}
+			return true;
+		}
+		return false;
+	}
+}
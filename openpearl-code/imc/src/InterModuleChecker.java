@@ -29,6 +29,11 @@
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * utility to check the compatibility of system part and problem part resources.
@@ -45,6 +50,8 @@ public class InterModuleChecker {
 	static List<ModuleXml> moduleXml = new ArrayList<ModuleXml>();
 
 	static boolean verbose = false;
+	static int nbrOfThreads = Runtime.getRuntime().availableProcessors();
+	static ExecutorService executor;
 
 	/**
 	 * the main entry
@@ -88,20 +95,79 @@ public class InterModuleChecker {
 			}
 		}
 
-		// read target-xml
-		targetXml = new TargetPlatformXml(target + ".xml", false);
+		if (check(target, outputFile, inputFiles, null) != 0) {
+			System.exit(1);
+		}
+	}
 
+	/**
+	 * check the given modules against the target platform and create the
+	 * system part
+	 * 
+	 * This is the entry for programs, which call the checker directly, like
+	 * the compiler when it translates several modules in one run. The
+	 * definitions of the modules may be passed directly to avoid the files.
+	 * 
+	 * @param target
+	 *            the name of the target platform
+	 * @param outputFile
+	 *            the name of the generated system part
+	 * @param moduleNames
+	 *            the names of the modules without the extension .xml
+	 * @param moduleDefinitions
+	 *            the definitions of the modules in the same order as the
+	 *            names (see ModuleXml); null, if the definitions are read
+	 *            from the files &lt;name&gt;.xml
+	 * @return 0, if the system part was created; 1, if errors were detected
+	 * @throws Exception
+	 *             on internal errors of the checker
+	 */
+	public static synchronized int check(String target, String outputFile,
+			List<String> moduleNames, List<Map<String, Object>> moduleDefinitions) throws Exception {
+		Error.reset();
+		Error.setShowInfo(verbose);
+		SystemEntries.clear();
+		CodeGenerator.clear();
+		moduleXml.clear();
+
+		executor = Executors.newFixedThreadPool(Math.max(1, nbrOfThreads));
+		try {
+			// read target-xml
+			targetXml = new TargetPlatformXml(target + ".xml", false);
 
-		// read all input files
-		for (int i = 0; i < inputFiles.size(); i++) {
-			ModuleXml mXml = new ModuleXml(inputFiles.get(i) + ".xml", targetXml, false);
-			moduleXml.add(mXml);
+			// read all input files
+			List<ModuleJob> jobs = new ArrayList<ModuleJob>();
+			for (int i = 0; i < moduleNames.size(); i++) {
+				if (moduleDefinitions != null) {
+					jobs.add(new ModuleJob(moduleNames.get(i), moduleDefinitions.get(i), targetXml));
+				} else {
+					jobs.add(new ModuleJob(moduleNames.get(i) + ".xml", targetXml));
+				}
+			}
+			runJobs(jobs);
+			for (int i = 0; i < jobs.size(); i++) {
+				moduleXml.add(jobs.get(i).getModule());
+			}
+			checkModules(outputFile);
+		} catch (CheckAborted e) {
+			return 1;
+		} finally {
+			executor.shutdown();
 		}
+		return 0;
+	}
 
+	/**
+	 * check the modules, which are read already, and create the system part
+	 * 
+	 * @param outputFile
+	 *            the name of the generated system part
+	 */
+	private static void checkModules(String outputFile) throws Exception {
 		Error.exitIfErrors();
 		
 		// check system-problem-part
-		for (int i = 0; i < inputFiles.size(); i++) {
+		for (int i = 0; i < moduleXml.size(); i++) {
 			moduleXml.get(i).checkSystemEntries();
 		}
 		
@@ -109,9 +175,11 @@ public class InterModuleChecker {
 		SystemEntries.check();
 		Error.exitIfErrors();
 		
-		for (int i=0; i<inputFiles.size(); i++) {
-			moduleXml.get(i).checkProblemPart();
+		List<ModuleJob> jobs = new ArrayList<ModuleJob>();
+		for (int i=0; i<moduleXml.size(); i++) {
+			jobs.add(new ModuleJob(moduleXml.get(i)));
 		}
+		runJobs(jobs);
 		Error.exitIfErrors();
 		
 
@@ -121,6 +189,36 @@ public class InterModuleChecker {
 		SystemEntries.searchUnUsed();
 	}
 
+	/**
+	 * run the jobs in parallel and print their messages in the order of the
+	 * jobs
+	 * 
+	 * The check stops after the messages of the first module, which could
+	 * not be read.
+	 * 
+	 * @param jobs
+	 *            the jobs for all modules
+	 * @throws Exception
+	 *             the exception of the first job, which failed
+	 */
+	private static void runJobs(List<ModuleJob> jobs) throws Exception {
+		List<Future<ErrorLog>> results = executor.invokeAll(jobs);
+		for (int i = 0; i < jobs.size(); i++) {
+			try {
+				Error.flush(results.get(i).get());
+			} catch (ExecutionException e) {
+				Error.flush(jobs.get(i).getLog());
+				if (e.getCause() instanceof Exception) {
+					throw (Exception) e.getCause();
+				}
+				throw e;
+			}
+			if (jobs.get(i).getModule() != null && !jobs.get(i).getModule().isRead()) {
+				throw new CheckAborted();
+			}
+		}
+	}
+
 	private static boolean checkAndProcessArguments(String[] args) {
 		int i = 0;
 		boolean returnValue = true;
@@ -135,6 +233,8 @@ public class InterModuleChecker {
 				target = args[i++];
 			} else if (arg.equals("-o")) {
 				outputFile = args[i++];
+			} else if (arg.equals("-j")) {
+				nbrOfThreads = Integer.parseInt(args[i++]);
 			} else if (arg.charAt(0) != '-') {
 				// normal input file
 				inputFiles.add(arg);
@@ -157,6 +257,8 @@ public class InterModuleChecker {
 						+ "  --verbose                   Print lot of information        \n"
 						+ "  -b <target>                 Disable semantic checker        \n"
 						+ "  -o <output>                 output file (default: system.cc)\n"
+						+ "  -j <n>                      number of parallel module checks\n"
+						+ "                              (default: number of processors) \n"
 						+ "  infile ...                  input files					   \n");
 	}
 
@@ -0,0 +1,138 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * binary snapshot of the system part and problem part of a module
+ * 
+ * A system is linked again after each change of any module, but most module
+ * definition files are unchanged. The elements of each module are stored as
+ * Snapshot next to the module definition file. Unchanged modules are taken
+ * from their snapshot without parsing the xml file.
+ * 
+ * The format version must be incremented with each change of the stored
+ * module elements.
+ * 
+ * @author mueller
+ * 
+ */
+public class ModuleCache {
+	private static final int MAGIC = 0x494d434d; // "IMCM"
+	private static final int VERSION = 1;
+
+	/**
+	 * read the snapshot of the given module definition file
+	 * 
+	 * @param module
+	 *            the module, which receives the elements
+	 * @param xmlFileName
+	 *            the name of the module definition file
+	 * @param hash
+	 *            the hash of the current content of the module definition
+	 * @return true, if the module was read from a valid snapshot
+	 */
+	static boolean read(ModuleXml module, String xmlFileName, byte[] hash) {
+		ByteBuffer buffer = Snapshot.open(xmlFileName, MAGIC, VERSION, hash);
+		if (buffer == null) {
+			return false;
+		}
+
+		try {
+			String sourceFileName = Snapshot.readString(buffer);
+			List<ModuleSystemElement> systemElements = null;
+			int nbrOfElements = buffer.getInt();
+			if (nbrOfElements >= 0) {
+				systemElements = new ArrayList<ModuleSystemElement>();
+				for (int i = 0; i < nbrOfElements; i++) {
+					systemElements.add(ModuleSystemElement.readFrom(buffer));
+				}
+			}
+			List<ModuleSpecification> problemElements = null;
+			nbrOfElements = buffer.getInt();
+			if (nbrOfElements >= 0) {
+				problemElements = new ArrayList<ModuleSpecification>();
+				for (int i = 0; i < nbrOfElements; i++) {
+					problemElements.add(ModuleSpecification.readFrom(buffer));
+				}
+			}
+			module.sourceFileName = sourceFileName;
+			module.systemElements = systemElements;
+			module.problemElements = problemElements;
+			return true;
+		} catch (BufferUnderflowException e) {
+			// damaged snapshot
+			return false;
+		} catch (NegativeArraySizeException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * write the snapshot of the given module definition file
+	 * 
+	 * @param module
+	 *            the module, which was read from the xml file
+	 * @param xmlFileName
+	 *            the name of the module definition file
+	 * @param hash
+	 *            the hash of the content of the module definition
+	 */
+	static void write(ModuleXml module, String xmlFileName, byte[] hash) {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		try {
+			DataOutputStream out = Snapshot.create(MAGIC, VERSION, hash, content);
+			Snapshot.writeString(out, module.sourceFileName);
+			List<ModuleSystemElement> systemElements = module.systemElements;
+			out.writeInt(systemElements != null ? systemElements.size() : -1);
+			if (systemElements != null) {
+				for (int i = 0; i < systemElements.size(); i++) {
+					systemElements.get(i).writeTo(out);
+				}
+			}
+			List<ModuleSpecification> problemElements = module.problemElements;
+			out.writeInt(problemElements != null ? problemElements.size() : -1);
+			if (problemElements != null) {
+				for (int i = 0; i < problemElements.size(); i++) {
+					problemElements.get(i).writeTo(out);
+				}
+			}
+			out.flush();
+		} catch (IOException e) {
+			return;
+		}
+		Snapshot.store(xmlFileName, content);
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * a step of the check of one module, which may run in parallel to the same
+ * step of the other modules
+ * 
+ * The steps LOAD and CHECK_PROBLEM_PART treat only the data of their module
+ * and read the global system entries. The messages of the step are collected
+ * in the log of the job and printed by the main program in the order of the
+ * modules.
+ * 
+ * The check of the system part remains sequential, since the system entries
+ * of all modules are registered in this step in the order of the modules.
+ * 
+ * @author mueller
+ * 
+ */
+public class ModuleJob implements Callable<ErrorLog> {
+	static final int LOAD = 0;
+	static final int CHECK_PROBLEM_PART = 1;
+
+	private int step;
+	private String fileName;
+	private Map<String, Object> definition;
+	private TargetPlatformXml targetXml;
+	private ModuleXml module;
+	private ErrorLog log = new ErrorLog();
+
+	/**
+	 * create a job, which reads a module definition file
+	 * 
+	 * @param fileName
+	 *            the module definition file name
+	 * @param targetXml
+	 *            the target platform
+	 */
+	ModuleJob(String fileName, TargetPlatformXml targetXml) {
+		this.step = LOAD;
+		this.fileName = fileName;
+		this.targetXml = targetXml;
+	}
+
+	/**
+	 * create a job, which takes a module definition, which is passed by the
+	 * caller
+	 * 
+	 * @param name
+	 *            the name of the module definition for error messages
+	 * @param definition
+	 *            the module definition (see ModuleXml)
+	 * @param targetXml
+	 *            the target platform
+	 */
+	ModuleJob(String name, Map<String, Object> definition, TargetPlatformXml targetXml) {
+		this(name, targetXml);
+		this.definition = definition;
+	}
+
+	/**
+	 * create a job, which checks the problem part of a module
+	 * 
+	 * @param module
+	 *            the module, which was read before
+	 */
+	ModuleJob(ModuleXml module) {
+		this.step = CHECK_PROBLEM_PART;
+		this.module = module;
+	}
+
+	public ErrorLog call() {
+		Error.collectIn(log);
+		try {
+			if (step == LOAD) {
+				module = new ModuleXml(fileName, definition, targetXml, false);
+			} else {
+				module.checkProblemPart();
+			}
+		} finally {
+			Error.collectIn(null);
+		}
+		return log;
+	}
+
+	/**
+	 * @return the messages of the job; also valid, if the job was aborted by
+	 *         an exception
+	 */
+	ErrorLog getLog() {
+		return log;
+	}
+
+	/**
+	 * @return the module of the job
+	 */
+	ModuleXml getModule() {
+		return module;
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * an element of the problem part of a module, which refers to the system
+ * part: a specification (spc) with its type and, for dations, the required
+ * attributes and data type
+ * 
+ * @author mueller
+ * 
+ */
+public class ModuleSpecification {
+	private String element;
+	private String name;
+	private String type;
+	private String line;
+	private String attributes;
+	private String data;
+
+	/**
+	 * read the element at the current position of the xml stream
+	 * 
+	 * @param xml
+	 *            the xml stream; positioned on the start of the element
+	 * @return the element; the stream is positioned at the end of the element
+	 * @throws XMLStreamException
+	 *             if the file is not well formed
+	 */
+	static ModuleSpecification read(ReadXml xml) throws XMLStreamException {
+		ModuleSpecification s = new ModuleSpecification();
+		s.element = xml.getName();
+		s.name = xml.getAttribute("name");
+		s.type = xml.getAttribute("type");
+		s.line = xml.getAttribute("line");
+		while (xml.nextChildElement()) {
+			String child = xml.getName();
+			if (child.equals("attributes") && s.attributes == null) {
+				s.attributes = xml.getTextContent();
+			} else if (child.equals("data") && s.data == null) {
+				s.data = xml.getTextContent();
+			} else {
+				xml.skipElement();
+			}
+		}
+		return s;
+	}
+
+	/**
+	 * take the element from a definition, which is passed directly
+	 * 
+	 * @param definition
+	 *            the element; see ModuleXml for its contents
+	 * @return the element
+	 */
+	static ModuleSpecification from(Map<String, Object> definition) {
+		ModuleSpecification s = new ModuleSpecification();
+		s.element = (String) definition.get("element");
+		s.name = (String) definition.get("name");
+		s.type = (String) definition.get("type");
+		s.line = (String) definition.get("line");
+		s.attributes = (String) definition.get("attributes");
+		s.data = (String) definition.get("data");
+		return s;
+	}
+
+	/**
+	 * read the element from a module snapshot
+	 * 
+	 * @param in
+	 *            the snapshot buffer; positioned on the element
+	 * @return the element
+	 * @see ModuleCache
+	 */
+	static ModuleSpecification readFrom(ByteBuffer in) {
+		ModuleSpecification s = new ModuleSpecification();
+		s.element = Snapshot.readString(in);
+		s.name = Snapshot.readString(in);
+		s.type = Snapshot.readString(in);
+		s.line = Snapshot.readString(in);
+		s.attributes = Snapshot.readString(in);
+		s.data = Snapshot.readString(in);
+		return s;
+	}
+
+	/**
+	 * write the element to a module snapshot
+	 * 
+	 * @param out
+	 *            the snapshot stream
+	 * @throws IOException
+	 *             if the stream could not be written
+	 * @see ModuleCache
+	 */
+	void writeTo(DataOutputStream out) throws IOException {
+		Snapshot.writeString(out, element);
+		Snapshot.writeString(out, name);
+		Snapshot.writeString(out, type);
+		Snapshot.writeString(out, line);
+		Snapshot.writeString(out, attributes);
+		Snapshot.writeString(out, data);
+	}
+
+	/**
+	 * @return the kind of element: "spc" or "dcl"
+	 */
+	String getElement() {
+		return element;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	String getType() {
+		return type;
+	}
+
+	String getLine() {
+		return line;
+	}
+
+	/**
+	 * @return the required dation attributes; null if not specified
+	 */
+	String getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * @return the required data type; null if not specified
+	 */
+	String getData() {
+		return data;
+	}
+}
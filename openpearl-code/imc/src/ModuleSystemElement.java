@@ -0,0 +1,214 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * an element of the system part of a module: a user name, a configuration
+ * element, the system name of a user name or an association
+ * 
+ * Each element may contain actual parameters, a system name and an
+ * association. The nesting reflects the chain of associations.
+ * 
+ * @author mueller
+ * 
+ */
+public class ModuleSystemElement {
+	private String element;
+	private String name;
+	private String line;
+	private List<Parameter> parameters;
+	private ModuleSystemElement sysname;
+	private ModuleSystemElement association;
+
+	/**
+	 * read the element at the current position of the xml stream
+	 * 
+	 * @param xml
+	 *            the xml stream; positioned on the start of the element
+	 * @return the element; the stream is positioned at the end of the element
+	 * @throws XMLStreamException
+	 *             if the file is not well formed
+	 */
+	static ModuleSystemElement read(ReadXml xml) throws XMLStreamException {
+		ModuleSystemElement e = new ModuleSystemElement();
+		e.element = xml.getName();
+		e.name = xml.getAttribute("name");
+		e.line = xml.getAttribute("line");
+		while (xml.nextChildElement()) {
+			String child = xml.getName();
+			if (child.equals("parameters") && e.parameters == null) {
+				e.parameters = new ArrayList<Parameter>();
+				while (xml.nextChildElement()) {
+					String type = xml.getName();
+					e.parameters.add(new Parameter(type, xml.getTextContent()));
+				}
+			} else if (child.equals("sysname") && e.sysname == null) {
+				e.sysname = read(xml);
+			} else if (child.equals("association") && e.association == null) {
+				e.association = read(xml);
+			} else {
+				xml.skipElement();
+			}
+		}
+		return e;
+	}
+
+	/**
+	 * take the element from a definition, which is passed directly
+	 * 
+	 * @param definition
+	 *            the element; see ModuleXml for its contents
+	 * @return the element
+	 */
+	@SuppressWarnings("unchecked")
+	static ModuleSystemElement from(Map<String, Object> definition) {
+		ModuleSystemElement e = new ModuleSystemElement();
+		e.element = (String) definition.get("element");
+		e.name = (String) definition.get("name");
+		e.line = (String) definition.get("line");
+		List<String[]> parameters = (List<String[]>) definition.get("parameters");
+		if (parameters != null) {
+			e.parameters = new ArrayList<Parameter>();
+			for (int i = 0; i < parameters.size(); i++) {
+				e.parameters.add(new Parameter(parameters.get(i)[0], parameters.get(i)[1]));
+			}
+		}
+		Map<String, Object> sysname = (Map<String, Object>) definition.get("sysname");
+		if (sysname != null) {
+			e.sysname = from(sysname);
+		}
+		Map<String, Object> association = (Map<String, Object>) definition.get("association");
+		if (association != null) {
+			e.association = from(association);
+		}
+		return e;
+	}
+
+	/**
+	 * read the element from a module snapshot
+	 * 
+	 * @param in
+	 *            the snapshot buffer; positioned on the element
+	 * @return the element
+	 * @see ModuleCache
+	 */
+	static ModuleSystemElement readFrom(ByteBuffer in) {
+		ModuleSystemElement e = new ModuleSystemElement();
+		e.element = Snapshot.readString(in);
+		e.name = Snapshot.readString(in);
+		e.line = Snapshot.readString(in);
+		int nbrOfParameters = in.getInt();
+		if (nbrOfParameters >= 0) {
+			e.parameters = new ArrayList<Parameter>();
+			for (int i = 0; i < nbrOfParameters; i++) {
+				String type = Snapshot.readString(in);
+				e.parameters.add(new Parameter(type, Snapshot.readString(in)));
+			}
+		}
+		if (in.get() != 0) {
+			e.sysname = readFrom(in);
+		}
+		if (in.get() != 0) {
+			e.association = readFrom(in);
+		}
+		return e;
+	}
+
+	/**
+	 * write the element to a module snapshot
+	 * 
+	 * @param out
+	 *            the snapshot stream
+	 * @throws IOException
+	 *             if the stream could not be written
+	 * @see ModuleCache
+	 */
+	void writeTo(DataOutputStream out) throws IOException {
+		Snapshot.writeString(out, element);
+		Snapshot.writeString(out, name);
+		Snapshot.writeString(out, line);
+		out.writeInt(parameters != null ? parameters.size() : -1);
+		if (parameters != null) {
+			for (int i = 0; i < parameters.size(); i++) {
+				Snapshot.writeString(out, parameters.get(i).getType());
+				Snapshot.writeString(out, parameters.get(i).getValue());
+			}
+		}
+		out.writeByte(sysname != null ? 1 : 0);
+		if (sysname != null) {
+			sysname.writeTo(out);
+		}
+		out.writeByte(association != null ? 1 : 0);
+		if (association != null) {
+			association.writeTo(out);
+		}
+	}
+
+	/**
+	 * @return the kind of element: "username", "configuration", "sysname"
+	 *         or "association"
+	 */
+	String getElement() {
+		return element;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the line attribute; null if not specified
+	 */
+	String getLine() {
+		return line;
+	}
+
+	/**
+	 * @return the actual parameters; null, if there is no parameters element
+	 */
+	List<Parameter> getParameters() {
+		return parameters;
+	}
+
+	ModuleSystemElement getSysname() {
+		return sysname;
+	}
+
+	ModuleSystemElement getAssociation() {
+		return association;
+	}
+}
@@ -28,11 +28,12 @@
  */
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLStreamException;
 
 /**
  * read xml definition for module import/export and provide specific operations,
@@ -43,12 +44,12 @@ import org.w3c.dom.NodeList;
  */
 
 public class ModuleXml {
-	String indent = "";
-	Document moduleXML;
 	boolean verbose;
+	boolean isRead = true;
 	String sourceFileName;
 	TargetPlatformXml targetXml;
-	ReadXml wrappedDomTree;
+	List<ModuleSystemElement> systemElements;
+	List<ModuleSpecification> problemElements;
 	int line;
 	SystemEntry un;
 	Deque<SystemEntry> associationStack = new ArrayDeque<SystemEntry>();
@@ -64,25 +65,139 @@ public class ModuleXml {
 	 *            System.out
 	 */
 	ModuleXml(String fileName, TargetPlatformXml targetXml, boolean verbose) {
+		this(fileName, null, targetXml, verbose);
+	}
+
+	/**
+	 * create the module from its definition file or from a definition, which
+	 * is passed directly by the compiler
+	 * 
+	 * The direct definition mirrors the module definition file. Each element
+	 * is a map from the names of its attributes and child elements to their
+	 * values:
+	 * <ul>
+	 * <li>module: "file", "system" and "problem"; both parts are lists of
+	 * elements</li>
+	 * <li>username, configuration, sysname and association: "element" (the
+	 * kind of element), "name", "line", "sysname", "association" and
+	 * "parameters"; the parameters are a list of pairs of type and value</li>
+	 * <li>spc: "element", "name", "type", "line", "attributes" and "data"</li>
+	 * </ul>
+	 * Absent attributes and child elements are missing or null.
+	 * 
+	 * @param fileName
+	 *            the name of the module definition file
+	 * @param definition
+	 *            the module definition; null, if the definition is read from
+	 *            the file
+	 * @param targetXml
+	 *            the target platform
+	 * @param verbose
+	 *            flag for verbose output; if true lot of messages are sent to
+	 *            System.out
+	 */
+	ModuleXml(String fileName, Map<String, Object> definition, TargetPlatformXml targetXml, boolean verbose) {
 		this.verbose = verbose;
 		this.targetXml = targetXml;
-		wrappedDomTree = new ReadXml(fileName, verbose, null);
 
-		moduleXML = wrappedDomTree.getDocument(); // readXMLDocumentFromFile(fileName);
-		if (moduleXML == null) {
-			System.err.println("error reading module definition file ("
+		if (definition != null) {
+			readModule(definition);
+			return;
+		}
+
+		// unchanged modules are taken from the snapshot of a previous run
+		byte[] hash = Snapshot.hash(fileName);
+		if (hash != null && ModuleCache.read(this, fileName, hash)) {
+			return;
+		}
+
+		ReadXml xml = new ReadXml(fileName, verbose, null);
+
+		if (!xml.isOpen() || !readModule(xml)) {
+			Error.print("error reading module definition file ("
 					+ fileName + ")");
-			System.exit(1);
+			isRead = false;
 			return;
 		}
 
-		if (verbose) {
-			wrappedDomTree.dumpDomTree();
+		if (hash != null) {
+			ModuleCache.write(this, fileName, hash);
 		}
+	}
 
-		Node m = getChildByName(moduleXML, "module");
-		sourceFileName = m.getAttributes().getNamedItem("file")
-				.getTextContent();
+	/**
+	 * @return true, if the module definition file was read successfully
+	 */
+	boolean isRead() {
+		return isRead;
+	}
+
+	/**
+	 * read the system part and the problem part of the module
+	 * 
+	 * @param xml
+	 *            the opened module definition file
+	 * @return true, if the file was read successfully
+	 */
+	private boolean readModule(ReadXml xml) {
+		try {
+			if (!xml.nextChildElement() || !xml.getName().equals("module")) {
+				return false;
+			}
+			sourceFileName = xml.getAttribute("file");
+
+			while (xml.nextChildElement()) {
+				if (xml.getName().equals("system") && systemElements == null) {
+					systemElements = new ArrayList<ModuleSystemElement>();
+					while (xml.nextChildElement()) {
+						systemElements.add(ModuleSystemElement.read(xml));
+					}
+				} else if (xml.getName().equals("problem")
+						&& problemElements == null) {
+					problemElements = new ArrayList<ModuleSpecification>();
+					while (xml.nextChildElement()) {
+						problemElements.add(ModuleSpecification.read(xml));
+					}
+				} else {
+					xml.skipElement();
+				}
+			}
+			return true;
+		} catch (XMLStreamException e) {
+			Error.print(e.getMessage());
+			Error.print("error reading XML file: " + xml.getFileName());
+			return false;
+		} finally {
+			xml.close();
+		}
+	}
+
+	/**
+	 * take the system part and the problem part of the module from a
+	 * definition, which is passed directly
+	 * 
+	 * @param definition
+	 *            the module definition
+	 */
+	@SuppressWarnings("unchecked")
+	private void readModule(Map<String, Object> definition) {
+		sourceFileName = (String) definition.get("file");
+
+		List<Map<String, Object>> system = (List<Map<String, Object>>) definition.get("system");
+		if (system != null) {
+			systemElements = new ArrayList<ModuleSystemElement>();
+			for (int i = 0; i < system.size(); i++) {
+				systemElements.add(ModuleSystemElement.from(system.get(i)));
+			}
+		}
+
+		List<Map<String, Object>> problem = (List<Map<String, Object>>) definition.get("problem");
+		if (problem != null) {
+			problemElements = new ArrayList<ModuleSpecification>();
+			for (int i = 0; i < problem.size(); i++) {
+				problemElements.add(ModuleSpecification.from(problem.get(i)));
+			}
+		}
 	}
 
 	/**
@@ -94,40 +209,28 @@ public class ModuleXml {
 	 * of translation
 	 */
 	public void checkSystemEntries() {
-		NodeList systemElements = moduleXML.getElementsByTagName("system");
 		if (systemElements == null) {
 			// no system part present
 			return;
 		}
-		Node targetNode = null;
-
-		// get all defined system elements
-		try {
-			systemElements = systemElements.item(0).getChildNodes();
-		} catch (NullPointerException e) {
-			// no system part
-			return;
-		}
+		PlatformDevice targetNode = null;
 
-		if (systemElements.getLength() > 0) {
+		if (systemElements.size() > 0) {
 			// search desired signal in the text section of concrete
 			// signal-entry
 			String userName = "config-element";
-			for (int i = 0; i < systemElements.getLength(); i++) {
-				Node n = systemElements.item(i); // .getChildNodes();
-				if (n.getNodeType() == Node.ELEMENT_NODE
-						&& n.getNodeName().equals("username")) {
-					userName = n.getAttributes().getNamedItem("name")
-							.getTextContent();
-					line = Integer.parseInt(n.getAttributes()
-							.getNamedItem("line").getTextContent());
+			for (int i = 0; i < systemElements.size(); i++) {
+				ModuleSystemElement n = systemElements.get(i);
+				if (n.getElement().equals("username")) {
+					userName = n.getName();
+					line = Integer.parseInt(n.getLine());
 					Error.setLocation(sourceFileName, line);
 					Error.info("username definition '" + userName + "' found");
 
 					un = SystemEntries.contains(userName);
 					if (un != null) {
 						// same user name found!
-						if (un.getNode() != null) {
+						if (un.getDevice() != null) {
 							// was complete definition --> create new entry and
 							// produce the error message later
 							un = new SystemEntry(userName, sourceFileName, line);
@@ -142,10 +245,8 @@ public class ModuleXml {
 					}
 					
 
-				} else if (n.getNodeType() == Node.ELEMENT_NODE
-						&& n.getNodeName().equals("configuration")) {
-					line = Integer.parseInt(n.getAttributes()
-							.getNamedItem("line").getTextContent());
+				} else if (n.getElement().equals("configuration")) {
+					line = Integer.parseInt(n.getLine());
 					Error.setLocation(sourceFileName, line);
 					Error.info("configuration entry found");
 					un = new SystemEntry(sourceFileName, line);
@@ -162,14 +263,14 @@ public class ModuleXml {
 				if (targetNode == null) {
 					System.err.println("configuration problem");
 				}
-				un.setTargetNode(targetNode);
+				un.setTargetDevice(targetNode);
 
 				String mustProvide[] = un.getMustProvide();
 				for (int p = 0; p < mustProvide.length; p++) {
 					// check if the new detected system element provides the
 					// expected interface
 					// System.out.println("test "+mustProvide[p]);
-					Node assocProvider = TargetPlatformXml.provides(
+					PlatformAssociationType assocProvider = TargetPlatformXml.provides(
 							targetNode, mustProvide[p]);
 					if (assocProvider == null) {
 						Error.error(userName
@@ -189,84 +290,72 @@ public class ModuleXml {
 
 		}
 
-		if (verbose) {
-			wrappedDomTree.dumpDomTree();
-		}
-
 	}
 
-	private Node treatSysName(Node n) {
-		NodeList childs = n.getChildNodes();
-		Node targetNode;
-
-		for (int child = 0; child < childs.getLength(); child++) {
-			Node currentChild = childs.item(child);
+	private PlatformDevice treatSysName(ModuleSystemElement n) {
+		ModuleSystemElement currentChild = n.getSysname();
+		PlatformDevice targetNode;
 
-			if (currentChild.getNodeType() == Node.ELEMENT_NODE
-					&& currentChild.getNodeName().equals("sysname")) {
-
-				String systemName = currentChild.getAttributes()
-						.getNamedItem("name").getTextContent();
+		if (currentChild != null) {
+			String systemName = currentChild.getName();
 //System.out.println("systemname found " + systemName);
-				un.setSystemName(systemName);
-				targetNode = targetXml.hasSystemName(systemName);
-				if (targetNode != null) {
-					targetXml.incrementInstances(targetNode);
-					Error.info("System Name '" + systemName + "' has type '"
-							+ TargetPlatformXml.getNodeType(targetNode));
-					if (compareParameterTypes(currentChild, targetNode)) {
-						Error.info("parameter types are ok");
-					} else {
-						Error.error("parameter mismatch for system name '"
-								+ systemName + "'");
-					}
-
-					String typeOfElement = TargetPlatformXml
-							.getNodeType(targetNode);
-					/*
-					 * Node typeNode = moduleXML.createElement(typeOfElement);
-					 * Element e = (Element) n; e.appendChild(typeNode);
-					 */
-					un.setType(typeOfElement);
-
-					checkAssociation(n, targetNode);
-					/*
-					 * ((Element) n).setAttribute("instanceCount", "yes"); }
-					 * else { ((Element) n).setAttribute("instanceCount", "no");
-					 * }
-					 */
+			un.setSystemName(systemName);
+			targetNode = targetXml.hasSystemName(systemName);
+			if (targetNode != null) {
+				targetXml.incrementInstances(targetNode);
+				Error.info("System Name '" + systemName + "' has type '"
+						+ TargetPlatformXml.getNodeType(targetNode));
+				if (compareParameterTypes(currentChild, targetNode)) {
+					Error.info("parameter types are ok");
+				} else {
+					Error.error("parameter mismatch for system name '"
+							+ systemName + "'");
 				}
-				return targetNode;
+
+				String typeOfElement = TargetPlatformXml
+						.getNodeType(targetNode);
+				/*
+				 * Node typeNode = moduleXML.createElement(typeOfElement);
+				 * Element e = (Element) n; e.appendChild(typeNode);
+				 */
+				un.setType(typeOfElement);
+
+				checkAssociation(n, targetNode);
+				/*
+				 * ((Element) n).setAttribute("instanceCount", "yes"); }
+				 * else { ((Element) n).setAttribute("instanceCount", "no");
+				 * }
+				 */
 			}
+			return targetNode;
 		}
 		Error.error("no sysname attribute in node");
 		return null;
 
 	}
 
-	private void checkAssociation(Node moduleNode, Node systemNode) {
+	private void checkAssociation(ModuleSystemElement moduleNode, PlatformDevice systemNode) {
 		String provider = TargetPlatformXml
 				.associationRequiredProvider(systemNode);
-		Node association = null;
+		ModuleSystemElement association = null;
 		// the first association resides in sysname
 		// nested associations are located in moduleNode
 		// try to find 'sysname'
 		// - if present we are in a username or configuration item
 		// - if NOT present we are in an association, lets try to find the next
 		// level
-		Node sysname = getChildByName(moduleNode, "sysname");
+		ModuleSystemElement sysname = moduleNode.getSysname();
 		if (sysname != null) {
-			association = getChildByName(sysname, "association");
+			association = sysname.getAssociation();
 		} else {
-			association = getChildByName(moduleNode, "association");
+			association = moduleNode.getAssociation();
 		}
 		if (association != null) {
-			String associationName = association.getAttributes()
-					.getNamedItem("name").getTextContent();
+			String associationName = association.getName();
 
 			// System.out.println("association=" + associationName);
 			// System.out.println("required provider=" + provider);
-			Node associationSystemNode = targetXml
+			PlatformDevice associationSystemNode = targetXml
 					.hasSystemName(associationName);
 			if (associationSystemNode == null) {
 				// System.out.println("maybe is user name");
@@ -287,10 +376,10 @@ public class ModuleXml {
 					// + " is defined");
 					// System.out.println("test for connection provider is missing");
 					// test if username provides interface is missing
-					Node assoc;
+					PlatformAssociationType assoc;
 
-					if (u.getNode() != null) {
-						assoc = TargetPlatformXml.provides(u.getNode(),
+					if (u.getDevice() != null) {
+						assoc = TargetPlatformXml.provides(u.getDevice(),
 								provider);
 						if (assoc == null) {
 							Error.error(u.getName()
@@ -315,7 +404,7 @@ public class ModuleXml {
 					return;
 				}
 			} else {
-				Node assoc = TargetPlatformXml.provides(associationSystemNode,
+				PlatformAssociationType assoc = TargetPlatformXml.provides(associationSystemNode,
 						provider);
 				if (assoc == null) {
 					// the error message is already emitted in provides(...)
@@ -335,7 +424,7 @@ public class ModuleXml {
 					}
 
 					un = u;
-					un.setTargetNode(associationSystemNode);
+					un.setTargetDevice(associationSystemNode);
 					if (compareParameterTypes(association,
 							associationSystemNode) == false) {
 						Error.error("parameter mismatch in connection Provider");
@@ -371,65 +460,13 @@ public class ModuleXml {
 		}
 	}
 
-	private int nbrParameters(Node n) {
-		if (n != null) {
-			NodeList childs = n.getChildNodes();
-			int nbr = 0;
-
-			for (int i = 0; i < childs.getLength(); i++) {
-				if (childs.item(i).getNodeType() == Node.ELEMENT_NODE) {
-					// System.out.println("ElementNode "
-					// + childs.item(i).getNodeName());
-					nbr++;
-				}
-			}
-			return nbr;
-		} else {
-			return 0;
-
-		}
-	}
-
-	/**
-	 * find the child node of the given node with the given name
-	 * 
-	 * @param n
-	 *            the node, which is expected to contain a child with the given
-	 *            name
-	 * @param name
-	 *            the name of the child node
-	 * @return null, if there is non fitting child; else the detected child node
-	 */
-	public static Node getChildByName(Node n, String name) {
-		NodeList nList = n.getChildNodes();
-		for (int i = 0; i < nList.getLength(); i++) {
-			// if (nList.item(i).getNodeType() == Node.ELEMENT_NODE) {
-			// System.out.println(nList.item(i).getNodeName());
-			// }
-
-			if (nList.item(i).getNodeType() == Node.ELEMENT_NODE
-					&& nList.item(i).getNodeName().equals(name)) {
-				return nList.item(i);
-			}
-		}
-		return null;
-	}
-
-	private boolean compareParameterTypes(Node inModule, Node inTarget) {
-		Node moduleParameters = getChildByName(inModule, "parameters");
-		Node targetParameters = getChildByName(inTarget, "parameters");
+	private boolean compareParameterTypes(ModuleSystemElement inModule, PlatformDevice inTarget) {
+		List<Parameter> moduleParameters = inModule.getParameters();
+		List<PlatformParameter> targetParameters = inTarget.getParameters();
 
-		int nbrModuleParameters = nbrParameters(moduleParameters);
-		int nbrTargetParameters = nbrParameters(targetParameters);
+		int nbrModuleParameters = (moduleParameters == null ? 0 : moduleParameters.size());
+		int nbrTargetParameters = (targetParameters == null ? 0 : targetParameters.size());
 
-		// System.out.println("#P1= " + nbrModuleParameters + "  #P2="
-		// + nbrTargetParameters);
-
-		/*
-		 * if (nbrModuleParameters != nbrTargetParameters) {
-		 * System.err.println("number of parameters does not match (" +
-		 * nbrModuleParameters + " != " + nbrTargetParameters + ")"); }
-		 */
 		if (nbrModuleParameters != nbrTargetParameters) {
 			Error.error("number of parameter mismatch");
 			return false;
@@ -439,40 +476,13 @@ public class ModuleXml {
 		}
 
 		// check each parameter to have the same type
-		NodeList moduleParameterNodes = moduleParameters.getChildNodes();
-		NodeList targetParameterNodes = targetParameters.getChildNodes();
-		int targetParameterIndex = 0;
-
-		for (int i = 0; i < moduleParameterNodes.getLength(); i++) {
-			if (moduleParameterNodes.item(i).getNodeType() == Node.ELEMENT_NODE) {
-				// System.out.println("ElementNode "
-				// + moduleParameterNodes.item(i).getNodeName());
-
-				Parameter p1 = new Parameter(moduleParameterNodes.item(i));
-				// System.out.println("P1: " + p1.getValue() + " " +
-				// p1.getType()
-				// + " " + p1.length());
-
-				// find next target parameter
-				while (targetParameterIndex < targetParameterNodes.getLength()
-						&& targetParameterNodes.item(targetParameterIndex)
-								.getNodeType() != Node.ELEMENT_NODE) {
-					targetParameterIndex++;
-				}
+		for (int i = 0; i < nbrModuleParameters; i++) {
+			Parameter p = moduleParameters.get(i);
+			Parameter p1 = new Parameter(p.getType(), p.getValue());
 
-				if (targetParameterIndex >= targetParameterNodes.getLength()) {
-					System.err.println(sourceFileName + 0
-							+ ": too many parameters");
-					return false;
-				}
-
-				TargetPlatformXml
-						.checkParameterTypeAndValue(
-								targetParameterNodes.item(targetParameterIndex),
-								p1, un);
-				targetParameterIndex++;
-				un.addParameter(p1);
-			}
+			TargetPlatformXml.checkParameterTypeAndValue(
+					targetParameters.get(i), p1, un);
+			un.addParameter(p1);
 		}
 
 		return true;
@@ -482,32 +492,19 @@ public class ModuleXml {
 	 * check the problem part entries to fit to the system part definitions
 	 */
 	public void checkProblemPart() {
-		NodeList problemElements = moduleXML.getElementsByTagName("problem");
-
 		if (problemElements == null) {
 			// no problem part
 			return;
 		}
-		// get all defined system elements
-		try {
-			problemElements = problemElements.item(0).getChildNodes();
-		} catch (NullPointerException e) {
-			// no problem part
-			return;
-		}
-		if (problemElements.getLength() > 0) {
+		if (problemElements.size() > 0) {
 			// search desired signal in the text section of concrete
 			// signal-entry
-			for (int i = 0; i < problemElements.getLength(); i++) {
-				Node n = problemElements.item(i); // .getChildNodes();
-				if (n.getNodeType() == Node.ELEMENT_NODE
-						&& n.getNodeName().equals("spc")) {
-					String userName = n.getAttributes().getNamedItem("name")
-							.getTextContent();
-					line = Integer.parseInt(n.getAttributes()
-							.getNamedItem("line").getTextContent());
-					String type = n.getAttributes().getNamedItem("type")
-							.getTextContent();
+			for (int i = 0; i < problemElements.size(); i++) {
+				ModuleSpecification n = problemElements.get(i);
+				if (n.getElement().equals("spc")) {
+					String userName = n.getName();
+					line = Integer.parseInt(n.getLine());
+					String type = n.getType();
 
 					Error.setLocation(sourceFileName, line);
 					Error.info("SPC found type= '" + type + "' '" + userName
@@ -533,8 +530,7 @@ public class ModuleXml {
 					if (type.equals("dation")) {
 						checkDationAttributes(n, un);
 					}
-				} else if (n.getNodeType() == Node.ELEMENT_NODE
-						&& n.getNodeName().equals("dcl")) {
+				} else if (n.getElement().equals("dcl")) {
 					Error.error("DCL  entry found -/- not supported yet");
 
 				}
@@ -554,14 +550,12 @@ public class ModuleXml {
 	 * @param un
 	 *            the username from the system part
 	 */
-	private void checkDationAttributes(Node n, SystemEntry un) {
+	private void checkDationAttributes(ModuleSpecification n, SystemEntry un) {
 		// check data type
-		String attributesInSpc = getChildByName(n, "attributes")
-				.getTextContent();
+		String attributesInSpc = n.getAttributes();
 		// System.out.println("SPC attr:" + attributesInSpc);
 
-		String attributesInDevice = getChildByName(un.getNode(), "attributes")
-				.getTextContent();
+		String attributesInDevice = un.getDevice().getAttributes();
 		// System.out.println("DCL attr:" + attributesInDevice);
 
 		String[] attrListInSpc = attributesInSpc.split(",");
@@ -583,16 +577,15 @@ public class ModuleXml {
 		}
 
 		// check data type
-		String dataInSpc = getChildByName(n, "data").getTextContent();
+		String dataInSpc = n.getData();
 		// System.out.println("SPC data:" + dataInSpc);
 
-		Node nDev = getChildByName(un.getNode(), "data");
-		if (nDev == null) {
+		String dataInDevice = un.getDevice().getData();
+		if (dataInDevice == null) {
 			Error.error("System Entry '" + un.getSystemName()
 					+ "' contains no <data>-tag");
 			return;
 		}
-		String dataInDevice = nDev.getTextContent();
 		// System.out.println("DCL data:" + dataInDevice);
 
 		// a system dation with type ALL accepts all data types
@@ -27,8 +27,6 @@
  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 
-import org.w3c.dom.Node;
-
 /**
  * A parameter object to store the value and some utility methods
  * 
@@ -40,17 +38,13 @@ public class Parameter {
    private String type=null;
    private String nickName=null;
    
-   Parameter(Node node) {
-	 //  NodeList childs = node.getChildNodes();
-	   
-		//for (int i = 0; i < childs.getLength(); i++) {
-		//	if (childs.item(i).getNodeType() == Node.ELEMENT_NODE) {
-		//		System.out.println("ElementNode "
-		//				+ childs.item(i).getNodeName());
-				type = node.getNodeName();
-				value = node.getTextContent().trim();
-	//		}
-//		}	   
+   /**
+    * @param type the type of the parameter, like FIXED or CHAR
+    * @param value the value as given in the module definition
+    */
+   Parameter(String type, String value) {
+	   this.type = type;
+	   this.value = value.trim();
    }
    
    String getType() {
@@ -74,7 +68,7 @@ public class Parameter {
    int length() {
 	   int numberOfBits = 0;
 	   if (hasType("FIXED")) {
-		   int v = Integer.parseInt(value);
+		   int v = Integer.decode(value);
 		   numberOfBits = 32-Integer.numberOfLeadingZeros(v);
 		   return(numberOfBits);
 	   } else if (hasType("BIT")) {
@@ -0,0 +1,206 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * compiled form of a rule for the value of a device parameter, like
+ * VALUES, ConsistsOf, FIXEDRANGE or FIXEDGT
+ * 
+ * The content of the rule is split only once. Value lists are kept as hash
+ * sets. The bounds of ranges are evaluated only once, if they do not depend
+ * on nicknames; otherwise they are evaluated with the nickname values of the
+ * checked system entry.
+ * 
+ * @author mueller
+ * 
+ */
+public class ParameterRule {
+	private static final int VALUES = 0;
+	private static final int CONSISTS_OF = 1;
+	private static final int FIXEDRANGE = 2;
+	private static final int FIXEDGT = 3;
+	private static final int NOT_EMPTY = 4;
+	private static final int ALL = 5;
+	private static final int UNKNOWN = 6;
+
+	private static final Map<String, String> NO_NICKNAMES = new HashMap<String, String>();
+
+	private String name;
+	private String content;
+	private int kind;
+	private Set<String> values;
+	private String[] bounds;
+	private Integer[] constantBounds;
+
+	/**
+	 * @param name
+	 *            the name of the rule
+	 * @param content
+	 *            the text of the rule from the platform definition
+	 */
+	ParameterRule(String name, String content) {
+		this.name = name;
+		this.content = content;
+
+		if (name.equals("VALUES") || name.equals("ConsistsOf")) {
+			kind = name.equals("VALUES") ? VALUES : CONSISTS_OF;
+			values = new HashSet<String>();
+			String[] items = content.split(",");
+			for (int i = 0; i < items.length; i++) {
+				values.add(items[i].trim());
+			}
+		} else if (name.equals("FIXEDRANGE") || name.equals("FIXEDGT")) {
+			if (name.equals("FIXEDRANGE")) {
+				kind = FIXEDRANGE;
+				bounds = content.split(",");
+			} else {
+				kind = FIXEDGT;
+				bounds = new String[] { content };
+			}
+			constantBounds = new Integer[bounds.length];
+			for (int i = 0; i < bounds.length; i++) {
+				constantBounds[i] = evaluateConstant(bounds[i]);
+			}
+		} else if (name.equals("NotEmpty")) {
+			kind = NOT_EMPTY;
+		} else if (name.equals("ALL")) {
+			kind = ALL;
+		} else {
+			kind = UNKNOWN;
+		}
+	}
+
+	/**
+	 * evaluate a bound, which does not depend on nicknames
+	 * 
+	 * @return the value of the bound; null, if the bound must be evaluated
+	 *         for each system entry
+	 */
+	private static Integer evaluateConstant(String bound) {
+		IntegerExpression expression = IntegerExpression.compile(bound);
+		if (expression.needsNickNames()) {
+			return null;
+		}
+		try {
+			return Integer.parseInt(expression.evaluate(NO_NICKNAMES));
+		} catch (NumberFormatException e) {
+			// the error is detected again on each check
+			return null;
+		}
+	}
+
+	private int getBound(int i, SystemEntry systemEntry) {
+		if (i < constantBounds.length && constantBounds[i] != null) {
+			return constantBounds[i];
+		}
+		return Integer.parseInt(systemEntry.evaluateExpression(bounds[i]));
+	}
+
+	String getName() {
+		return name;
+	}
+
+	String getContent() {
+		return content;
+	}
+
+	/**
+	 * check the value of an actual parameter
+	 * 
+	 * @param p
+	 *            the actual parameter from the user module
+	 * @param systemEntry
+	 *            the system entry, which provides the values of nicknames
+	 * @return true, if the value is ok; false else
+	 */
+	boolean check(Parameter p, SystemEntry systemEntry) {
+		switch (kind) {
+		case VALUES:
+			if (values.contains(p.getValue())) {
+				return true;
+			}
+			Error.error("illegal value: " + p.getValue()
+					+ " not in supported list");
+			return false;
+
+		case CONSISTS_OF:
+			// only the elements of the comma separated list are allowed in the parameter
+			boolean ok = true;
+			String[] paramItems = p.getValue().split(" ");
+			for (int pi = 0; pi < paramItems.length; pi++) {
+				if (!values.contains(paramItems[pi].trim())) {
+					Error.error("parameter value " + paramItems[pi] + " not supported");
+					ok = false;
+				}
+			}
+			return ok;
+
+		case FIXEDRANGE: {
+			int low = getBound(0, systemEntry);
+			int high = getBound(1, systemEntry);
+			int val = Integer.decode(p.getValue());
+			if (val >= low && val <= high) {
+				return true;
+			}
+			Error.error("value \"" + val + "\" out of range [" + low
+					+ "," + high + "]");
+			return false;
+		}
+
+		case FIXEDGT: {
+			int low = getBound(0, systemEntry);
+			int val = Integer.decode(p.getValue());
+			if (val > low) {
+				return true;
+			}
+			Error.error("value out of range (val=" + val
+					+ ") not > as " + low + ")");
+			return false;
+		}
+
+		case NOT_EMPTY:
+			if (p.length() > 0) {
+				return true;
+			}
+			Error.error("value must not be empty");
+			return false;
+
+		case ALL:
+			return true;
+
+		default:
+			Error.info("no rule found -- accept everything");
+			return true;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * an association type, which is provided by a system device, together with
+ * the maximum number of clients
+ * 
+ * @author mueller
+ * 
+ */
+public class PlatformAssociationType {
+	private String name;
+	private int clients;
+
+	/**
+	 * @param name
+	 *            the name of the association type
+	 * @param clients
+	 *            the value of the clients attribute; null if not specified
+	 */
+	PlatformAssociationType(String name, String clients) {
+		this.name = name;
+		this.clients = -1;
+		if (clients != null) {
+			try {
+				this.clients = Integer.parseInt(clients.trim());
+			} catch (NumberFormatException e) {
+				this.clients = -1;
+			}
+		}
+	}
+
+	/**
+	 * @param name
+	 *            the name of the association type
+	 * @param clients
+	 *            the maximum number of clients; -1 if not specified
+	 */
+	PlatformAssociationType(String name, int clients) {
+		this.name = name;
+		this.clients = clients;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the maximum number of clients; -1 if not specified
+	 */
+	int getClients() {
+		return clients;
+	}
+}
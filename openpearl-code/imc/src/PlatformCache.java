@@ -0,0 +1,114 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * binary snapshot of the device index of a target platform
+ * 
+ * Parsing the platform definition is the most expensive part of an imc run
+ * for large platforms, although the file rarely changes. After the xml file
+ * was read, the device index is stored as Snapshot next to the xml file.
+ * Later runs map the snapshot into memory and rebuild the index without
+ * parsing the xml file.
+ * 
+ * The format version must be incremented with each change of the stored
+ * device description.
+ * 
+ * @author mueller
+ * 
+ */
+public class PlatformCache {
+	private static final int MAGIC = 0x494d4350; // "IMCP"
+	private static final int VERSION = 1;
+
+	/**
+	 * read the snapshot of the given platform definition file
+	 * 
+	 * @param xmlFileName
+	 *            the name of the platform definition file
+	 * @param hash
+	 *            the hash of the current content of the platform definition
+	 * @return the device index; null, if there is no valid snapshot for this
+	 *         content
+	 */
+	static Map<String, PlatformDevice> read(String xmlFileName, byte[] hash) {
+		ByteBuffer buffer = Snapshot.open(xmlFileName, MAGIC, VERSION, hash);
+		if (buffer == null) {
+			return null;
+		}
+
+		try {
+			int nbrOfDevices = buffer.getInt();
+			Map<String, PlatformDevice> devices = new HashMap<String, PlatformDevice>();
+			for (int i = 0; i < nbrOfDevices; i++) {
+				PlatformDevice d = PlatformDevice.readFrom(buffer);
+				devices.put(d.getName(), d);
+			}
+			return devices;
+		} catch (BufferUnderflowException e) {
+			// damaged snapshot
+			return null;
+		} catch (NegativeArraySizeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * write the snapshot of the given platform definition file
+	 * 
+	 * @param xmlFileName
+	 *            the name of the platform definition file
+	 * @param hash
+	 *            the hash of the content of the platform definition
+	 * @param devices
+	 *            the device index read from the platform definition
+	 */
+	static void write(String xmlFileName, byte[] hash,
+			Map<String, PlatformDevice> devices) {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		try {
+			DataOutputStream out = Snapshot.create(MAGIC, VERSION, hash, content);
+			out.writeInt(devices.size());
+			for (PlatformDevice d : devices.values()) {
+				d.writeTo(out);
+			}
+			out.flush();
+		} catch (IOException e) {
+			return;
+		}
+		Snapshot.store(xmlFileName, content);
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * description of a system device of the target platform
+ * 
+ * Only the information, which is needed by the checks, is kept: the
+ * parameter descriptions, the supported dation attributes and data types and
+ * the associations, which are required and provided.
+ * 
+ * @author mueller
+ * 
+ */
+public class PlatformDevice {
+	private String type;
+	private String name;
+	private Integer maxInstances;
+	private int instanceCount = 0;
+	private List<PlatformParameter> parameters;
+	private String attributes;
+	private String data;
+	private boolean needsAssociation = false;
+	private String neededAssociation;
+	private List<PlatformAssociationType> providedAssociations;
+
+	/**
+	 * read the device description at the current element of the xml stream
+	 * 
+	 * @param xml
+	 *            the xml stream; positioned on the start of the device element
+	 * @return the device description; the stream is positioned at the end of
+	 *         the device element
+	 * @throws XMLStreamException
+	 *             if the file is not well formed
+	 */
+	static PlatformDevice read(ReadXml xml) throws XMLStreamException {
+		PlatformDevice d = new PlatformDevice();
+		d.type = xml.getName();
+		d.name = xml.getAttribute("name");
+		String instances = xml.getAttribute("instances");
+		if (instances != null) {
+			d.maxInstances = Integer.parseInt(instances);
+		}
+
+		while (xml.nextChildElement()) {
+			String element = xml.getName();
+			if (element.equals("parameters") && d.parameters == null) {
+				d.parameters = new ArrayList<PlatformParameter>();
+				while (xml.nextChildElement()) {
+					d.parameters.add(PlatformParameter.read(xml));
+				}
+			} else if (element.equals("attributes") && d.attributes == null) {
+				d.attributes = xml.getTextContent();
+			} else if (element.equals("data") && d.data == null) {
+				d.data = xml.getTextContent();
+			} else if (element.equals("needAssociation") && !d.needsAssociation) {
+				d.needsAssociation = true;
+				d.neededAssociation = xml.getAttribute("name");
+				xml.skipElement();
+			} else if (element.equals("associationProvider")
+					&& d.providedAssociations == null) {
+				d.providedAssociations = new ArrayList<PlatformAssociationType>();
+				while (xml.nextChildElement()) {
+					if (xml.getName().trim().equals("associationType")) {
+						d.providedAssociations.add(new PlatformAssociationType(
+								xml.getAttribute("name"), xml.getAttribute("clients")));
+					}
+					xml.skipElement();
+				}
+			} else {
+				xml.skipElement();
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * read the device description from a platform snapshot
+	 * 
+	 * @param in
+	 *            the snapshot buffer; positioned on the device description
+	 * @return the device description
+	 * @see PlatformCache
+	 */
+	static PlatformDevice readFrom(ByteBuffer in) {
+		PlatformDevice d = new PlatformDevice();
+		d.type = Snapshot.readString(in);
+		d.name = Snapshot.readString(in);
+		if (in.get() != 0) {
+			d.maxInstances = in.getInt();
+		}
+		int nbrOfParameters = in.getInt();
+		if (nbrOfParameters >= 0) {
+			d.parameters = new ArrayList<PlatformParameter>();
+			for (int i = 0; i < nbrOfParameters; i++) {
+				d.parameters.add(PlatformParameter.readFrom(in));
+			}
+		}
+		d.attributes = Snapshot.readString(in);
+		d.data = Snapshot.readString(in);
+		d.needsAssociation = (in.get() != 0);
+		d.neededAssociation = Snapshot.readString(in);
+		int nbrOfAssociations = in.getInt();
+		if (nbrOfAssociations >= 0) {
+			d.providedAssociations = new ArrayList<PlatformAssociationType>();
+			for (int i = 0; i < nbrOfAssociations; i++) {
+				String name = Snapshot.readString(in);
+				d.providedAssociations.add(new PlatformAssociationType(name,
+						in.getInt()));
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * write the device description to a platform snapshot
+	 * 
+	 * The instance counter is not written, since it belongs to the current
+	 * run.
+	 * 
+	 * @param out
+	 *            the snapshot stream
+	 * @throws IOException
+	 *             if the stream could not be written
+	 * @see PlatformCache
+	 */
+	void writeTo(DataOutputStream out) throws IOException {
+		Snapshot.writeString(out, type);
+		Snapshot.writeString(out, name);
+		out.writeByte(maxInstances != null ? 1 : 0);
+		if (maxInstances != null) {
+			out.writeInt(maxInstances);
+		}
+		out.writeInt(parameters != null ? parameters.size() : -1);
+		if (parameters != null) {
+			for (int i = 0; i < parameters.size(); i++) {
+				parameters.get(i).writeTo(out);
+			}
+		}
+		Snapshot.writeString(out, attributes);
+		Snapshot.writeString(out, data);
+		out.writeByte(needsAssociation ? 1 : 0);
+		Snapshot.writeString(out, neededAssociation);
+		out.writeInt(providedAssociations != null ? providedAssociations.size() : -1);
+		if (providedAssociations != null) {
+			for (int i = 0; i < providedAssociations.size(); i++) {
+				Snapshot.writeString(out, providedAssociations.get(i).getName());
+				out.writeInt(providedAssociations.get(i).getClients());
+			}
+		}
+	}
+
+	/**
+	 * @return the type of the device, like "dation", "interrupt", ...
+	 */
+	String getType() {
+		return type;
+	}
+
+	/**
+	 * @return the system name of the device; null if not specified
+	 */
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the formal parameters; null, if there is no parameters element
+	 */
+	List<PlatformParameter> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * @return the supported dation attributes; null if not specified
+	 */
+	String getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * @return the supported data type; null if not specified
+	 */
+	String getData() {
+		return data;
+	}
+
+	/**
+	 * @return true, if the device requires an association
+	 */
+	boolean needsAssociation() {
+		return needsAssociation;
+	}
+
+	/**
+	 * @return the name of the required association type; null if the name is
+	 *         missing in the platform definition
+	 */
+	String getNeededAssociation() {
+		return neededAssociation;
+	}
+
+	/**
+	 * @return the provided association types; null, if the device is no
+	 *         association provider
+	 */
+	List<PlatformAssociationType> getProvidedAssociations() {
+		return providedAssociations;
+	}
+
+	/**
+	 * @return the maximum number of instances; null if not limited
+	 */
+	Integer getMaxInstances() {
+		return maxInstances;
+	}
+
+	/**
+	 * increment the number of instances of this device
+	 * 
+	 * @return the new number of instances
+	 */
+	int incrementInstanceCount() {
+		return ++instanceCount;
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * description of a formal parameter of a system device with its type, the
+ * maximum length, the optional nickname and the rules for its value
+ * 
+ * @author mueller
+ * 
+ */
+public class PlatformParameter {
+	private String type;
+	private String length;
+	private String nickName;
+	private List<String> ruleNames = new ArrayList<String>();
+	private List<String> ruleContents = new ArrayList<String>();
+	private ParameterRule[] rules;
+
+	/**
+	 * read the parameter description at the current element of the xml
+	 * stream
+	 * 
+	 * @param xml
+	 *            the xml stream; positioned on the start of the parameter
+	 * @return the parameter description; the stream is positioned at the end
+	 *         of the parameter element
+	 * @throws XMLStreamException
+	 *             if the file is not well formed
+	 */
+	static PlatformParameter read(ReadXml xml) throws XMLStreamException {
+		PlatformParameter p = new PlatformParameter();
+		p.type = xml.getName();
+		p.length = xml.getAttribute("length");
+		p.nickName = xml.getAttribute("nick");
+		while (xml.nextChildElement()) {
+			p.ruleNames.add(xml.getName());
+			p.ruleContents.add(xml.getTextContent());
+		}
+		return p;
+	}
+
+	/**
+	 * read the parameter description from a platform snapshot
+	 * 
+	 * @param in
+	 *            the snapshot buffer; positioned on the parameter description
+	 * @return the parameter description
+	 * @see PlatformCache
+	 */
+	static PlatformParameter readFrom(ByteBuffer in) {
+		PlatformParameter p = new PlatformParameter();
+		p.type = Snapshot.readString(in);
+		p.length = Snapshot.readString(in);
+		p.nickName = Snapshot.readString(in);
+		int nbrOfRules = in.getInt();
+		for (int i = 0; i < nbrOfRules; i++) {
+			p.ruleNames.add(Snapshot.readString(in));
+			p.ruleContents.add(Snapshot.readString(in));
+		}
+		return p;
+	}
+
+	/**
+	 * write the parameter description to a platform snapshot
+	 * 
+	 * @param out
+	 *            the snapshot stream
+	 * @throws IOException
+	 *             if the stream could not be written
+	 * @see PlatformCache
+	 */
+	void writeTo(DataOutputStream out) throws IOException {
+		Snapshot.writeString(out, type);
+		Snapshot.writeString(out, length);
+		Snapshot.writeString(out, nickName);
+		out.writeInt(ruleNames.size());
+		for (int i = 0; i < ruleNames.size(); i++) {
+			Snapshot.writeString(out, ruleNames.get(i));
+			Snapshot.writeString(out, ruleContents.get(i));
+		}
+	}
+
+	String getType() {
+		return type;
+	}
+
+	/**
+	 * @return the length attribute; null if not specified
+	 */
+	String getLength() {
+		return length;
+	}
+
+	/**
+	 * @return the nickname of the parameter; null if not specified
+	 */
+	String getNickName() {
+		return nickName;
+	}
+
+	int getNumberOfRules() {
+		return ruleNames.size();
+	}
+
+	String getRuleName(int i) {
+		return ruleNames.get(i);
+	}
+
+	String getRuleContent(int i) {
+		return ruleContents.get(i);
+	}
+
+	/**
+	 * deliver the compiled form of a rule
+	 * 
+	 * The rules are compiled, when the parameter is checked for the first
+	 * time. The system part is checked sequentially, thus no synchronization
+	 * is needed.
+	 * 
+	 * @param i
+	 *            the index of the rule
+	 * @return the compiled rule
+	 */
+	ParameterRule getRule(int i) {
+		if (rules == null) {
+			rules = new ParameterRule[ruleNames.size()];
+			for (int r = 0; r < rules.length; r++) {
+				rules[r] = new ParameterRule(ruleNames.get(r), ruleContents.get(r));
+			}
+		}
+		return rules[i];
+	}
+}
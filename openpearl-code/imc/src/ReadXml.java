@@ -28,18 +28,26 @@
 */
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
-import org.w3c.dom.Attr;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
- * read a xml file into a DOM tree and provide some utility methods like dump
+ * read a xml file as stream of elements
+ * 
+ * The file is not kept in memory. The users walk through the elements with
+ * nextChildElement() and build their own compact representation of the
+ * needed information. Each child element must be consumed completely, by
+ * walking through its children, by getTextContent() or by skipElement(),
+ * before the next sibling is requested.
+ * 
+ * In verbose mode each element is printed, when it is read.
  * 
  * @author mueller
  *
@@ -47,104 +55,197 @@ import org.w3c.dom.NodeList;
 
 public class ReadXml {
 	String indent = "";
-	Document document;
+	XMLStreamReader reader;
+	InputStream input;
 	boolean verbose;
 	String searchPath;
+	String fileName;
 	
 	
 	/**
-	 * read the passed file as xml 
+	 * open the passed file as xml 
 	 * 
 	 * @param fileName plattform definition file name
 	 * @param verbose  flag for verbose output; if true lot of messages are sent to System.out
 	 */
 	 ReadXml(String fileName, boolean verbose, String searchPrefix) {
 		this.verbose=verbose;
+		this.fileName = fileName;
         searchPath = searchPrefix;
         
-		document = readXMLDocumentFromFile(fileName);
+		reader = openXMLStream(fileName);
+	}
+	
+	/**
+	 * @return true, if the file could be opened
+	 */
+	boolean isOpen() {
+		return reader != null;
+	}
+
+	String getFileName() {
+		return fileName;
+	}
 
-		
-		if (document != null & verbose) {
-			traverseDOMTree(document);
+	/**
+	 * locate a file like the constructor does: the file name is tried as given
+	 * and with the search prefix
+	 * 
+	 * @param file
+	 *            the file name
+	 * @param searchPrefix
+	 *            the alternative location; may be null
+	 * @return the name of the existing file; null, if the file was not found
+	 */
+	static String locate(String file, String searchPrefix) {
+		if (new File(file).isFile()) {
+			return file;
+		}
+		if (searchPrefix != null && new File(searchPrefix + file).isFile()) {
+			return searchPrefix + file;
 		}
+		return null;
 	}
-	
-    Document getDocument() {
-    	return (document);
-    }
-    
-    public void dumpDomTree() {
-    	traverseDOMTree(document);
-    }
-    
-	private  Document readXMLDocumentFromFile(String file) {
-		
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		Document xmlDoc=null;
+
+	private XMLStreamReader openXMLStream(String file) {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
 		String prefix = "";
-		
-       while (xmlDoc == null) {
-    	   
-       
-		try {
-			File inputFile = new File(prefix+file);
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			xmlDoc = builder.parse(inputFile);
-			xmlDoc.getDocumentElement().normalize();
-		} catch (java.io.FileNotFoundException e) {
-			if (prefix.isEmpty() && searchPath!= null) {
-			   prefix= searchPath;
-			} else {
+
+		while (true) {
+			try {
+				input = new FileInputStream(prefix + file);
+				return factory.createXMLStreamReader(input);
+			} catch (FileNotFoundException e) {
+				if (prefix.isEmpty() && searchPath != null) {
+					prefix = searchPath;
+				} else {
+					return null;
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+				Error.print("error reading XML file: " + file);
+				close();
 				return null;
 			}
-		} catch (Exception e) {
-			e.printStackTrace();
-			System.err.println("error reading XML file: " + file);
-			return null;
 		}
-       }
-		return xmlDoc;
 	}
 
-	private  void showNode(Node node) {
-		short t;
-		t = node.getNodeType();
-		if (t == Node.ELEMENT_NODE) {
-			System.out.println(indent + "Node: " + node.getNodeName());
-			// System.out.println(indent+" TextContent: "+node.getTextContent());
-
-			NamedNodeMap attributes = node.getAttributes();
-			for (int i = 0; i < attributes.getLength(); i++) {
-				Attr attr = (Attr) attributes.item(i);
-				System.out.println(indent + "Attribute: " + attr.getName()
-						+ "\t" + attr.getValue());
+	/**
+	 * advance to the next child of the current element
+	 * 
+	 * @return true, if the reader is positioned on the start of the next
+	 *         child element; false, if the end of the current element is
+	 *         reached
+	 * @throws XMLStreamException
+	 *             if the file is not well formed
+	 */
+	boolean nextChildElement() throws XMLStreamException {
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if (verbose) {
+					showElement();
+				}
+				indent += "   ";
+				return true;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (indent.length() >= 3) {
+					indent = indent.substring(3);
+				}
+				return false;
+			} else if (verbose
+					&& event == XMLStreamConstants.CHARACTERS
+					&& !reader.getText().trim().isEmpty()) {
+				System.out.println(indent + "TextContent: " + reader.getText());
 			}
+		}
+		return false;
+	}
 
-		} else if (t == Node.TEXT_NODE) {
-			String content = node.getTextContent();
-			if (!content.trim().isEmpty()) {
-				System.out.println(indent + "TextContent: " + content);
+	/**
+	 * @return the name of the current element
+	 */
+	String getName() {
+		return reader.getLocalName();
+	}
+
+	/**
+	 * @param name
+	 *            the name of the attribute
+	 * @return the value of the attribute of the current element; null, if
+	 *         the attribute does not exist
+	 */
+	String getAttribute(String name) {
+		return reader.getAttributeValue(null, name);
+	}
+
+	/**
+	 * read the text of the current element and all its children
+	 * 
+	 * The reader is positioned at the end of the current element afterwards.
+	 * 
+	 * @return the concatenated text
+	 * @throws XMLStreamException
+	 *             if the file is not well formed
+	 */
+	String getTextContent() throws XMLStreamException {
+		StringBuilder text = new StringBuilder();
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			} else if (event == XMLStreamConstants.CHARACTERS
+					|| event == XMLStreamConstants.CDATA
+					|| event == XMLStreamConstants.SPACE) {
+				text.append(reader.getText());
 			}
-		} else if (t == Node.COMMENT_NODE) {
-			// comments are ok
-		} else if (t == Node.DOCUMENT_NODE) {
-			// document node is ok
-		} else {
-			System.err.println("unexpected node type " + t);
 		}
+		indent = indent.substring(3);
+		if (verbose && !text.toString().trim().isEmpty()) {
+			System.out.println(indent + "   TextContent: " + text);
+		}
+		return text.toString();
+	}
 
+	/**
+	 * skip the current element with all its children
+	 * 
+	 * @throws XMLStreamException
+	 *             if the file is not well formed
+	 */
+	void skipElement() throws XMLStreamException {
+		while (nextChildElement()) {
+			skipElement();
+		}
 	}
 
-	public  void traverseDOMTree(Node node) {
-		showNode(node);
-		if (node.hasChildNodes()) {
-			NodeList children = node.getChildNodes();
-			for (int i = 0; i < children.getLength(); i++) {
-				indent += "   ";
-				traverseDOMTree(children.item(i));
-				indent = indent.substring(3);
+	void close() {
+		try {
+			if (reader != null) {
+				reader.close();
+			}
+			if (input != null) {
+				input.close();
 			}
+		} catch (XMLStreamException e) {
+			// nothing to do
+		} catch (IOException e) {
+			// nothing to do
+		}
+		reader = null;
+		input = null;
+	}
+
+	private void showElement() {
+		System.out.println(indent + "Node: " + reader.getLocalName());
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			System.out.println(indent + "Attribute: "
+					+ reader.getAttributeLocalName(i) + "\t"
+					+ reader.getAttributeValue(i));
 		}
 	}
 }
@@ -0,0 +1,232 @@
+/*
+ [A "BSD license"]
+ Copyright (c) 2016 Rainer Mueller
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * binary snapshot of the information, which was read from a xml file
+ * 
+ * The snapshot is stored in the file &lt;name&gt;.xml.cache next to the xml
+ * file. It starts with a magic word for the kind of content, the format
+ * version and the SHA-256 hash of the content of the xml file. A snapshot
+ * with another magic word, version or hash is ignored. The user of the
+ * snapshot reads the xml file in this case and stores a new snapshot.
+ * 
+ * If the snapshot can not be written, e.g. in a read only directory, the xml
+ * file is simply read on each run.
+ * 
+ * @author mueller
+ * 
+ */
+public class Snapshot {
+	private static final String SUFFIX = ".cache";
+
+	/**
+	 * calculate the hash of the content of a file
+	 * 
+	 * @param fileName
+	 *            the file name
+	 * @return the SHA-256 hash of the file content; null, if the file could not
+	 *         be read
+	 */
+	static byte[] hash(String fileName) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			return md.digest(Files.readAllBytes(new File(fileName).toPath()));
+		} catch (IOException e) {
+			return null;
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * map the snapshot of the given xml file into memory
+	 * 
+	 * @param xmlFileName
+	 *            the name of the xml file
+	 * @param magic
+	 *            the magic word of the expected kind of content
+	 * @param version
+	 *            the expected format version
+	 * @param hash
+	 *            the hash of the current content of the xml file
+	 * @return the content of the snapshot after the header; null, if there is
+	 *         no valid snapshot for this content
+	 */
+	static ByteBuffer open(String xmlFileName, int magic, int version,
+			byte[] hash) {
+		File cacheFile = new File(xmlFileName + SUFFIX);
+		if (!cacheFile.isFile()) {
+			return null;
+		}
+
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(cacheFile.toPath(),
+				StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		} catch (IOException e) {
+			return null;
+		}
+
+		try {
+			if (buffer.getInt() != magic || buffer.getInt() != version) {
+				return null;
+			}
+			int hashLength = buffer.getInt();
+			if (hashLength != hash.length) {
+				return null;
+			}
+			byte[] storedHash = new byte[hashLength];
+			buffer.get(storedHash);
+			if (!Arrays.equals(storedHash, hash)) {
+				return null;
+			}
+			return buffer;
+		} catch (BufferUnderflowException e) {
+			// damaged snapshot
+			return null;
+		}
+	}
+
+	/**
+	 * create the stream for the content of a new snapshot
+	 * 
+	 * @param magic
+	 *            the magic word of the kind of content
+	 * @param version
+	 *            the format version of the content
+	 * @param hash
+	 *            the hash of the content of the xml file
+	 * @param content
+	 *            the buffer, which receives the snapshot
+	 * @return the stream for the content after the header
+	 * @throws IOException
+	 *             if the stream could not be written
+	 */
+	static DataOutputStream create(int magic, int version, byte[] hash,
+			ByteArrayOutputStream content) throws IOException {
+		DataOutputStream out = new DataOutputStream(content);
+		out.writeInt(magic);
+		out.writeInt(version);
+		out.writeInt(hash.length);
+		out.write(hash);
+		return out;
+	}
+
+	/**
+	 * store a snapshot for the given xml file
+	 * 
+	 * The snapshot is written to a temporary file, which replaces the old
+	 * snapshot, to avoid that a concurrent run reads an incomplete file.
+	 * Problems are silently ignored, since the snapshot is just an
+	 * optimization.
+	 * 
+	 * @param xmlFileName
+	 *            the name of the xml file
+	 * @param content
+	 *            the complete snapshot, as created with create()
+	 */
+	static void store(String xmlFileName, ByteArrayOutputStream content) {
+		File cacheFile = new File(xmlFileName + SUFFIX);
+		File tempFile = null;
+		try {
+			tempFile = File.createTempFile(cacheFile.getName(), ".tmp",
+					cacheFile.getAbsoluteFile().getParentFile());
+			try (FileOutputStream out = new FileOutputStream(tempFile)) {
+				content.writeTo(out);
+			}
+			Files.move(tempFile.toPath(), cacheFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			tempFile = null;
+		} catch (IOException e) {
+			// no snapshot -- the xml file is read again next time
+		} finally {
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * write a string, which may be null
+	 * 
+	 * @param out
+	 *            the output stream
+	 * @param s
+	 *            the string
+	 * @throws IOException
+	 *             if the stream could not be written
+	 */
+	static void writeString(DataOutputStream out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * read a string, which was written by writeString()
+	 * 
+	 * @param in
+	 *            the snapshot buffer
+	 * @return the string; may be null
+	 */
+	static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -27,14 +27,44 @@
  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 
+/**
+ * registry of all system entries of the modules
+ * 
+ * The entries are kept in the order of their definition. Additionally the
+ * entries with a user name are indexed by this name. Each name refers to
+ * the list of its definitions; more than one definition is reported as
+ * duplicate by check().
+ */
 public class SystemEntries {
    static Vector<SystemEntry> userNames = new Vector<SystemEntry>();
+   static Map<String, List<SystemEntry>> definitions = new HashMap<String, List<SystemEntry>>();
    
    static void add(SystemEntry u) {
 	   userNames.add(u);
+	   if (u.getName() != null) {
+		   List<SystemEntry> l = definitions.get(u.getName());
+		   if (l == null) {
+			   l = new ArrayList<SystemEntry>(1);
+			   definitions.put(u.getName(), l);
+		   }
+		   l.add(u);
+	   }
+   }
+   
+   /**
+    * remove all entries for a new check
+    */
+   static void clear() {
+	   userNames.clear();
+	   definitions.clear();
+	   SystemEntry.resetConfigItemNbr();
    }
    
    static int size() {
@@ -53,26 +83,23 @@ public class SystemEntries {
 	   }
    }
    static SystemEntry contains(String uName) {
-	   for (int i=0; i<userNames.size(); i++) {
-		   SystemEntry un = userNames.get(i);
-		   if (un.getName() != null && 
-				   un.getName().equals(uName)) {
-			   return un;
-		   }
-	   } 
-	   return null;
+	   List<SystemEntry> l = definitions.get(uName);
+	   if (l == null) {
+		   return null;
+	   }
+	   return l.get(0);
    }
    
    static void check() {
 	   // check for undefined
 	   for (int i=0; i<userNames.size(); i++) {
 		   SystemEntry u = userNames.get(i);
-		   if (u.getNode() == null) {
+		   if (u.getDevice() == null) {
 			   Error.setLocation(u.getFileName(), u.getLine());
 			   Error.error("systemname '"+u.getSystemName()+ "' not available.");
 		   }
 		   SystemEntry p = u.getProvider();
-		   if (p != null && p.getNode() == null) {
+		   if (p != null && p.getDevice() == null) {
 			   Error.setLocation(u.getFileName(), u.getLine());
 			   Error.error("association provider '"+p.getName()+"' is not defined");
 		   }
@@ -80,13 +107,19 @@ public class SystemEntries {
 	   }
 	   
 	   // check for duplicates
-	   if (userNames.size()>1) {
-	   for (int i=0; i<userNames.size()-1; i++) {
+	   // each definition is reported together with all later definitions
+	   // of the same name
+	   Map<String, Integer> nbrOfPreviousDefinitions = new HashMap<String, Integer>();
+	   for (int i=0; i<userNames.size(); i++) {
 		   SystemEntry u = userNames.get(i);
 		   if (u.getName() != null) {
-			   for (int j=i+1; j<userNames.size(); j++) {
-				   SystemEntry v = userNames.get(j);
-				   if (i != j && u.getName().equals(v.getName())) {
+			   List<SystemEntry> l = definitions.get(u.getName());
+			   if (l.size() > 1) {
+				   Integer previous = nbrOfPreviousDefinitions.get(u.getName());
+				   int position = (previous == null ? 0 : previous);
+				   nbrOfPreviousDefinitions.put(u.getName(), position + 1);
+				   for (int j=position+1; j<l.size(); j++) {
+					   SystemEntry v = l.get(j);
 					   Error.setLocation(u.getFileName(), u.getLine());
 					   Error.error("identifier '"+u.getName()+"' is duplicated defined\n\tother declaration was "+
 					   v.getFileName()+":"+v.getLine()  );
@@ -94,7 +127,6 @@ public class SystemEntries {
 			   }
 		   }
 	   }
-	   }
 
    }
 
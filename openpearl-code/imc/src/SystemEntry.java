@@ -28,19 +28,15 @@
  */
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
-
-import org.w3c.dom.Node;
+import java.util.Map;
 
 /**
  * Store a user defined name in system part together with some attributes
  * 
  * temp: LM75(0x48) --- I2CBUS('/dev/I2C-0", 100000); --> temp is stored with
- * reference to document and node in target-document
+ * reference to the device description of the target platform
  * 
  * @author mueller
  * 
@@ -53,8 +49,9 @@ public class SystemEntry {
 	private SystemEntry provider;
 
 	// private TargetXml targetXml;
-	private Node node;
+	private PlatformDevice node;
 	private List<Parameter> parameters = new ArrayList<Parameter>();
+	private Map<String, String> nickNameValues = new HashMap<String, String>();
 	private String file;
 	private int line;
 	private boolean isUsed = false;
@@ -63,6 +60,13 @@ public class SystemEntry {
 
 	private List<AssociationEntry> mustProvide = new ArrayList<AssociationEntry>();
 
+	/**
+	 * restart the numbering of the configuration elements for a new check
+	 */
+	static void resetConfigItemNbr() {
+		configItemNbr = 0;
+	}
+
 	/**
 	 * user name of system entry with reference to the system entry
 	 * 
@@ -105,19 +109,12 @@ public class SystemEntry {
 		return userName;
 	}
 
-	Node getNode() {
+	PlatformDevice getDevice() {
 		return node;
 	}
 
 	String getNickNameValue(String nickName) {
-		for (int i = 0; i < parameters.size(); i++) {
-			Parameter p = parameters.get(i);
-			String n = p.getNickName();
-			if (n != null && n.equals(nickName)) {
-				return parameters.get(i).getValue();
-			}
-		}
-		return null;
+		return nickNameValues.get(nickName);
 	}
 
 	/**
@@ -147,6 +144,10 @@ public class SystemEntry {
 	 */
 	public void addParameter(Parameter p) {
 		parameters.add(p);
+		String n = p.getNickName();
+		if (n != null && !nickNameValues.containsKey(n)) {
+			nickNameValues.put(n, p.getValue());
+		}
 	}
 
 	/**
@@ -252,7 +253,7 @@ public class SystemEntry {
 		type = t;
 	}
 
-	public void setTargetNode(Node targetNode) {
+	public void setTargetDevice(PlatformDevice targetNode) {
 		node = targetNode;
 	}
 
@@ -401,90 +402,15 @@ public class SystemEntry {
 	 * consist only of upper and lower case letters. Expressions must be braced
 	 * with square brackets. e.g. 'anyText[1+4*$nick + $name]anyotherText'
 	 * 
-	 * multiple expressions are allowed
+	 * multiple expressions are allowed. The expression is compiled only once
+	 * and evaluated with the values of the nicknames of this entry.
 	 * 
 	 * @param expr
 	 *            the expression with nicknames and operators
 	 * @return
 	 */
 	public String evaluateExpression(String expr) {
-
-		int nickNameEnd;
-		String expanded = expr;
-		int nickNameStart = expanded.indexOf('$');
-		while (nickNameStart >= 0) {
-			nickNameEnd = nickNameStart;
-			boolean isLetter;
-			do {
-				nickNameEnd++;
-				char currentChar = expanded.charAt(nickNameEnd);
-				isLetter = (currentChar >= 'A' && currentChar <= 'Z')
-						| (currentChar >= 'a' && currentChar <= 'z');
-			} while (isLetter);
-
-			String nickName = expr.substring(nickNameStart + 1, nickNameEnd);
-			String nickValue = getNickNameValue(nickName);
-			expanded = expr.substring(0, nickNameStart) + nickValue
-					+ expr.substring(nickNameEnd);
-//System.out.println("evaluateExpression: expanded="+expanded);
-			nickNameStart = expanded.indexOf('$');
-		}
-
-		int exprStart = expanded.indexOf('[');
-		while (exprStart >= 0) {
-			int exprEnd = exprStart;
-			while (exprEnd < expr.length() && expanded.charAt(exprEnd) != ']') {
-				exprEnd++;
-			}
-			if (expanded.charAt(exprEnd) != ']') {
-				Error.info("missing ']' in expression in target plattform definition file");
-				return null;
-			}
-
-			// evaluate the expression
-			String nakedExpression = expanded.substring(exprStart + 1, exprEnd);
-//System.out.println("nakedExpression="+nakedExpression);
-
-			ScriptEngineManager mgr = new ScriptEngineManager();
-			ScriptEngine engine = mgr.getEngineByName("JavaScript");
-			Object result;
-
-			try {
-				result = engine.eval(nakedExpression);
-
-			} catch (ScriptException e) {
-				Error.info("wrong expression in target plattform definition file ("
-						+ nakedExpression + ")");
-				return null;
-			}
-//System.out.println("result="+result);
-
-			// insert expression result in the expanded string
-                        String value;
-                        if (result.getClass() == Integer.class) {
-                           value=result.toString();
-                        } else if (result.getClass() == Double.class) {
-                           Integer ihelp=((Double)result).intValue();  // the type must be int
-                           value=ihelp.toString();
-                        } else {
-			   Error.error("can not handle result type "+
-			              result.getClass().getName()+"\n"+
-                          "SystemEntry::evaluateExpression");
-                           value = "";
-                        } 
-                            
-			//Double d = (Double) result;
-			//String value = new Integer(d.intValue()).toString();
-			// System.out.println("nakedExpression --> "+value);
-			expanded = expanded.substring(0, exprStart) + value
-					+ expanded.substring(exprEnd + 1);
-//System.out.println("new expended="+expanded);
-
-			// test for further expressions in the expanded string
-			exprStart = expanded.indexOf('[');
-		}
-		return expanded;
-
+		return IntegerExpression.compile(expr).evaluate(nickNameValues);
 	}
 
 }
@@ -27,25 +27,28 @@
  THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
 
 /**
  * read xml definition for target system resources and provide specific
  * operations, like search for names as well as required and valid parameters.
  * 
+ * The definition file is read as stream. Each device description is stored as
+ * PlatformDevice in an index by its system name. The index is kept as binary
+ * snapshot next to the definition file and reused as long as the definition
+ * file is unchanged (see PlatformCache).
  * 
  * @author mueller
  * 
  */
 
 public class TargetPlatformXml {
-	String indent = "";
-	Document targetPlatform;
 	boolean verbose;
+	Map<String, PlatformDevice> devices = new HashMap<String, PlatformDevice>();
 
     
 	/**
@@ -57,58 +60,91 @@ public class TargetPlatformXml {
 	 * @param verbose
 	 *            flag for verbose output; if true lot of messages are sent to
 	 *            System.out
+	 * @throws CheckAborted
+	 *             if the file could not be read
 	 */
 	TargetPlatformXml(String fileName, boolean verbose) {
 		this.verbose = verbose;
+		String searchPrefix = InstallationLocation.path+"/lib/";
+
+		// use the snapshot of a previous run, if the file is unchanged
+		String xmlFileName = ReadXml.locate(fileName, searchPrefix);
+		byte[] hash = null;
+		if (xmlFileName != null) {
+			hash = Snapshot.hash(xmlFileName);
+		}
+		if (hash != null) {
+			Map<String, PlatformDevice> cached = PlatformCache.read(xmlFileName, hash);
+			if (cached != null) {
+				if (verbose) {
+					System.out.println("target definition read from snapshot of "
+							+ xmlFileName);
+				}
+				devices = cached;
+				return;
+			}
+		}
 	
-		ReadXml tgt = new ReadXml(fileName, verbose,  InstallationLocation.path+"/lib/");
+		ReadXml tgt = new ReadXml(fileName, verbose,  searchPrefix);
 
-		targetPlatform = tgt.getDocument(); // readXMLDocumentFromFile(fileName);
-		if (targetPlatform == null) {
+		if (!tgt.isOpen() || !readDevices(tgt)) {
 			System.err.println("error reading target definition file ("
 					+ fileName + ")");
-			System.exit(1);
-			return;
+			throw new CheckAborted();
 		}
 
-		if (verbose) {
-			tgt.dumpDomTree();
+		if (hash != null) {
+			PlatformCache.write(xmlFileName, hash, devices);
 		}
 	}
 
 	/**
-	 * check if a system signal name exists
+	 * read all device descriptions, which are the children of the platform
+	 * element. If a system name is defined more than once, the first
+	 * definition is used.
 	 * 
-	 * @param systemName 	 *            the expected system name 
-	 * @return Node, of the entry, if the name exists on this target
-	 *         platform <br>null, if the system name does not exist
+	 * @param tgt
+	 *            the opened platform definition file
+	 * @return true, if the file was read successfully
 	 */
-	public Node hasSystemName(String systemName) {
-
-		// get entry point in tree for signals
-		NodeList nl = targetPlatform.getElementsByTagName("platform");
-		nl = nl.item(0).getChildNodes();
-		if (nl.getLength() > 0) {
-			for (int i = 0; i < nl.getLength(); i++) {
-				Node n = nl.item(i); // .getChildNodes();
-				String sName;
-				sName = null;
-				if (n.getNodeType() == Node.ELEMENT_NODE
-						&& n.getAttributes() != null) {
-					if (n.getAttributes() != null) {
-						if (n.getAttributes().getNamedItem("name") != null) {
-							sName = n.getAttributes().getNamedItem("name")
-									.getTextContent();
-						}
-					}
-
-					if (sName != null && sName.equals(systemName)) {
-						Error.info(systemName + " is available and has type "
-								+ getNodeType(n));
-						return n;
+	private boolean readDevices(ReadXml tgt) {
+		try {
+			while (tgt.nextChildElement()) {
+				if (!tgt.getName().equals("platform")) {
+					tgt.skipElement();
+					continue;
+				}
+				while (tgt.nextChildElement()) {
+					PlatformDevice d = PlatformDevice.read(tgt);
+					if (d.getName() != null && !devices.containsKey(d.getName())) {
+						devices.put(d.getName(), d);
 					}
 				}
+				return true;
 			}
+			return false;
+		} catch (XMLStreamException e) {
+			System.err.println(e.getMessage());
+			System.err.println("error reading XML file: " + tgt.getFileName());
+			return false;
+		} finally {
+			tgt.close();
+		}
+	}
+
+	/**
+	 * check if a system signal name exists
+	 * 
+	 * @param systemName 	 *            the expected system name 
+	 * @return the device, if the name exists on this target
+	 *         platform <br>null, if the system name does not exist
+	 */
+	public PlatformDevice hasSystemName(String systemName) {
+		PlatformDevice d = devices.get(systemName);
+		if (d != null) {
+			Error.info(systemName + " is available and has type "
+					+ getNodeType(d));
+			return d;
 		}
 		Error.info(systemName + " is NOT available - maybe it is a user defined name");
 
@@ -116,42 +152,33 @@ public class TargetPlatformXml {
 	}
 
 	/**
-	 * return the type of the given node as string
+	 * return the type of the given device as string
 	 * 
 	 * @param n
-	 *            the node to be queried
-	 * @return the type of the queried node --> "dation", "interrupt", ...
+	 *            the device to be queried
+	 * @return the type of the queried device --> "dation", "interrupt", ...
 	 */
-	static public String getNodeType(Node n) {
-		String type = n.getNodeName();
-		return type;
+	static public String getNodeType(PlatformDevice n) {
+		return n.getType();
 	}
 
 	/**
 	 * check, whether the given node provides the given kind of association
 	 * 
 	 * @param n
-	 *            the node to be queried
+	 *            the device to be queried
 	 * @param associationName
 	 *            the name of the association
-	 * @return true, if supported, else false
+	 * @return the association type, if supported, else null
 	 */
-	static public Node provides(Node n, String associationName) {
-		Node association = ModuleXml.getChildByName(n, "associationProvider");
+	static public PlatformAssociationType provides(PlatformDevice n, String associationName) {
+		List<PlatformAssociationType> association = n.getProvidedAssociations();
 		if (association != null) {
-			NodeList cl = association.getChildNodes();
-			for (int i = 0; i < cl.getLength(); i++) {
-				if (cl.item(i).getNodeType() == Node.ELEMENT_NODE
-						&& cl.item(i).getNodeName().trim()
-								.equals("associationType")) {
-					// System.out.println(cl.item(i).getNodeName());
-					String cName = cl.item(i).getAttributes()
-							.getNamedItem("name").getTextContent();
-					if (cName.equals(associationName)) {
-						Error.info("association type " + associationName
-								+ " found");
-						return cl.item(i);
-					}
+			for (int i = 0; i < association.size(); i++) {
+				if (associationName.equals(association.get(i).getName())) {
+					Error.info("association type " + associationName
+							+ " found");
+					return association.get(i);
 				}
 			}
 		}
@@ -162,27 +189,15 @@ public class TargetPlatformXml {
 	/**
 	 * read the number of registered clients for an association provider
 	 * 
-	 * The number of registered clients is stored as attribute of the node in the
-	 * DOM tree
+	 * The number of registered clients is given by the attribute 'clients' of
+	 * the association type
 	 * 
 	 * @param associationProvider
-	 *            the node of the association provider
+	 *            the association type of the association provider
 	 * @return the number of registered clients
 	 */
-	static int getAssociationClients(Node associationProvider) {
-		Node a = associationProvider.getAttributes().getNamedItem("clients");
-		int n = -1;
-
-		if (a != null) {
-			String nbr = a.getTextContent().trim();
-
-			try {
-				n = Integer.parseInt(nbr);
-			} catch (NumberFormatException e) {
-				n = -1;
-			}
-		}
-		return (n);
+	static int getAssociationClients(PlatformAssociationType associationProvider) {
+		return associationProvider.getClients();
 	}
 
 	/**
@@ -190,26 +205,28 @@ public class TargetPlatformXml {
 	 * 
 	 * The rule are specified in the system devive parameter description, like
 	 * FIXEDGT, FIXEDRANGE, ... This list is expected to be extended when
-	 * needed.
+	 * needed. The rules are compiled once per device parameter (see
+	 * ParameterRule).
 	 * 
 	 * @param n
 	 *            the formal parameter to be checked
 	 * @param p
 	 *            the actual parameter from the user module
+	 * @param systemEntry
+	 *            the system entry, which provides the values of nicknames
 	 * @return true, if type and value are ok; false else
 	 */
-	static boolean checkParameterTypeAndValue(Node n, Parameter p, SystemEntry systemEntry) {
+	static boolean checkParameterTypeAndValue(PlatformParameter n, Parameter p, SystemEntry systemEntry) {
 		String type;
 		int length;
 
-		type = n.getNodeName();
-		Node lengthNode = n.getAttributes().getNamedItem("length");
-		if (lengthNode == null) {
+		type = n.getType();
+		String lengthIsNumericalOrNickname = n.getLength();
+		if (lengthIsNumericalOrNickname == null) {
 			Error.error("no attribute length for parameter for '" + systemEntry.getSystemName() +
 					"' in system definition file");
 			return false;
 		}
-		String lengthIsNumericalOrNickname = lengthNode.getTextContent();
 		if (lengthIsNumericalOrNickname.contains("$")) {
 		   System.out.println("lookup in nicknames missing");	
 		   length = -1; // should produce an error 
@@ -217,7 +234,7 @@ public class TargetPlatformXml {
 		   length = Integer.parseInt(lengthIsNumericalOrNickname);
 		}
 		
-		if (type != p.getType()) {
+		if (!type.equals(p.getType())) {
 			Error.error("parameter type mismatch (" + type + " -- "
 					+ p.getType());
 			return false;
@@ -230,164 +247,58 @@ public class TargetPlatformXml {
 		}
 
 		// look for a nickname of this parameter
-		Node nickName = n.getAttributes().getNamedItem("nick");
-		if (nickName!= null) {
-			p.setNickName(nickName.getTextContent());
+		if (n.getNickName() != null) {
+			p.setNickName(n.getNickName());
 		}
 		
 		// test value
-		NodeList childs = n.getChildNodes();
-		for (int i = 0; i < childs.getLength(); i++) {
-			if (childs.item(i).getNodeType() != Node.ELEMENT_NODE) {
-				continue;
-			}
-			// rule found
-			String rule = childs.item(i).getNodeName();
-			String ruleContent = childs.item(i).getTextContent();
-			Error.info("Rule " + rule + "  content " + ruleContent);
-			if (rule.equals("VALUES")) {
-				String[] items = ruleContent.split(",");
-				for (int j = 0; j < items.length; j++) {
-					if (items[j].trim().equals(p.getValue())) {
-						return true;
-					}
-				}
-				Error.error("illegal value: " + p.getValue()
-						+ " not in supported list");
-				return false;
-			} else if (rule.equals("ConsistsOf")) {
-				// only the elements of the comma separated list are allowed in the parameter
-				boolean found=false;
-				boolean ok=true;
-				String[] ruleItems = ruleContent.split(",");
-				String[] paramItems = p.getValue().split(" ");
-				for (int pi =0; pi < paramItems.length; pi++) {
-					found = false;
-					for (int ri=0; ri < ruleItems.length && found == false; ri++) {			
-						if (paramItems[pi].trim().equals(ruleItems[ri].trim())) {
-							found = true;
-						}
-					}
-					if (!found) {
-						Error.error("parameter value "+paramItems[i]+" not supported");
-						ok = false;
-					}
-				}
-				return ok;
-			} else if (rule.equals("FIXEDRANGE")) {
-				String[] items = ruleContent.split(",");
-				String evaluated = systemEntry.evaluateExpression(items[0]);
-				int low = Integer.parseInt(evaluated);
-				evaluated = systemEntry.evaluateExpression(items[1]);
-//System.out.println("evaluated high as string: "+evaluated+"  item[1]="+items[1]);
-				int high = Integer.parseInt(evaluated);
-				int val = Integer.parseInt(p.getValue());
-				if (val >= low && val <= high) {
-					return true;
-				} else {
-					Error.error("value \"" + val + "\" out of range [" + low
-							+ "," + high + "]");
-					return false;
-				}
-			} else if (rule.equals("FIXEDGT")) {
-				int low = Integer.parseInt(systemEntry.evaluateExpression(ruleContent));
-
-				int val = Integer.parseInt(p.getValue());
-				if (val > low) {
-					return true;
-				} else {
-					Error.error("value out of range (val=" + val
-							+ ") not > as " + low + ")");
-					return false;
-				}
-			} else if (rule.equals("NotEmpty")) {
-				if (p.length() > 0) {
-					return true;
-				} else {
-					Error.error("value must not be empty");
-					return false;
-				}
-
-			} else if (rule.equals("ALL")) {
-				return true;
-			} else {
-				Error.info("no rule found -- accept everything");
-				return true;
-			}
+		// only the first rule is applied
+		if (n.getNumberOfRules() == 0) {
+			return false;
 		}
-
-		return false;
+		ParameterRule rule = n.getRule(0);
+		Error.info("Rule " + rule.getName() + "  content " + rule.getContent());
+		return rule.check(p, systemEntry);
 	}
 
 	/**
 	 * test, whether the current element need an association provider
 	 * 
 	 * @param node
-	 *            the node of the system element
+	 *            the system device
 	 * @return null, if no association provider is needed, or the name of the
 	 *         association provider, if there is one specified
 	 */
-	static String associationRequiredProvider(Node node) {
-		NodeList nl = node.getChildNodes();
-
-		if (nl.getLength() > 0) {
-			for (int i = 0; i < nl.getLength(); i++) {
-				Node n = nl.item(i);
-				if (n.getNodeType() == Node.ELEMENT_NODE
-						&& n.getNodeName().equals("needAssociation")) {
-					// get name and remove all surrounding white space characters
-					NamedNodeMap nm = n.getAttributes();
-					Node n1 = nm.getNamedItem("name");
-					if (n1 == null) {
-						Error.error("Error in platform xml file: needAssociation needs attribute 'name'");
-						return null;
-					} 
-					String provider = n1.getTextContent();
-					return provider;
-				}
+	static String associationRequiredProvider(PlatformDevice node) {
+		if (node.needsAssociation()) {
+			String provider = node.getNeededAssociation();
+			if (provider == null) {
+				Error.error("Error in platform xml file: needAssociation needs attribute 'name'");
 			}
-
+			return provider;
 		}
 		return null;
 	}
 
 	/**
 	 * increment the instanceCount counter, when a new client for an association was
-	 * detected. The counter is located in the DOM tree.
+	 * detected. The counter is located in the device description.
 	 * 
 	 * The counting of instances is only done, if the the attribute 'instances'
 	 * is specified, which defines the maximum of allowed instances to this
 	 * kink of system element in one PEARL application.
 	 * 
 	 * @param targetNode
-	 *            the node of the system element
+	 *            the system device
 	 */
-	public void incrementInstances(Node targetNode) {
-		Node instances = targetNode.getAttributes().getNamedItem("instances");
-		// Node instances = ModuleXml.getChildByName(targetNode, "instances");
-		if (instances != null) {
-			int maxInstances = Integer.parseInt(instances.getNodeValue());
-			// System.out.println(targetNode.getAttributes().getNamedItem("name")
-			// .getTextContent()
-			// + " provides instances: " + maxInstances);
-
-			String currentValue = ((Element) targetNode)
-					.getAttribute("instanceCount");
-			int newCount = 1;
-			if (currentValue != null && currentValue.length() > 0) {
-				// System.out.println("current: "+ currentValue);
-				newCount = Integer.parseInt(currentValue) + 1;
-				if (newCount > maxInstances) {
-					Error.error("too many instances for element "
-							+ ((Element) targetNode).getAttribute("name"));
-					return;
-				}
+	public void incrementInstances(PlatformDevice targetNode) {
+		Integer maxInstances = targetNode.getMaxInstances();
+		if (maxInstances != null) {
+			int newCount = targetNode.incrementInstanceCount();
+			if (newCount > maxInstances) {
+				Error.error("too many instances for element "
+						+ targetNode.getName());
 			}
-			
-			// set new instance count into dom tree
-			// or write the count as 1, if the counter did not exist
-			((Element) targetNode).setAttribute("instanceCount",
-						Integer.toString(newCount));
 		}
 	}
 }
@@ -103,7 +103,9 @@ namespace pearlrt {
 
          /** upper bound in this dimension	*/
          int high;
-         /** number of elements in all subsequent dimensions  */
+         /** number of elements in all subsequent dimensions;
+             this is the product of their element counts and the
+             distance of two consecutive indices of this dimension */
          int size;
       } lim[DIM]; /**< limits for all dimensions */
    };
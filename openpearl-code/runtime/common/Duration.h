@@ -235,7 +235,7 @@ namespace pearlrt {
 
       \throws DurationRangeSignal
       */
-      template <int S>Duration operator/(const Fixed<S>& rhs) {
+      template <int S>Duration operator/(const Fixed<S>& rhs) const {
          return Duration(*this) /= rhs;
       }
 
@@ -297,7 +297,7 @@ namespace pearlrt {
 
       \throws DurationRangeSignal
       */
-      template <int S>Duration operator/(const Float<S>& rhs) {
+      template <int S>Duration operator/(const Float<S>& rhs) const {
          return Duration(*this) /= rhs;
       }
 
@@ -519,7 +519,7 @@ namespace pearlrt {
 
       \returns the abolute value of the Fixed
       */
-      Fixed abs() {
+      Fixed abs() const {
          Fixed y(x);
 
          if (x < 0) {
@@ -539,7 +539,7 @@ namespace pearlrt {
        \returns 0, if zero
        \returns +1, if positive
       */
-      Fixed<1> sign() {
+      Fixed<1> sign() const {
          if (x < 0) {
             return Fixed<1>(-1);
          } else if (x > 0) {
@@ -718,7 +718,7 @@ namespace pearlrt {
       \throws FixedRangeSignal if the data does not fit in the new type
       */
       template<int P>
-      Fixed<P> fit(const Fixed<P>& rhs) {
+      Fixed<P> fit(const Fixed<P>& rhs) const {
          Fixed<P> result;
          result = *this;
          return result;